@@ -0,0 +1,108 @@
+package buildcraft.additionalpipes.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import net.minecraft.init.Items;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.Vec3;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import buildcraft.additionalpipes.pipes.PipeItemsDistributor;
+import buildcraft.additionalpipes.pipes.PipeItemsPriorityInsertion;
+import buildcraft.additionalpipes.sim.Headless;
+import buildcraft.additionalpipes.sim.StubInventory;
+import buildcraft.additionalpipes.sim.StubPipeTile;
+import buildcraft.transport.Pipe;
+import buildcraft.transport.TravelingItem;
+import buildcraft.transport.pipes.events.PipeEventItem;
+
+/**
+ * Cost of picking destinations in the Distribution and Priority Insertion pipes, with an inventory on every side but the input.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoutingBenchmark
+{
+	private PipeItemsDistributor distributor;
+	private PipeItemsPriorityInsertion priorityInsertion;
+
+	private TravelingItem item;
+	private List<EnumFacing> destinations;
+
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		Headless.init();
+
+		distributor = new PipeItemsDistributor(null);
+		connectInventories(new StubPipeTile(distributor));
+		distributor.distData = new int[] { 0, 1, 2, 3, 4, 5 };
+
+		priorityInsertion = new PipeItemsPriorityInsertion(null);
+		connectInventories(new StubPipeTile(priorityInsertion));
+		priorityInsertion.sidePriorities = new int[] { 1, 1, 2, 3, 4, 5 };
+
+		item = TravelingItem.make(new Vec3(0.5, 0.5, 0.5), new ItemStack(Items.iron_ingot, 16));
+		destinations = new ArrayList<EnumFacing>(6);
+	}
+
+	private static void connectInventories(StubPipeTile tile)
+	{
+		for(EnumFacing side : EnumFacing.VALUES)
+		{
+			//items come in from below
+			if(side != EnumFacing.DOWN)
+			{
+				tile.setNeighbour(side, new StubInventory(27));
+			}
+		}
+	}
+
+	private PipeEventItem.FindDest makeEvent(Pipe<?> pipe)
+	{
+		destinations.clear();
+		for(EnumFacing side : EnumFacing.VALUES)
+		{
+			if(side != EnumFacing.DOWN)
+			{
+				destinations.add(side);
+			}
+		}
+
+		return new PipeEventItem.FindDest(pipe, item, destinations);
+	}
+
+	@Benchmark
+	public List<EnumFacing> distributor()
+	{
+		PipeEventItem.FindDest event = makeEvent(distributor);
+		distributor.eventHandler(event);
+		return event.destinations;
+	}
+
+	@Benchmark
+	public List<EnumFacing> priorityInsertion()
+	{
+		PipeEventItem.FindDest event = makeEvent(priorityInsertion);
+		priorityInsertion.eventHandler(event);
+		return event.destinations;
+	}
+}
@@ -0,0 +1,88 @@
+package buildcraft.additionalpipes.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import net.minecraft.init.Items;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import buildcraft.additionalpipes.pipes.SideFilterData;
+import buildcraft.additionalpipes.sim.Headless;
+
+/**
+ * Cost of checking a stack against a full Jeweled Pipe filter, with and without NBT matching.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SideFilterDataBenchmark
+{
+	@Param({"false", "true"})
+	public boolean matchNBT;
+
+	private SideFilterData filter;
+
+	//same item as every slot, but only the last slot's NBT matches
+	private ItemStack lastSlotMatch;
+
+	//an item that isn't in the filter at all
+	private ItemStack noMatch;
+
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		Headless.init();
+
+		filter = new SideFilterData();
+		filter.setMatchMetadata(true);
+		filter.setMatchNBT(matchNBT);
+		for(int slot = 0; slot < SideFilterData.INVENTORY_SIZE; ++slot)
+		{
+			filter.setInventorySlotContents(slot, makeTaggedStack(slot));
+		}
+
+		lastSlotMatch = makeTaggedStack(SideFilterData.INVENTORY_SIZE - 1);
+		noMatch = new ItemStack(Items.diamond);
+	}
+
+	private static ItemStack makeTaggedStack(int index)
+	{
+		ItemStack stack = new ItemStack(Items.enchanted_book);
+		NBTTagCompound tag = new NBTTagCompound();
+		tag.setInteger("index", index);
+		tag.setString("name", "Filter entry " + index);
+		NBTTagCompound display = new NBTTagCompound();
+		display.setString("Lore", "benchmark");
+		tag.setTag("display", display);
+		stack.setTagCompound(tag);
+		return stack;
+	}
+
+	@Benchmark
+	public boolean matchLastSlot()
+	{
+		return filter.matchesStack(lastSlotMatch);
+	}
+
+	@Benchmark
+	public boolean matchNothing()
+	{
+		return filter.matchesStack(noMatch);
+	}
+}
@@ -0,0 +1,94 @@
+package buildcraft.additionalpipes.benchmark;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import buildcraft.additionalpipes.pipes.PipeItemsTeleport;
+import buildcraft.additionalpipes.pipes.TeleportManager;
+import buildcraft.additionalpipes.sim.Headless;
+
+/**
+ * Cost of looking up the pipes an item teleport pipe can send to, for channels of different sizes.
+ * Pipes are built without an item or container, like the TeleportManager tests do.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TeleportManagerBenchmark
+{
+	private static final int FREQUENCY = 3;
+
+	@Param({"10", "100", "1000", "10000"})
+	public int pipesPerFrequency;
+
+	private PipeItemsTeleport sender;
+
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		Headless.init();
+		TeleportManager.instance.reset();
+
+		for(int index = 0; index < pipesPerFrequency; ++index)
+		{
+			PipeItemsTeleport pipe = new PipeItemsTeleport(null);
+			pipe.setFrequency(FREQUENCY);
+
+			//a mix of senders, receivers and both, with a few private pipes that have to be filtered out
+			pipe.state = (byte) (1 + index % 3);
+			pipe.isPublic = index % 10 != 0;
+			TeleportManager.instance.add(pipe, FREQUENCY);
+
+			if(index == 0)
+			{
+				sender = pipe;
+			}
+		}
+
+		//pipes on other frequencies shouldn't matter
+		for(int index = 0; index < pipesPerFrequency; ++index)
+		{
+			PipeItemsTeleport pipe = new PipeItemsTeleport(null);
+			pipe.setFrequency(FREQUENCY + 1);
+			TeleportManager.instance.add(pipe, FREQUENCY + 1);
+		}
+
+		sender.state = 0x1;
+		sender.isPublic = true;
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		TeleportManager.instance.reset();
+	}
+
+	@Benchmark
+	public ArrayList<PipeItemsTeleport> getReceivers()
+	{
+		return TeleportManager.instance.getConnectedPipes(sender, false, true);
+	}
+
+	@Benchmark
+	public ArrayList<PipeItemsTeleport> getSendersAndReceivers()
+	{
+		return TeleportManager.instance.getConnectedPipes(sender, true, true);
+	}
+}
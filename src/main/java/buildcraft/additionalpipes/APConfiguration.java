@@ -28,6 +28,22 @@ public class APConfiguration
 	
 	public static boolean enableTriggers = true;
 	
+	public static boolean teleportReceiverChunkLoading;
+	
+	public static int teleportReceiverIdleTicks;
+	
+	public static int teleportMetricsExportSeconds;
+	
+	public static int teleportQueueSize;
+	
+	public static int teleportReceiverBufferSize;
+	
+	public static boolean teleportTeamSharing;
+	
+	public static int teleportTraceSize;
+	
+	public static int tickBudgetMicros;
+	
 	//set from config
 	public static boolean filterRightclicks = false;
 
@@ -71,6 +87,10 @@ public class APConfiguration
 			enableDebugLogProperty.comment = "Enable debug logging for development";
 			enableDebugLog = enableDebugLogProperty.getBoolean();
 			
+			Property logLevelsProperty = config.get(Configuration.CATEGORY_GENERAL, "logLevels", "");
+			logLevelsProperty.comment = "Log levels of parts of the mod, like teleport=debug,chunkloading=warn.  Parts: general, teleport, chunkloading, network, gui, pipes.";
+			Log.configure(enableDebugLog, logLevelsProperty.getString());
+			
 			Property allowWRRemoveProperty = config.get(Configuration.CATEGORY_GENERAL, "allowWRRemove", true);
 			allowWRRemoveProperty.comment = "Turn on recipes for removing the redstone and sealant from pipes to turn them back to transport pipes";
 			allowWRRemove = allowWRRemoveProperty.getBoolean();
@@ -82,6 +102,38 @@ public class APConfiguration
 			Property gpPullRateProperty = config.get(Configuration.CATEGORY_GENERAL, "gravityFeedPipeTicksPerPull", 48);
 			gpPullRateProperty.comment = "How many ticks the Gravity Feed Pipe needs to extract an item";
 			gravityFeedPipeTicksPerPull = gpPullRateProperty.getInt();
+			
+			Property receiverChunkLoadingProperty = config.get(Configuration.CATEGORY_GENERAL, "teleportReceiverChunkLoading", false);
+			receiverChunkLoadingProperty.comment = "Load the chunks of item and fluid teleport receivers while something is being sent to them, instead of needing a chunk loader at every receiver";
+			teleportReceiverChunkLoading = receiverChunkLoadingProperty.getBoolean();
+			
+			Property receiverIdleTicksProperty = config.get(Configuration.CATEGORY_GENERAL, "teleportReceiverIdleTicks", 600);
+			receiverIdleTicksProperty.comment = "How many ticks a teleport receiver's chunk stays loaded after the last thing was sent to it";
+			teleportReceiverIdleTicks = Math.max(20, receiverIdleTicksProperty.getInt());
+			
+			Property metricsExportProperty = config.get(Configuration.CATEGORY_GENERAL, "teleportMetricsExportSeconds", 0);
+			metricsExportProperty.comment = "How often, in seconds, to write teleport pipe throughput to additionalpipes-teleport.prom in the world folder. 0 to disable.";
+			teleportMetricsExportSeconds = metricsExportProperty.getInt();
+			
+			Property queueSizeProperty = config.get(Configuration.CATEGORY_GENERAL, "teleportQueueSize", 64);
+			queueSizeProperty.comment = "How many stacks or buckets cross-dimension teleport pipes queue per channel while their receivers' dimensions are unloaded. 0 to disable.";
+			teleportQueueSize = Math.max(0, queueSizeProperty.getInt());
+			
+			Property receiverBufferProperty = config.get(Configuration.CATEGORY_GENERAL, "teleportReceiverBufferSize", 0);
+			receiverBufferProperty.comment = "How many stacks or buckets each item or fluid teleport receiver holds on to while its outputs are blocked. 0 to disable.";
+			teleportReceiverBufferSize = Math.max(0, receiverBufferProperty.getInt());
+			
+			Property teamSharingProperty = config.get(Configuration.CATEGORY_GENERAL, "teleportTeamSharing", false);
+			teamSharingProperty.comment = "Whether private teleport pipes connect to the private pipes of players on the same scoreboard team.";
+			teleportTeamSharing = teamSharingProperty.getBoolean();
+			
+			Property traceSizeProperty = config.get(Configuration.CATEGORY_GENERAL, "teleportTraceSize", 0);
+			traceSizeProperty.comment = "How many of the latest teleport pipe events to keep in memory for /additionalpipes trace. 0 to disable.";
+			teleportTraceSize = Math.max(0, traceSizeProperty.getInt());
+			
+			Property tickBudgetProperty = config.get(Configuration.CATEGORY_GENERAL, "tickBudgetMicros", 0);
+			tickBudgetProperty.comment = "Microseconds of server time per tick Additional Pipes tries to stay within, by putting off inventory pulls, item scans and cleanup to later ticks. 0 for no limit.";
+			tickBudgetMicros = Math.max(0, tickBudgetProperty.getInt());
 		} 
 		catch(Exception e)
 		{
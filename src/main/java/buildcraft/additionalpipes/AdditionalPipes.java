@@ -18,6 +18,7 @@ import net.minecraft.item.ItemStack;
 import net.minecraftforge.client.event.TextureStitchEvent;
 import net.minecraftforge.common.ForgeChunkManager;
 import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.fml.common.FMLCommonHandler;
 import net.minecraftforge.fml.common.Loader;
 import net.minecraftforge.fml.common.Mod;
 import net.minecraftforge.fml.common.Mod.EventHandler;
@@ -41,10 +42,15 @@ import buildcraft.additionalpipes.chunkloader.ChunkLoadingHandler;
 import buildcraft.additionalpipes.chunkloader.TileChunkLoader;
 import buildcraft.additionalpipes.gates.GateProvider;
 import buildcraft.additionalpipes.gates.TriggerPipeClosed;
+import buildcraft.additionalpipes.gates.TriggerTeleportBuffer;
 import buildcraft.additionalpipes.gui.GuiHandler;
 import buildcraft.additionalpipes.item.ItemDogDeaggravator;
+import buildcraft.additionalpipes.metrics.APProfiler;
+import buildcraft.additionalpipes.metrics.TickBudget;
 import buildcraft.additionalpipes.network.PacketHandler;
+import buildcraft.additionalpipes.network.ServerMessageQueue;
 import buildcraft.additionalpipes.pipes.APPipe;
+import buildcraft.additionalpipes.pipes.ChunkEpoch;
 import buildcraft.additionalpipes.pipes.PipeItemsAddition;
 import buildcraft.additionalpipes.pipes.PipeItemsAdvancedInsertion;
 import buildcraft.additionalpipes.pipes.PipeItemsAdvancedWood;
@@ -62,10 +68,10 @@ import buildcraft.additionalpipes.pipes.PipeSwitchFluids;
 import buildcraft.additionalpipes.pipes.PipeSwitchItems;
 import buildcraft.additionalpipes.pipes.PipeSwitchPower;
 import buildcraft.additionalpipes.pipes.TeleportManager;
-import buildcraft.additionalpipes.test.TeleportManagerTest;
 import buildcraft.additionalpipes.textures.Textures;
 import buildcraft.additionalpipes.utils.Log;
 import buildcraft.additionalpipes.utils.PipeCreator;
+import buildcraft.additionalpipes.utils.TimerWheel;
 import buildcraft.api.statements.ITriggerInternal;
 import buildcraft.api.statements.StatementManager;
 import buildcraft.core.BCCreativeTab;
@@ -148,6 +154,9 @@ public class AdditionalPipes {
 	public Item dogDeaggravator;
 	
 	public ITriggerInternal triggerPipeClosed;
+	public ITriggerInternal triggerTeleportBufferEmpty;
+	public ITriggerInternal triggerTeleportBufferContains;
+	public ITriggerInternal triggerTeleportBufferFull;
 
 	@EventHandler
 	public void preInit(FMLPreInitializationEvent event) 
@@ -177,7 +186,18 @@ public class AdditionalPipes {
 		NetworkRegistry.INSTANCE.registerGuiHandler(this, new GuiHandler());
 	
 		Log.info("Registering chunk load handler");
-		ForgeChunkManager.setForcedChunkLoadingCallback(this, new ChunkLoadingHandler());
+		ChunkLoadingHandler chunkLoadingHandler = new ChunkLoadingHandler();
+		ForgeChunkManager.setForcedChunkLoadingCallback(this, chunkLoadingHandler);
+		MinecraftForge.EVENT_BUS.register(chunkLoadingHandler);
+		FMLCommonHandler.instance().bus().register(chunkLoadingHandler);
+		FMLCommonHandler.instance().bus().register(APProfiler.instance);
+		FMLCommonHandler.instance().bus().register(TeleportManager.instance.metrics);
+		MinecraftForge.EVENT_BUS.register(ChunkEpoch.instance);
+		MinecraftForge.EVENT_BUS.register(TeleportManager.instance);
+		FMLCommonHandler.instance().bus().register(TeleportManager.instance);
+		FMLCommonHandler.instance().bus().register(ServerMessageQueue.instance);
+		FMLCommonHandler.instance().bus().register(TickBudget.instance);
+		FMLCommonHandler.instance().bus().register(TimerWheel.instance);
 		chunkLoadViewer = new ChunkLoadViewDataProxy(APConfiguration.chunkSightRange);
 		MinecraftForge.EVENT_BUS.register(chunkLoadViewer);
 		
@@ -192,6 +212,9 @@ public class AdditionalPipes {
 		creativeTab.setIcon(new ItemStack(pipeItemsTeleport));
 
 		triggerPipeClosed = new TriggerPipeClosed();
+		triggerTeleportBufferEmpty = new TriggerTeleportBuffer(TriggerTeleportBuffer.Level.EMPTY);
+		triggerTeleportBufferContains = new TriggerTeleportBuffer(TriggerTeleportBuffer.Level.CONTAINS);
+		triggerTeleportBufferFull = new TriggerTeleportBuffer(TriggerTeleportBuffer.Level.FULL);
 		StatementManager.registerTriggerProvider(new GateProvider());
 
 		if(APConfiguration.allowWRRemove)
@@ -253,11 +276,6 @@ public class AdditionalPipes {
 		GameRegistry.registerTileEntity(TileChunkLoader.class, "TeleportTether");
 		GameRegistry.addRecipe(new ItemStack(blockChunkLoader), new Object[] { "iii", "iLi", "iii", 'i', Items.iron_ingot, 'L', new ItemStack(Items.dye, 1, 4) });
 		
-
-		
-		Log.info("Running Teleport Manager Tests");
-		TeleportManagerTest.runAllTests();
-		
 		//set the reference in the API
 		TeleportManagerBase.INSTANCE = TeleportManager.instance;
 	}
@@ -339,6 +357,9 @@ public class AdditionalPipes {
 	public void onServerStart(FMLServerStartingEvent event) {
 		event.registerServerCommand(new CommandAdditionalPipes());
 		TeleportManager.instance.reset();
+		ServerMessageQueue.instance.clear();
+		TickBudget.instance.clear();
+		TimerWheel.instance.clear();
 	}
 
 	
@@ -1,14 +1,19 @@
 package buildcraft.additionalpipes;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import net.minecraft.client.entity.EntityPlayerSP;
 import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.util.MathHelper;
+import net.minecraft.util.Vec3;
 import net.minecraft.world.ChunkCoordIntPair;
+import net.minecraft.world.World;
 import net.minecraftforge.common.ForgeChunkManager;
 import net.minecraftforge.common.ForgeChunkManager.Ticket;
 import net.minecraftforge.fml.client.FMLClientHandler;
@@ -21,36 +26,37 @@ import buildcraft.additionalpipes.network.PacketHandler;
 import buildcraft.additionalpipes.network.message.MessageChunkloadData;
 import buildcraft.additionalpipes.network.message.MessageChunkloadRequest;
 import buildcraft.additionalpipes.utils.Log;
+import buildcraft.additionalpipes.utils.Log.Category;
 import buildcraft.core.EntityLaser;
-import buildcraft.core.lib.utils.Utils;
+import buildcraft.core.LaserKind;
 
 import com.google.common.collect.SetMultimap;
 
-public class ChunkLoadViewDataProxy implements Comparator<ChunkCoordIntPair> {
+public class ChunkLoadViewDataProxy {
 	public static final int MAX_SIGHT_RANGE = 31;
 
+	// heights, relative to the player, at which the boundaries are drawn
+	private static final int[] LASER_LAYERS = { 0, -20, 20 };
+
 	// used by server
 	private int sightRange;
 
 	// used by client
-	private List<EntityLaser> lasers;
-	private List<ChunkCoordIntPair> persistentChunks;
+	private Map<Long, List<EntityLaser>> chunkLasers;
+	private Map<LaserKind, List<EntityLaser>> laserPool;
+	// sorted, packed with ChunkCoordIntPair.chunkXZ2Int()
+	private long[] persistentChunks;
+	private World laserWorld;
+	private int laserY;
 	private boolean active = false;
 
 	public ChunkLoadViewDataProxy(int chunkSightRange) {
 		setSightRange(chunkSightRange);
-		lasers = new ArrayList<EntityLaser>();
-		persistentChunks = new ArrayList<ChunkCoordIntPair>();
+		chunkLasers = new HashMap<Long, List<EntityLaser>>();
+		laserPool = new EnumMap<LaserKind, List<EntityLaser>>(LaserKind.class);
+		persistentChunks = new long[0];
 		active = false;
 	}
-	
-	private void addLasersToList(EntityLaser[] entityBlocks)
-	{
-		for(EntityLaser laser : entityBlocks)
-		{
-			lasers.add(laser);
-		}
-	}
 
 	// laser methods
 	
@@ -63,36 +69,46 @@ public class ChunkLoadViewDataProxy implements Comparator<ChunkCoordIntPair> {
 		}
 	}
 
+	/**
+	 * Lays out the boundaries of every known chunk again, around the player's current height.
+	 */
 	@SideOnly(Side.CLIENT)
 	public void activateLasers() {
-		deactivateLasers();
 		EntityPlayerSP player = FMLClientHandler.instance().getClient().thePlayer;
-		int playerY = (int) player.posY - 1;
-		for(ChunkCoordIntPair coords : persistentChunks) {
-			int xCoord = coords.chunkXPos * 16;
-			int zCoord = coords.chunkZPos * 16;
-
-			
-			addLasersToList(Utils.createLaserBox(player.worldObj, xCoord, playerY, zCoord, xCoord + 16, playerY, zCoord + 16, buildcraft.core.LaserKind.Blue));
-			addLasersToList(Utils.createLaserBox(player.worldObj, xCoord, playerY - 20, zCoord, xCoord + 16, playerY - 20, zCoord + 16, buildcraft.core.LaserKind.Blue));
-			addLasersToList(Utils.createLaserBox(player.worldObj, xCoord, playerY + 20, zCoord, xCoord + 16, playerY + 20, zCoord + 16, buildcraft.core.LaserKind.Blue));
-
-			addLasersToList(Utils.createLaserBox(player.worldObj, xCoord + 7, playerY, zCoord + 7, xCoord + 9, playerY, zCoord + 9, buildcraft.core.LaserKind.Red));
-			addLasersToList(Utils.createLaserBox(player.worldObj, xCoord + 7, playerY - 20, zCoord + 7, xCoord + 9, playerY - 20, zCoord + 9, buildcraft.core.LaserKind.Red));
-			addLasersToList(Utils.createLaserBox(player.worldObj, xCoord + 7, playerY + 20, zCoord + 7, xCoord + 9, playerY + 20, zCoord + 9, buildcraft.core.LaserKind.Red));
-
+		if(laserWorld != player.worldObj)
+		{
+			//pooled lasers belong to the old world
+			deactivateLasers();
+			laserWorld = player.worldObj;
+		}
 		
-
+		for(List<EntityLaser> lasers : chunkLasers.values())
+		{
+			releaseLasers(lasers);
+		}
+		chunkLasers.clear();
+		
+		laserY = (int) player.posY - 1;
+		for(long chunk : persistentChunks) {
+			addChunkLasers(chunk);
 		}
 		active = true;
 	}
 
 	@SideOnly(Side.CLIENT)
 	public void deactivateLasers() {
-		for(EntityLaser laser : lasers) {
-			laser.setDead();
+		for(List<EntityLaser> lasers : chunkLasers.values()) {
+			for(EntityLaser laser : lasers) {
+				laser.setDead();
+			}
+		}
+		for(List<EntityLaser> lasers : laserPool.values()) {
+			for(EntityLaser laser : lasers) {
+				laser.setDead();
+			}
 		}
-		lasers.clear();
+		chunkLasers.clear();
+		laserPool.clear();
 		active = false;
 	}
 
@@ -100,6 +116,67 @@ public class ChunkLoadViewDataProxy implements Comparator<ChunkCoordIntPair> {
 	public boolean lasersActive() {
 		return active;
 	}
+	
+	@SideOnly(Side.CLIENT)
+	private void addChunkLasers(long chunk)
+	{
+		List<EntityLaser> lasers = new ArrayList<EntityLaser>(LASER_LAYERS.length * 8);
+		int xCoord = getChunkX(chunk) * 16;
+		int zCoord = getChunkZ(chunk) * 16;
+		
+		for(int layer : LASER_LAYERS)
+		{
+			addLaserRectangle(lasers, xCoord, laserY + layer, zCoord, xCoord + 16, zCoord + 16, LaserKind.Blue);
+			addLaserRectangle(lasers, xCoord + 7, laserY + layer, zCoord + 7, xCoord + 9, zCoord + 9, LaserKind.Red);
+		}
+		
+		chunkLasers.put(chunk, lasers);
+	}
+	
+	// a flat box only needs its four horizontal edges
+	@SideOnly(Side.CLIENT)
+	private void addLaserRectangle(List<EntityLaser> lasers, double xMin, double y, double zMin, double xMax, double zMax, LaserKind kind)
+	{
+		lasers.add(obtainLaser(new Vec3(xMin, y, zMin), new Vec3(xMax, y, zMin), kind));
+		lasers.add(obtainLaser(new Vec3(xMax, y, zMin), new Vec3(xMax, y, zMax), kind));
+		lasers.add(obtainLaser(new Vec3(xMax, y, zMax), new Vec3(xMin, y, zMax), kind));
+		lasers.add(obtainLaser(new Vec3(xMin, y, zMax), new Vec3(xMin, y, zMin), kind));
+	}
+	
+	/**
+	 * Reuses a hidden laser of the given kind if there is one, otherwise creates a new one.
+	 */
+	@SideOnly(Side.CLIENT)
+	private EntityLaser obtainLaser(Vec3 head, Vec3 tail, LaserKind kind)
+	{
+		List<EntityLaser> pool = laserPool.get(kind);
+		if(pool != null && !pool.isEmpty())
+		{
+			EntityLaser laser = pool.remove(pool.size() - 1);
+			laser.setPositions(head, tail);
+			laser.show();
+			return laser;
+		}
+		
+		return new EntityLaser(laserWorld, head, tail, kind);
+	}
+	
+	@SideOnly(Side.CLIENT)
+	private void releaseLasers(List<EntityLaser> lasers)
+	{
+		for(EntityLaser laser : lasers)
+		{
+			laser.hide();
+			LaserKind kind = laser.getTexture() == EntityLaser.LASER_RED ? LaserKind.Red : LaserKind.Blue;
+			List<EntityLaser> pool = laserPool.get(kind);
+			if(pool == null)
+			{
+				pool = new ArrayList<EntityLaser>();
+				laserPool.put(kind, pool);
+			}
+			pool.add(laser);
+		}
+	}
 
 	// packet methods
 
@@ -110,33 +187,42 @@ public class ChunkLoadViewDataProxy implements Comparator<ChunkCoordIntPair> {
 		PacketHandler.INSTANCE.sendToServer(message);
 	}
 
+	/**
+	 * Called when the server sends the forced chunks around the player.
+	 * 
+	 * Only the chunks that appeared or disappeared since the last update get their lasers changed.
+	 * @param chunks chunks packed with ChunkCoordIntPair.chunkXZ2Int()
+	 */
 	@SideOnly(Side.CLIENT)
-	public void receivePersistentChunks(List<ChunkCoordIntPair> chunks)
+	public void receivePersistentChunks(long[] chunks)
 	{
-		boolean changed = true;
-		// check if arrays have equal contents
 		// do this on the client since it's only rendering, and it reduces
 		// server load
-		if(persistentChunks.size() == chunks.size()) {
-			changed = false;
-			Collections.sort(chunks, this);
-			Collections.sort(persistentChunks, this);
-			for(int i = 0; i < chunks.size(); i++)
+		Arrays.sort(chunks);
+		
+		if(active)
+		{
+			Iterator<Map.Entry<Long, List<EntityLaser>>> iterator = chunkLasers.entrySet().iterator();
+			while(iterator.hasNext())
 			{
-				if(!chunks.get(i).equals(persistentChunks.get(i)))
+				Map.Entry<Long, List<EntityLaser>> entry = iterator.next();
+				if(Arrays.binarySearch(chunks, entry.getKey()) < 0)
 				{
-					changed = true;
-					break;
+					releaseLasers(entry.getValue());
+					iterator.remove();
 				}
 			}
-		}
-
-		if(changed) {
-			persistentChunks = chunks;
-			if(active) {
-				activateLasers();
+			
+			for(long chunk : chunks)
+			{
+				if(!chunkLasers.containsKey(chunk))
+				{
+					addChunkLasers(chunk);
+				}
 			}
 		}
+		
+		persistentChunks = chunks;
 	}
 
 	// sets how far the server will search for chunkloaded chunks
@@ -154,23 +240,25 @@ public class ChunkLoadViewDataProxy implements Comparator<ChunkCoordIntPair> {
 			sightRange = MAX_SIGHT_RANGE;
 
 		SetMultimap<ChunkCoordIntPair, Ticket> persistentChunks = ForgeChunkManager.getPersistentChunksFor(player.worldObj);
-		List<ChunkCoordIntPair> chunksInRange = new LinkedList<ChunkCoordIntPair>();
-		int playerX = (((int) player.posX) >> 4) - sightRange / 2, playerZ = (((int) player.posZ) >> 4) - sightRange / 2;
-
-		for(int i = -sightRange; i <= sightRange; i++) {
-			for(int j = -sightRange; j <= sightRange; j++) {
-				ChunkCoordIntPair coords = new ChunkCoordIntPair(playerX + i, playerZ + j);
-				if(persistentChunks.containsKey(coords)) {
-					chunksInRange.add(coords);
-				}
+		long[] chunksInRange = new long[persistentChunks.keySet().size()];
+		int chunkCount = 0;
+		int playerX = MathHelper.floor_double(player.posX) >> 4, playerZ = MathHelper.floor_double(player.posZ) >> 4;
+
+		// walk the forced chunks instead of probing every chunk in view,
+		// so the cost scales with the number of tickets rather than the square of the range
+		for(ChunkCoordIntPair coords : persistentChunks.keySet())
+		{
+			if(Math.abs(coords.chunkXPos - playerX) <= sightRange && Math.abs(coords.chunkZPos - playerZ) <= sightRange)
+			{
+				chunksInRange[chunkCount++] = ChunkCoordIntPair.chunkXZ2Int(coords.chunkXPos, coords.chunkZPos);
 			}
 		}
 		
-		MessageChunkloadData message = new MessageChunkloadData(chunksInRange);
+		MessageChunkloadData message = new MessageChunkloadData(playerX, playerZ, chunksInRange, chunkCount);
 		
 		PacketHandler.INSTANCE.sendTo(message, player);
 		
-		Log.debug("[ChunkLoadViewDataProxy] Sent chunks within " + sightRange + " of player.");
+		Log.debug(Category.CHUNK_LOADING, "[ChunkLoadViewDataProxy] Sent chunks within %d of player.", sightRange);
 	}
 
 	@SideOnly(Side.CLIENT)
@@ -193,14 +281,20 @@ public class ChunkLoadViewDataProxy implements Comparator<ChunkCoordIntPair> {
 	public int nextTickSpacing() {
 		return 20 * 5;
 	}
-
-	// Comparator
-
-	// first - other
-	// assume non-null
-	@Override
-	public int compare(ChunkCoordIntPair first, ChunkCoordIntPair other) {
-		int dx = first.chunkXPos - other.chunkXPos;
-		return dx != 0 ? dx : first.chunkZPos - other.chunkZPos;
+	
+	/**
+	 * Unpacks the X coordinate of a chunk packed with ChunkCoordIntPair.chunkXZ2Int()
+	 */
+	public static int getChunkX(long chunk)
+	{
+		return (int) chunk;
+	}
+	
+	/**
+	 * Unpacks the Z coordinate of a chunk packed with ChunkCoordIntPair.chunkXZ2Int()
+	 */
+	public static int getChunkZ(long chunk)
+	{
+		return (int) (chunk >> 32);
 	}
 }
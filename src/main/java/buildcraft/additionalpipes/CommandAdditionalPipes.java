@@ -1,15 +1,28 @@
 package buildcraft.additionalpipes;
 
+import java.io.File;
 import java.util.Collection;
+import java.util.Iterator;
 
 import net.minecraft.command.CommandBase;
 import net.minecraft.command.ICommandSender;
 import net.minecraft.util.ChatComponentText;
 import net.minecraft.util.StatCollector;
+import buildcraft.additionalpipes.api.PipeType;
+import buildcraft.additionalpipes.metrics.APProfiler;
+import buildcraft.additionalpipes.metrics.APProfiler.Section;
+import buildcraft.additionalpipes.metrics.TeleportMetrics;
+import buildcraft.additionalpipes.metrics.TeleportMetrics.Counter;
+import buildcraft.additionalpipes.metrics.TeleportTrace;
+import buildcraft.additionalpipes.metrics.TickBudget;
 import buildcraft.additionalpipes.pipes.PipeTeleport;
 import buildcraft.additionalpipes.pipes.TeleportManager;
+import buildcraft.additionalpipes.pipes.TeleportRegistrySweep;
 
 public class CommandAdditionalPipes extends CommandBase {
+	
+	// teleport events shown in chat, the rest are only in the dump
+	private static final int TRACE_LINES = 10;
 
 	@Override
 	public String getCommandName() {
@@ -55,6 +68,176 @@ public class CommandAdditionalPipes extends CommandBase {
 				sender.addChatMessage(new ChatComponentText(sb.toString()));
 			}
 		}
+		else if(args.length > 0 && "metrics".equals(args[0]))
+		{
+			if(args.length > 1 && "dump".equals(args[1]))
+			{
+				File file = TeleportMetrics.getExportFile();
+				if(file != null)
+				{
+					TeleportManager.instance.metrics.writePrometheus(file);
+					sender.addChatMessage(new ChatComponentText("Wrote teleport metrics to " + file));
+				}
+				return;
+			}
+			
+			printMetrics(sender, args.length > 1 ? args[1] : null);
+		}
+		else if(args.length > 0 && "profile".equals(args[0]))
+		{
+			if(args.length > 1 && "reset".equals(args[1]))
+			{
+				APProfiler.instance.reset();
+				sender.addChatMessage(new ChatComponentText("Profiler reset."));
+				return;
+			}
+			
+			printProfile(sender);
+		}
+		else if(args.length > 0 && "budget".equals(args[0]))
+		{
+			if(args.length > 1 && "reset".equals(args[1]))
+			{
+				TickBudget.instance.reset();
+				sender.addChatMessage(new ChatComponentText("Tick budget counts reset."));
+				return;
+			}
+			
+			printBudget(sender);
+		}
+		else if(args.length > 0 && "leaks".equals(args[0]))
+		{
+			printLeaks(sender);
+		}
+		else if(args.length > 0 && "trace".equals(args[0]))
+		{
+			TeleportTrace trace = TeleportManager.instance.trace;
+			if(!trace.isEnabled())
+			{
+				sender.addChatMessage(new ChatComponentText("The teleport trace is off.  Set teleportTraceSize in the config to turn it on."));
+				return;
+			}
+			
+			if(args.length > 1 && "dump".equals(args[1]))
+			{
+				File file = TeleportTrace.getDumpFile();
+				if(file != null && trace.dump(file))
+				{
+					sender.addChatMessage(new ChatComponentText("Wrote teleport trace to " + file));
+				}
+				return;
+			}
+			
+			sender.addChatMessage(new ChatComponentText("Latest teleport events (" + trace.getRecorded() + " recorded):"));
+			for(TeleportTrace.Entry entry : trace.getLatest(TRACE_LINES))
+			{
+				sender.addChatMessage(new ChatComponentText(entry.toString()));
+			}
+		}
+	}
+	
+	private void printMetrics(ICommandSender sender, String frequencyArg)
+	{
+		Integer frequency = null;
+		if(frequencyArg != null)
+		{
+			try
+			{
+				frequency = Integer.parseInt(frequencyArg);
+			}
+			catch(NumberFormatException e)
+			{
+				sender.addChatMessage(new ChatComponentText("Not a frequency: " + frequencyArg));
+				return;
+			}
+		}
+		
+		sender.addChatMessage(new ChatComponentText("Teleport throughput per second (1m / 5m):"));
+		for(TeleportMetrics.ChannelCounters channel : TeleportManager.instance.metrics.getChannels())
+		{
+			if(frequency != null && channel.frequency != frequency)
+			{
+				continue;
+			}
+			
+			Counter moved = channel.type == PipeType.ITEMS ? Counter.ITEMS : (channel.type == PipeType.FLUIDS ? Counter.FLUID : Counter.ENERGY);
+			sender.addChatMessage(new ChatComponentText(String.format("%s %d: %.1f / %.1f %s, %.1f / %.1f failed sends", channel.type.toString().toLowerCase(), channel.frequency, 
+					channel.getRate(moved, TeleportMetrics.ONE_MINUTE), channel.getRate(moved, TeleportMetrics.FIVE_MINUTES), moved.metricName,
+					channel.getRate(Counter.FAILED_SENDS, TeleportMetrics.ONE_MINUTE), channel.getRate(Counter.FAILED_SENDS, TeleportMetrics.FIVE_MINUTES))));
+		}
+	}
+	
+	private void printProfile(ICommandSender sender)
+	{
+		APProfiler profiler = APProfiler.instance;
+		long ticks = Math.max(1, profiler.getTicks());
+		sender.addChatMessage(new ChatComponentText("Additional Pipes tick time over " + profiler.getTicks() + " ticks (last tick: " 
+				+ formatMicros(profiler.getLastTickNanos()) + "):"));
+		
+		for(Section section : Section.values())
+		{
+			long calls = profiler.getCalls(section);
+			if(calls == 0)
+			{
+				continue;
+			}
+			
+			long totalNanos = profiler.getTotalNanos(section);
+			sender.addChatMessage(new ChatComponentText(String.format("%s: %s/tick, %d calls, avg %s, p99 %s, max %s", section.displayName, 
+					formatMicros(totalNanos / ticks), calls, formatMicros(totalNanos / calls), 
+					formatMicros(profiler.getPercentileNanos(section, .99)), formatMicros(profiler.getMaxNanos(section)))));
+			
+			for(APProfiler.PositionReport position : profiler.getTopPositions(section, 3))
+			{
+				sender.addChatMessage(new ChatComponentText(String.format("  [%d, %d, %d] dim %d: %s/tick, %d calls", position.pos.getX(), position.pos.getY(), 
+						position.pos.getZ(), position.dimension, formatMicros(position.nanos / position.ticks), position.calls)));
+			}
+		}
+	}
+	
+	private void printBudget(ICommandSender sender)
+	{
+		TickBudget budget = TickBudget.instance;
+		sender.addChatMessage(new ChatComponentText(String.format("Tick budget: %s, last tick used %s, %d jobs waiting", 
+				APConfiguration.tickBudgetMicros > 0 ? APConfiguration.tickBudgetMicros + "us" : "none", formatMicros(APProfiler.instance.getLastTickNanos()), budget.getWaiting())));
+		
+		for(Section section : Section.values())
+		{
+			long executed = budget.getExecuted(section), deferred = budget.getDeferred(section);
+			if(executed != 0 || deferred != 0)
+			{
+				sender.addChatMessage(new ChatComponentText(String.format("%s: %d run, %d put off", section.displayName, executed, deferred)));
+			}
+		}
+	}
+	
+	private void printLeaks(ICommandSender sender)
+	{
+		TeleportManager manager = TeleportManager.instance;
+		TeleportRegistrySweep sweep = manager.sweep;
+		int registered = manager.getAllItemPipesInNetwork().size() + manager.getAllFluidPipesInNetwork().size() + manager.getAllPowerPipesInNetwork().size();
+		sender.addChatMessage(new ChatComponentText(String.format("%d teleport pipes registered, %d sweeps done, %d pipes left in this one", 
+				registered, sweep.getSweeps(), sweep.getRemaining())));
+		
+		for(TeleportRegistrySweep.Reason reason : TeleportRegistrySweep.Reason.values())
+		{
+			sender.addChatMessage(new ChatComponentText(String.format("Removed, %s: %d", reason.description, sweep.getPurged(reason))));
+		}
+		
+		Iterator<String> leaks = sweep.getRecentLeaks();
+		if(leaks.hasNext())
+		{
+			sender.addChatMessage(new ChatComponentText("Latest:"));
+			while(leaks.hasNext())
+			{
+				sender.addChatMessage(new ChatComponentText("  " + leaks.next()));
+			}
+		}
+	}
+	
+	private static String formatMicros(long nanos)
+	{
+		return String.format("%.1fus", nanos / 1000.0);
 	}
 
 	@Override
@@ -37,6 +37,18 @@ public interface ITeleportPipe
 	
 	public BlockPos getPosition();
 	
+	/**
+	 * @return the dimension the pipe is in
+	 */
+	public int getDimension();
+	
+	/**
+	 * Cross-dimension pipes only connect to other cross-dimension pipes, but do so in any dimension.
+	 * Other pipes only connect to pipes in their own dimension.
+	 * @return
+	 */
+	public boolean isCrossDimension();
+	
 	public boolean canReceive();
 	
 	public boolean canSend();
@@ -17,7 +17,7 @@ public abstract class TeleportManagerBase
 	/**
 	 * Add a pipe to to the manager on the given frequency.
 	 * 
-	 * Automatically called by the teleport pipe constructor.
+	 * Automatically called when a teleport pipe loads.  Only add server side pipes.
 	 * @param pipe
 	 * @param frequency
 	 */
@@ -30,6 +30,22 @@ public abstract class TeleportManagerBase
 	 */
 	public abstract void remove(ITeleportPipe pipe, int frequency);
 	
+	/**
+	 * Move a pipe from one frequency to another.
+	 * 
+	 * Also call this, with the same frequency twice, after changing anything else that decides which pipes a pipe connects to.
+	 * This removes the pipe and adds it again, so for a moment it is on neither frequency.  Managers that can should
+	 * override it to move the pipe in one step, and to do nothing if the pipe was never added.
+	 * @param pipe
+	 * @param oldFrequency
+	 * @param newFrequency
+	 */
+	public void move(ITeleportPipe pipe, int oldFrequency, int newFrequency)
+	{
+		remove(pipe, oldFrequency);
+		add(pipe, newFrequency);
+	}
+	
 	/**
 	 * Remove the knowledge of all pipes from the teleport manager.  If called, pipes will stay in the world, but
 	 * not send items to each other until the world is reloaded.
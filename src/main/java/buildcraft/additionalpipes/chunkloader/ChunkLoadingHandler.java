@@ -2,23 +2,32 @@ package buildcraft.additionalpipes.chunkloader;
 
 import java.util.List;
 
-import net.minecraft.tileentity.TileEntity;
-import net.minecraft.util.BlockPos;
 import net.minecraft.world.World;
 import net.minecraftforge.common.ForgeChunkManager.LoadingCallback;
 import net.minecraftforge.common.ForgeChunkManager.Ticket;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent.Phase;
+import net.minecraftforge.fml.common.gameevent.TickEvent.WorldTickEvent;
 
 public class ChunkLoadingHandler implements LoadingCallback {
 	@Override
 	public void ticketsLoaded(List<Ticket> tickets, World world) {
-		for(Ticket ticket : tickets) {
-			int x = ticket.getModData().getInteger("xCoord");
-			int y = ticket.getModData().getInteger("yCoord");
-			int z = ticket.getModData().getInteger("zCoord");
-			TileEntity te = world.getTileEntity(new BlockPos(x, y, z));
-			if(te instanceof TileChunkLoader) {
-				((TileChunkLoader) te).forceChunkLoading(ticket);
-			}
+		// the loaders are saved in the tickets, so there is no need to look up their tile entities
+		ChunkLoadingManager.forWorld(world).restore(tickets);
+	}
+	
+	@SubscribeEvent
+	public void onWorldUnload(WorldEvent.Unload event) {
+		if(!event.world.isRemote) {
+			ChunkLoadingManager.unloadWorld(event.world);
+		}
+	}
+	
+	@SubscribeEvent
+	public void onWorldTick(WorldTickEvent event) {
+		if(event.phase == Phase.END && !event.world.isRemote) {
+			ChunkLoadingManager.tick(event.world);
 		}
 	}
-}
\ No newline at end of file
+}
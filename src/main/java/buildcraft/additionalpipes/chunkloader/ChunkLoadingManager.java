@@ -0,0 +1,425 @@
+package buildcraft.additionalpipes.chunkloader;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraft.util.BlockPos;
+import net.minecraft.world.ChunkCoordIntPair;
+import net.minecraft.world.World;
+import net.minecraftforge.common.ForgeChunkManager;
+import net.minecraftforge.common.ForgeChunkManager.Ticket;
+import net.minecraftforge.common.ForgeChunkManager.Type;
+import buildcraft.additionalpipes.AdditionalPipes;
+import buildcraft.additionalpipes.utils.Log;
+import buildcraft.additionalpipes.utils.Log.Category;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Forces the chunks requested by the chunk loaders of one world.
+ *
+ * Loaders do not own tickets.  Requests are reference counted per chunk, so overlapping loaders share chunks,
+ * and the chunks are packed into as few tickets as Forge allows.  The loaders and their areas are saved in the
+ * mod data of the first ticket, so ticketsLoaded() can restore them before any tile entities load.  Restored loaders
+ * are checked for on the first tick, and dropped if they are gone.
+ *
+ * Chunks can also be leased for a limited time, which teleport pipes use to load their receivers.
+ * Leases are not saved.
+ */
+public class ChunkLoadingManager
+{
+	private static final Map<World, ChunkLoadingManager> managers = new WeakHashMap<World, ChunkLoadingManager>();
+
+	private final World world;
+
+	//the first ticket holds the saved loaders
+	private final List<Ticket> tickets;
+
+	private final Map<ChunkCoordIntPair, Ticket> chunkTickets;
+
+	private final Map<ChunkCoordIntPair, Integer> chunkReferences;
+
+	//chunks that were actually forced for each loader
+	private final Map<BlockPos, List<ChunkCoordIntPair>> loaders;
+
+	//world time at which each leased chunk is released
+	private final Map<ChunkCoordIntPair, Long> leases;
+
+	//loaders restored from the tickets whose tile entities haven't been checked for yet
+	private final List<BlockPos> unverified;
+
+	private ChunkLoadingManager(World world)
+	{
+		this.world = world;
+		tickets = new ArrayList<Ticket>();
+		chunkTickets = new HashMap<ChunkCoordIntPair, Ticket>();
+		chunkReferences = new HashMap<ChunkCoordIntPair, Integer>();
+		loaders = new LinkedHashMap<BlockPos, List<ChunkCoordIntPair>>();
+		leases = new HashMap<ChunkCoordIntPair, Long>();
+		unverified = new ArrayList<BlockPos>();
+	}
+
+	/**
+	 * Get the manager for a world, creating it if needed.  Only call this on the server.
+	 * @param world
+	 * @return
+	 */
+	public static ChunkLoadingManager forWorld(World world)
+	{
+		ChunkLoadingManager manager = managers.get(world);
+		if(manager == null)
+		{
+			manager = new ChunkLoadingManager(world);
+			managers.put(world, manager);
+		}
+
+		return manager;
+	}
+
+	public static void unloadWorld(World world)
+	{
+		managers.remove(world);
+	}
+
+	/**
+	 * Check the loaders restored from the tickets on the first tick after loading, and release expired leases.
+	 * Call at the end of every tick of a world.
+	 * @param world
+	 */
+	public static void tick(World world)
+	{
+		ChunkLoadingManager manager = managers.get(world);
+		if(manager == null)
+		{
+			return;
+		}
+
+		if(!manager.unverified.isEmpty())
+		{
+			manager.verifyRestoredLoaders();
+		}
+
+		// leases are measured in ticks, but there's no need to check them that often
+		if(!manager.leases.isEmpty() && world.getTotalWorldTime() % 20 == 0)
+		{
+			manager.releaseExpiredLeases();
+		}
+	}
+
+	/**
+	 * Registers a loader, or changes the area of one that is already registered.
+	 * @param pos position of the loader
+	 * @param area chunks to keep loaded
+	 */
+	public void addLoader(BlockPos pos, List<ChunkCoordIntPair> area)
+	{
+		List<ChunkCoordIntPair> oldArea = loaders.put(pos, acquireChunks(area));
+
+		//acquire the new area before releasing the old one so shared chunks never get unforced in between
+		if(oldArea != null)
+		{
+			for(ChunkCoordIntPair chunk : oldArea)
+			{
+				releaseChunk(chunk);
+			}
+		}
+
+		saveLoaders();
+		Log.debug(Category.CHUNK_LOADING, "[ChunkLoadingManager] Loader at %s forces %d chunks, %d chunks on %d tickets", pos, loaders.get(pos).size(), chunkReferences.size(), tickets.size());
+	}
+
+	public void removeLoader(BlockPos pos)
+	{
+		List<ChunkCoordIntPair> area = loaders.remove(pos);
+		if(area == null)
+		{
+			return;
+		}
+
+		for(ChunkCoordIntPair chunk : area)
+		{
+			releaseChunk(chunk);
+		}
+
+		saveLoaders();
+	}
+
+	/**
+	 * Adds a reference to a chunk, forcing it if it was not already forced.
+	 *
+	 * Every successful call must be paired with a call to releaseChunk().
+	 * @param chunk
+	 * @return false if Forge refused to give out another ticket.
+	 */
+	public boolean acquireChunk(ChunkCoordIntPair chunk)
+	{
+		Integer references = chunkReferences.get(chunk);
+		if(references != null)
+		{
+			chunkReferences.put(chunk, references + 1);
+			return true;
+		}
+
+		Ticket ticket = getTicketWithRoom();
+		if(ticket == null)
+		{
+			Log.warn(Category.CHUNK_LOADING, "[ChunkLoadingManager] Out of chunk loading tickets, not forcing chunk " + chunk);
+			return false;
+		}
+
+		ForgeChunkManager.forceChunk(ticket, chunk);
+		chunkTickets.put(chunk, ticket);
+		chunkReferences.put(chunk, 1);
+		return true;
+	}
+
+	/**
+	 * Removes a reference to a chunk, and unforces it when nothing else needs it.
+	 * @param chunk
+	 */
+	public void releaseChunk(ChunkCoordIntPair chunk)
+	{
+		Integer references = chunkReferences.get(chunk);
+		if(references == null)
+		{
+			return;
+		}
+
+		if(references > 1)
+		{
+			chunkReferences.put(chunk, references - 1);
+			return;
+		}
+
+		chunkReferences.remove(chunk);
+		ForgeChunkManager.unforceChunk(chunkTickets.remove(chunk), chunk);
+		releaseEmptyTickets();
+	}
+
+	/**
+	 * Keeps a chunk loaded for a while.  Leasing a chunk that is already leased extends the lease.
+	 * @param chunk
+	 * @param ticks how long to keep the chunk loaded for
+	 */
+	public void leaseChunk(ChunkCoordIntPair chunk, int ticks)
+	{
+		if(!leases.containsKey(chunk))
+		{
+			if(!acquireChunk(chunk))
+			{
+				return;
+			}
+
+			Log.debug(Category.CHUNK_LOADING, "[ChunkLoadingManager] Leased chunk %s for %d ticks", chunk, ticks);
+		}
+
+		leases.put(chunk, world.getTotalWorldTime() + ticks);
+	}
+
+	/**
+	 * Extends the lease on a chunk if it has one.
+	 * @param chunk
+	 * @param ticks how long to keep the chunk loaded for, from now
+	 */
+	public void renewLease(ChunkCoordIntPair chunk, int ticks)
+	{
+		if(leases.containsKey(chunk))
+		{
+			leases.put(chunk, world.getTotalWorldTime() + ticks);
+		}
+	}
+
+	private void releaseExpiredLeases()
+	{
+		long now = world.getTotalWorldTime();
+		Iterator<Map.Entry<ChunkCoordIntPair, Long>> iterator = leases.entrySet().iterator();
+		while(iterator.hasNext())
+		{
+			Map.Entry<ChunkCoordIntPair, Long> lease = iterator.next();
+			if(lease.getValue() <= now)
+			{
+				iterator.remove();
+				releaseChunk(lease.getKey());
+				Log.debug(Category.CHUNK_LOADING, "[ChunkLoadingManager] Lease on chunk %s expired", lease.getKey());
+			}
+		}
+	}
+
+	/**
+	 * Take over the tickets Forge kept for this world, and force the chunks of the loaders saved in them.
+	 * @param loadedTickets
+	 */
+	public void restore(List<Ticket> loadedTickets)
+	{
+		Map<BlockPos, List<ChunkCoordIntPair>> savedLoaders = new LinkedHashMap<BlockPos, List<ChunkCoordIntPair>>();
+
+		for(Ticket ticket : loadedTickets)
+		{
+			NBTTagList loaderList = ticket.getModData().getTagList("loaders", 10);
+			for(int index = 0; index < loaderList.tagCount(); ++index)
+			{
+				NBTTagCompound loaderTag = loaderList.getCompoundTagAt(index);
+				BlockPos pos = new BlockPos(loaderTag.getInteger("x"), loaderTag.getInteger("y"), loaderTag.getInteger("z"));
+				savedLoaders.put(pos, readChunks(loaderTag.getIntArray("chunks")));
+			}
+
+			ticket.getModData().removeTag("loaders");
+
+			//Forge forced everything the ticket had when it was saved, including leases that are gone now,
+			//so start from an empty ticket and force the loaders' chunks again
+			for(ChunkCoordIntPair chunk : ImmutableSet.copyOf(ticket.getChunkList()))
+			{
+				ForgeChunkManager.unforceChunk(ticket, chunk);
+			}
+			tickets.add(ticket);
+		}
+
+		for(Map.Entry<BlockPos, List<ChunkCoordIntPair>> loader : savedLoaders.entrySet())
+		{
+			//a loader that already registered itself knows its area better than the save does
+			if(!loaders.containsKey(loader.getKey()))
+			{
+				loaders.put(loader.getKey(), acquireChunks(loader.getValue()));
+				unverified.add(loader.getKey());
+			}
+		}
+
+		releaseEmptyTickets();
+		saveLoaders();
+
+		Log.info(Category.CHUNK_LOADING, "Restored " + loaders.size() + " chunk loaders forcing " + chunkReferences.size() + " chunks in dimension " + world.provider.getDimensionId());
+	}
+
+	/**
+	 * Drop restored loaders that are no longer there, like ones removed by a world editor while their chunk was
+	 * unloaded.  Otherwise their areas would stay forced, and be saved again, forever.
+	 */
+	private void verifyRestoredLoaders()
+	{
+		for(BlockPos pos : unverified)
+		{
+			if(loaders.containsKey(pos) && !(world.getTileEntity(pos) instanceof TileChunkLoader))
+			{
+				Log.warn(Category.CHUNK_LOADING, "[ChunkLoadingManager] Chunk loader at " + pos + " in dimension " + world.provider.getDimensionId() + " is gone, no longer forcing its chunks");
+				removeLoader(pos);
+			}
+		}
+		unverified.clear();
+	}
+
+	private List<ChunkCoordIntPair> acquireChunks(List<ChunkCoordIntPair> area)
+	{
+		List<ChunkCoordIntPair> acquired = new ArrayList<ChunkCoordIntPair>(area.size());
+		for(ChunkCoordIntPair chunk : area)
+		{
+			if(acquireChunk(chunk))
+			{
+				acquired.add(chunk);
+			}
+		}
+
+		return acquired;
+	}
+
+	private Ticket getTicketWithRoom()
+	{
+		for(Ticket ticket : tickets)
+		{
+			if(ticket.getChunkList().size() < ticket.getChunkListDepth())
+			{
+				return ticket;
+			}
+		}
+
+		Ticket ticket = ForgeChunkManager.requestTicket(AdditionalPipes.instance, world, Type.NORMAL);
+		if(ticket != null)
+		{
+			tickets.add(ticket);
+		}
+
+		return ticket;
+	}
+
+	private void releaseEmptyTickets()
+	{
+		Iterator<Ticket> iterator = tickets.iterator();
+		boolean primary = true;
+		while(iterator.hasNext())
+		{
+			Ticket ticket = iterator.next();
+
+			//keep the ticket the loaders are saved in
+			if(ticket.getChunkList().isEmpty() && !(primary && !loaders.isEmpty()))
+			{
+				ForgeChunkManager.releaseTicket(ticket);
+				iterator.remove();
+			}
+			else
+			{
+				primary = false;
+			}
+		}
+	}
+
+	private void saveLoaders()
+	{
+		if(tickets.isEmpty())
+		{
+			if(loaders.isEmpty())
+			{
+				return;
+			}
+
+			Ticket ticket = ForgeChunkManager.requestTicket(AdditionalPipes.instance, world, Type.NORMAL);
+			if(ticket == null)
+			{
+				Log.warn(Category.CHUNK_LOADING, "[ChunkLoadingManager] Out of chunk loading tickets, chunk loaders will not be restored on load");
+				return;
+			}
+			tickets.add(ticket);
+		}
+
+		NBTTagList loaderList = new NBTTagList();
+		for(Map.Entry<BlockPos, List<ChunkCoordIntPair>> loader : loaders.entrySet())
+		{
+			NBTTagCompound loaderTag = new NBTTagCompound();
+			loaderTag.setInteger("x", loader.getKey().getX());
+			loaderTag.setInteger("y", loader.getKey().getY());
+			loaderTag.setInteger("z", loader.getKey().getZ());
+			loaderTag.setIntArray("chunks", writeChunks(loader.getValue()));
+			loaderList.appendTag(loaderTag);
+		}
+
+		tickets.get(0).getModData().setTag("loaders", loaderList);
+	}
+
+	private static int[] writeChunks(List<ChunkCoordIntPair> chunks)
+	{
+		int[] coords = new int[chunks.size() * 2];
+		for(int index = 0; index < chunks.size(); ++index)
+		{
+			coords[2 * index] = chunks.get(index).chunkXPos;
+			coords[2 * index + 1] = chunks.get(index).chunkZPos;
+		}
+
+		return coords;
+	}
+
+	private static List<ChunkCoordIntPair> readChunks(int[] coords)
+	{
+		List<ChunkCoordIntPair> chunks = new ArrayList<ChunkCoordIntPair>(coords.length / 2);
+		for(int index = 0; index + 1 < coords.length; index += 2)
+		{
+			chunks.add(new ChunkCoordIntPair(coords[index], coords[index + 1]));
+		}
+
+		return chunks;
+	}
+}
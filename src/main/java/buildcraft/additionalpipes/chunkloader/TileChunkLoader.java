@@ -1,28 +1,39 @@
 package buildcraft.additionalpipes.chunkloader;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.world.ChunkCoordIntPair;
-import net.minecraftforge.common.ForgeChunkManager;
-import net.minecraftforge.common.ForgeChunkManager.Ticket;
-import net.minecraftforge.common.ForgeChunkManager.Type;
-import buildcraft.additionalpipes.AdditionalPipes;
-import buildcraft.additionalpipes.utils.Log;
+import buildcraft.additionalpipes.metrics.APProfiler;
+import buildcraft.additionalpipes.metrics.APProfiler.Section;
 
 public class TileChunkLoader extends TileEntity {
 
-	private Ticket chunkTicket;
 	private int loadDistance = 1;
+	
+	// chunk offsets from the loader's own chunk, as x, z pairs
+	// null means a square of side 2 * loadDistance + 1
+	private int[] customArea;
 
 	public List<ChunkCoordIntPair> getLoadArea() {
-		List<ChunkCoordIntPair> loadArea = new LinkedList<ChunkCoordIntPair>();
+		int chunkX = pos.getX() >> 4, chunkZ = pos.getZ() >> 4;
+		
+		if(customArea != null) {
+			List<ChunkCoordIntPair> loadArea = new ArrayList<ChunkCoordIntPair>(customArea.length / 2);
+			for(int index = 0; index + 1 < customArea.length; index += 2) {
+				loadArea.add(new ChunkCoordIntPair(chunkX + customArea[index], chunkZ + customArea[index + 1]));
+			}
+			return loadArea;
+		}
+		
+		List<ChunkCoordIntPair> loadArea = new ArrayList<ChunkCoordIntPair>((2 * loadDistance + 1) * (2 * loadDistance + 1));
 
 		for(int x = -loadDistance; x < loadDistance + 1; x++) {
 			for(int z = -loadDistance; z < loadDistance + 1; z++) {
-				ChunkCoordIntPair chunkCoords = new ChunkCoordIntPair((pos.getX() >> 4) + x, (pos.getZ() >> 4) + z);
+				ChunkCoordIntPair chunkCoords = new ChunkCoordIntPair(chunkX + x, chunkZ + z);
 
 				loadArea.add(chunkCoords);
 			}
@@ -34,55 +45,81 @@ public class TileChunkLoader extends TileEntity {
 	@Override
 	public void validate() {
 		super.validate();
-		if(!worldObj.isRemote && chunkTicket == null) {
-			Ticket ticket = ForgeChunkManager.requestTicket(AdditionalPipes.instance, worldObj, Type.NORMAL);
-			if(ticket != null) {
-				forceChunkLoading(ticket);
-			}
+		if(!worldObj.isRemote) {
+			forceChunkLoading();
 		}
 	}
 
 	@Override
 	public void invalidate() {
 		super.invalidate();
-		stopChunkLoading();
+		if(!worldObj.isRemote) {
+			stopChunkLoading();
+		}
 	}
 
+	/**
+	 * Load a square of chunks around the loader.
+	 * @param dist
+	 */
 	public void setLoadDistance(int dist) {
 		loadDistance = dist;
-		forceChunkLoading(chunkTicket);
+		customArea = null;
+		markDirty();
+		forceChunkLoading();
 	}
-
-	public void forceChunkLoading(Ticket ticket) {
-		stopChunkLoading();
-		chunkTicket = ticket;
-		for(ChunkCoordIntPair coord : getLoadArea()) {
-			Log.info(String.format("Force loading chunk %s in %s", coord, worldObj.provider.getClass()));
-			ForgeChunkManager.forceChunk(chunkTicket, coord);
+	
+	/**
+	 * Load an arbitrary set of chunks, such as the ones along a pipe run.
+	 * @param chunks
+	 */
+	public void setLoadArea(Collection<ChunkCoordIntPair> chunks) {
+		int chunkX = pos.getX() >> 4, chunkZ = pos.getZ() >> 4;
+		customArea = new int[chunks.size() * 2];
+		int index = 0;
+		for(ChunkCoordIntPair chunk : chunks) {
+			customArea[index++] = chunk.chunkXPos - chunkX;
+			customArea[index++] = chunk.chunkZPos - chunkZ;
 		}
+		markDirty();
+		forceChunkLoading();
 	}
 
-	public void unforceChunkLoading() {
-		for(Object obj : chunkTicket.getChunkList()) {
-			ChunkCoordIntPair coord = (ChunkCoordIntPair) obj;
-			ForgeChunkManager.unforceChunk(chunkTicket, coord);
+	public void forceChunkLoading() {
+		if(worldObj != null && !isInvalid()) {
+			long start = APProfiler.start(this);
+			try {
+				ChunkLoadingManager.forWorld(worldObj).addLoader(pos, getLoadArea());
+			} finally {
+				APProfiler.end(Section.CHUNK_LOADER, start, this);
+			}
 		}
 	}
 
 	public void stopChunkLoading() {
-		if(chunkTicket != null) {
-			ForgeChunkManager.releaseTicket(chunkTicket);
-			chunkTicket = null;
+		long start = APProfiler.start(this);
+		try {
+			ChunkLoadingManager.forWorld(worldObj).removeLoader(pos);
+		} finally {
+			APProfiler.end(Section.CHUNK_LOADER, start, this);
 		}
 	}
 
 	@Override
 	public void readFromNBT(NBTTagCompound par1NBTTagCompound) {
 		super.readFromNBT(par1NBTTagCompound);
+		if(par1NBTTagCompound.hasKey("loadDistance")) {
+			loadDistance = par1NBTTagCompound.getInteger("loadDistance");
+		}
+		customArea = par1NBTTagCompound.hasKey("customArea") ? par1NBTTagCompound.getIntArray("customArea") : null;
 	}
 
 	@Override
 	public void writeToNBT(NBTTagCompound par1NBTTagCompound) {
 		super.writeToNBT(par1NBTTagCompound);
+		par1NBTTagCompound.setInteger("loadDistance", loadDistance);
+		if(customArea != null) {
+			par1NBTTagCompound.setIntArray("customArea", customArea);
+		}
 	}
 }
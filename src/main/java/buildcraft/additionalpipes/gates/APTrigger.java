@@ -26,12 +26,22 @@ public abstract class APTrigger implements IStatement {
      * @param id the name of the trigger, without the "additionalpipes:" prefix.  Also the name of the texture.
      */
 	public APTrigger(String idWithoutPrefix)
+	{
+		this(idWithoutPrefix, idWithoutPrefix);
+	}
+
+    /**
+     * 
+     * @param id the name of the trigger, without the "additionalpipes:" prefix.
+     * @param textureName the name of the texture in textures/items/triggers, for triggers that share one
+     */
+	public APTrigger(String idWithoutPrefix, String textureName)
 	{
 		descriptionKey = "trigger." + idWithoutPrefix;
 		
 		this.id = "additionalpipes:" + descriptionKey;
 		StatementManager.statements.put(this.id, this);
-		texture = new ResourceLocation(AdditionalPipes.MODID, "items/triggers/" + idWithoutPrefix);
+		texture = new ResourceLocation(AdditionalPipes.MODID, "items/triggers/" + textureName);
 		
         MinecraftForge.EVENT_BUS.register(this);		
 
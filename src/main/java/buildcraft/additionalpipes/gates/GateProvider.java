@@ -5,9 +5,11 @@ import java.util.LinkedList;
 
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.EnumFacing;
+import buildcraft.additionalpipes.APConfiguration;
 import buildcraft.additionalpipes.AdditionalPipes;
 import buildcraft.additionalpipes.pipes.PipeItemsClosed;
-import buildcraft.additionalpipes.pipes.PipeTeleport;
+import buildcraft.additionalpipes.pipes.PipeItemsTeleport;
+import buildcraft.additionalpipes.pipes.PipeLiquidsTeleport;
 import buildcraft.api.statements.IStatementContainer;
 import buildcraft.api.statements.ITriggerExternal;
 import buildcraft.api.statements.ITriggerInternal;
@@ -28,9 +30,12 @@ public class GateProvider implements ITriggerProvider {
 		{
 			list.add(AdditionalPipes.instance.triggerPipeClosed);
 		}
-		if(pipe instanceof PipeTeleport)
+		//the buffer is turned off when its size is 0, so these would never change
+		if((pipe instanceof PipeItemsTeleport || pipe instanceof PipeLiquidsTeleport) && APConfiguration.teleportReceiverBufferSize > 0)
 		{
-			
+			list.add(AdditionalPipes.instance.triggerTeleportBufferEmpty);
+			list.add(AdditionalPipes.instance.triggerTeleportBufferContains);
+			list.add(AdditionalPipes.instance.triggerTeleportBufferFull);
 		}
 		return list;
 	}
@@ -0,0 +1,90 @@
+package buildcraft.additionalpipes.gates;
+
+import buildcraft.additionalpipes.pipes.PipeTeleport;
+import buildcraft.api.statements.IStatement;
+import buildcraft.api.statements.IStatementContainer;
+import buildcraft.api.statements.IStatementParameter;
+import buildcraft.api.statements.ITriggerInternal;
+import buildcraft.transport.Pipe;
+import buildcraft.transport.TileGenericPipe;
+
+/**
+ * Trigger for how full a teleport receiver's buffer is.
+ */
+public class TriggerTeleportBuffer extends APTrigger implements ITriggerInternal {
+
+	public static enum Level
+	{
+		EMPTY("teleportBufferEmpty"),
+		CONTAINS("teleportBufferContains"),
+		FULL("teleportBufferFull");
+
+		public final String id;
+
+		private Level(String id)
+		{
+			this.id = id;
+		}
+	}
+
+	private final Level level;
+
+	public TriggerTeleportBuffer(Level level)
+	{
+		//uses the Closed Pipe trigger's icon, since both are about a pipe holding on to things
+		super(level.id, "pipeClosed");
+		this.level = level;
+	}
+
+	@Override
+	public boolean isTriggerActive(IStatementContainer statement, IStatementParameter[] parameters)
+	{
+		if(!(statement.getTile() instanceof TileGenericPipe))
+		{
+			return false;
+		}
+
+		Pipe<?> pipe = ((TileGenericPipe) statement.getTile()).pipe;
+		if(!(pipe instanceof PipeTeleport))
+		{
+			return false;
+		}
+
+		float fill = ((PipeTeleport<?>) pipe).getBufferFill();
+		switch(level)
+		{
+		case EMPTY:
+			return fill <= 0;
+		case CONTAINS:
+			return fill > 0;
+		case FULL:
+			return fill >= 1;
+		}
+		return false;
+	}
+
+	@Override
+	public int maxParameters() 
+	{
+		return 0;
+	}
+
+	@Override
+	public int minParameters() 
+	{
+		return 0;
+	}
+
+	@Override
+	public IStatementParameter createParameter(int index) 
+	{
+		return null;
+	}
+
+	@Override
+	public IStatement rotateLeft() 
+	{
+		return this;
+	}
+
+}
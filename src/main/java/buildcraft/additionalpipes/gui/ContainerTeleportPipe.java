@@ -1,35 +1,64 @@
 package buildcraft.additionalpipes.gui;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.inventory.ICrafting;
+import net.minecraft.util.BlockPos;
 import net.minecraftforge.fml.common.FMLCommonHandler;
 import net.minecraftforge.fml.relauncher.Side;
 import buildcraft.additionalpipes.network.PacketHandler;
 import buildcraft.additionalpipes.network.message.MessageTelePipeData;
+import buildcraft.additionalpipes.network.message.MessageTelePipeNetwork;
 import buildcraft.additionalpipes.pipes.PipeTeleport;
 import buildcraft.additionalpipes.pipes.TeleportManager;
-import buildcraft.additionalpipes.utils.Log;
 import buildcraft.core.lib.gui.BuildCraftContainer;
 
 public class ContainerTeleportPipe extends BuildCraftContainer {
 
-	public int connectedPipes = 0;
+	public static final int PAGE_SIZE = 3;
+
+	/**
+	 * One of the pipes shown on the network ledger.
+	 */
+	public static class NetworkEntry
+	{
+		public final BlockPos pos;
+		public final byte state;
+		public final String ownerName;
+
+		public NetworkEntry(BlockPos pos, byte state, String ownerName)
+		{
+			this.pos = pos;
+			this.state = state;
+			this.ownerName = ownerName == null ? "" : ownerName;
+		}
+
+		public boolean sameAs(NetworkEntry other)
+		{
+			return other != null && pos.equals(other.pos) && state == other.state && ownerName.equals(other.ownerName);
+		}
+	}
 
-	private int ticks = 0;
 	public PipeTeleport<?> pipe;
 	private int freq;
 	private byte state;
 	private boolean isPublic;
-	
-	//true if the provided pipe is sending items to other pipes
-	//and output locations should be shown on the ledger
-	private boolean isSendingPipe;
-	
-	// only set on the server side
-	private int originalfreq;
+	private boolean crossDimension;
+
+	// the page of the network the client is looking at, and what it has been sent of it
+	public int page = 0;
+	public int networkSize = 0;
+	public final NetworkEntry[] pageEntries = new NetworkEntry[PAGE_SIZE];
+
+	// what the network page was last built from, so it is only rebuilt when something changed
+	private int viewedGeneration;
+	private int viewedFrequency;
+	private byte viewedState;
+	private boolean viewedPublic;
+	private int viewedPage;
 
 	public ContainerTeleportPipe(EntityPlayer player, PipeTeleport<?> pipe)
 	{
@@ -39,27 +68,15 @@ public class ContainerTeleportPipe extends BuildCraftContainer {
 		//set these variables to invalid values so that they will be updated
 		state = -1;
 		isPublic = !pipe.isPublic;
+		crossDimension = !pipe.crossDimension;
 		freq = -1;
-		
-		isSendingPipe = pipe.canSend();
-		
+		viewedPage = -1;
+		networkSize = -1;
+
 		if(FMLCommonHandler.instance().getEffectiveSide() == Side.SERVER)
-		{			
-			List<PipeTeleport<?>> connectedPipes = TeleportManager.instance.<PipeTeleport<?>>getConnectedPipes(pipe, !isSendingPipe, isSendingPipe);
-			int[] locations = new int[connectedPipes.size() * 3];
-			for(int i = 0; i < connectedPipes.size() && i < 9; i++) {
-				PipeTeleport<?> connectedPipe = connectedPipes.get(i);
-				locations[3 * i] = connectedPipe.container.getPos().getX();
-				locations[3 * i + 1] = connectedPipe.container.getPos().getY();
-				locations[3 * i + 2] = connectedPipe.container.getPos().getZ();
-			}
-			
-			MessageTelePipeData message = new MessageTelePipeData(pipe.container.getPos(), locations, pipe.ownerUUID, pipe.ownerName);
+		{
+			MessageTelePipeData message = new MessageTelePipeData(pipe.container.getPos(), pipe.ownerUUID, pipe.ownerName);
 			PacketHandler.INSTANCE.sendTo(message, (EntityPlayerMP) player);
-			
-			//save the pipe's old frequency so it can be removed later
-			originalfreq = pipe.getFrequency();
-			
 		}
 	}
 
@@ -71,14 +88,6 @@ public class ContainerTeleportPipe extends BuildCraftContainer {
 	@Override
 	public void detectAndSendChanges() {
 		super.detectAndSendChanges();
-		int connectedPipesNew = connectedPipes;
-		if(ticks % 20 == 0) { // reduce lag
-			ticks = 0;
-			Log.debug("Old connected:" + connectedPipesNew);
-			connectedPipesNew = TeleportManager.instance.getConnectedPipes(pipe, !isSendingPipe, isSendingPipe).size();
-			Log.debug("New connected:" + connectedPipesNew);
-		}
-		ticks++;
 		for(Object crafter : crafters) {
 			if(freq != pipe.getFrequency()) {
 				((ICrafting) crafter).sendProgressBarUpdate(this, 0, pipe.getFrequency());
@@ -86,17 +95,89 @@ public class ContainerTeleportPipe extends BuildCraftContainer {
 			if(state != pipe.state) {
 				((ICrafting) crafter).sendProgressBarUpdate(this, 1, pipe.state);
 			}
-			if(connectedPipesNew != connectedPipes) {
-				((ICrafting) crafter).sendProgressBarUpdate(this, 2, connectedPipesNew);
-			}
 			if(isPublic != pipe.isPublic) {
 				((ICrafting) crafter).sendProgressBarUpdate(this, 3, pipe.isPublic ? 1 : 0);
 			}
+			if(crossDimension != pipe.crossDimension) {
+				((ICrafting) crafter).sendProgressBarUpdate(this, 4, pipe.crossDimension ? 1 : 0);
+			}
 		}
 		state = pipe.state;
 		freq = pipe.getFrequency();
 		isPublic = pipe.isPublic;
-		connectedPipes = connectedPipesNew;
+		crossDimension = pipe.crossDimension;
+
+		// costs one map lookup a tick while nothing changes
+		int generation = TeleportManager.instance.getChannelGeneration(pipe.getType(), pipe.getFrequency());
+		if(generation != viewedGeneration || viewedFrequency != pipe.getFrequency() || viewedState != pipe.state
+				|| viewedPublic != pipe.isPublic || viewedPage != page)
+		{
+			viewedGeneration = generation;
+			viewedFrequency = pipe.getFrequency();
+			viewedState = pipe.state;
+			viewedPublic = pipe.isPublic;
+			sendNetworkPage();
+		}
+	}
+
+	/**
+	 * Sends the entries of the current page that the client does not have yet.
+	 */
+	private void sendNetworkPage()
+	{
+		boolean isSendingPipe = pipe.canSend();
+		List<PipeTeleport<?>> connectedPipes = TeleportManager.instance.<PipeTeleport<?>>getConnectedPipes(pipe, !isSendingPipe, isSendingPipe);
+
+		int lastPage = Math.max(0, (connectedPipes.size() - 1) / PAGE_SIZE);
+		page = Math.max(0, Math.min(page, lastPage));
+
+		List<Integer> changedSlots = new ArrayList<Integer>();
+		for(int slot = 0; slot < PAGE_SIZE; ++slot)
+		{
+			int index = page * PAGE_SIZE + slot;
+			NetworkEntry entry = null;
+			if(index < connectedPipes.size())
+			{
+				PipeTeleport<?> connectedPipe = connectedPipes.get(index);
+				entry = new NetworkEntry(connectedPipe.getPosition(), connectedPipe.state, connectedPipe.ownerName);
+			}
+
+			if(entry == null ? pageEntries[slot] != null : !entry.sameAs(pageEntries[slot]))
+			{
+				pageEntries[slot] = entry;
+				changedSlots.add(slot);
+			}
+		}
+
+		if(changedSlots.isEmpty() && networkSize == connectedPipes.size() && viewedPage == page)
+		{
+			return;
+		}
+
+		networkSize = connectedPipes.size();
+		viewedPage = page;
+
+		MessageTelePipeNetwork message = new MessageTelePipeNetwork(windowId, networkSize, page, changedSlots, pageEntries);
+		for(Object crafter : crafters)
+		{
+			if(crafter instanceof EntityPlayerMP)
+			{
+				PacketHandler.INSTANCE.sendTo(message, (EntityPlayerMP) crafter);
+			}
+		}
+	}
+
+	/**
+	 * Called on the client with the changes sent by sendNetworkPage()
+	 */
+	public void receiveNetworkPage(int size, int newPage, int[] slots, NetworkEntry[] entries)
+	{
+		networkSize = size;
+		page = newPage;
+		for(int index = 0; index < slots.length; ++index)
+		{
+			pageEntries[slots[index]] = entries[index];
+		}
 	}
 
 	@Override
@@ -108,29 +189,12 @@ public class ContainerTeleportPipe extends BuildCraftContainer {
 		case 1:
 			pipe.state = (byte) j;
 			break;
-		case 2:
-			connectedPipes = j;
-			break;
 		case 3:
 			pipe.isPublic = (j == 1);
 			break;
-		}
-	}
-	
-	@Override
-	public void onContainerClosed(EntityPlayer player)
-	{
-		super.onContainerClosed(player);
-		if(FMLCommonHandler.instance().getEffectiveSide() == Side.SERVER)
-		{
-			if(originalfreq != freq)
-			{
-				//remove the pipe from the old frequency
-				TeleportManager.instance.remove(pipe, originalfreq);
-				//re-add the pipe to the new frequency
-				TeleportManager.instance.add(pipe, freq);
-			}
-
+		case 4:
+			pipe.crossDimension = (j == 1);
+			break;
 		}
 	}
 
@@ -9,6 +9,7 @@ import buildcraft.additionalpipes.pipes.PipeItemsJeweled;
 import buildcraft.additionalpipes.pipes.PipeTeleport;
 import buildcraft.additionalpipes.pipes.PipeTransportAdvancedWood;
 import buildcraft.additionalpipes.utils.Log;
+import buildcraft.additionalpipes.utils.Log.Category;
 import buildcraft.transport.TileGenericPipe;
 
 public class GuiHandler implements IGuiHandler {
@@ -28,7 +29,7 @@ public class GuiHandler implements IGuiHandler {
 			return null;
 		}
 		
-		Log.debug("Opening Container " + ID + " on the server");
+		Log.debug(Category.GUI, "Opening Container %d on the server", ID);
 		
 		switch(ID) {
 		case PIPE_TP:
@@ -55,7 +56,7 @@ public class GuiHandler implements IGuiHandler {
 			return null;
 		}
 		
-		Log.debug("Opening GUI " + ID + " on the client");
+		Log.debug(Category.GUI, "Opening GUI %d on the client", ID);
 		
 		switch(ID)
 		{
@@ -19,6 +19,7 @@ import buildcraft.additionalpipes.pipes.PipeItemsJeweled;
 import buildcraft.additionalpipes.pipes.SideFilterData;
 import buildcraft.additionalpipes.textures.Textures;
 import buildcraft.additionalpipes.utils.Log;
+import buildcraft.additionalpipes.utils.Log.Category;
 
 @SideOnly(Side.CLIENT)
 public class GuiJeweledPipe extends GuiContainer
@@ -202,7 +203,7 @@ public class GuiJeweledPipe extends GuiContainer
 		}
 		else
 		{
-			Log.error("...What?  Got an unknown button index in GuiJeweledPipe.actionPerfomed()");
+			Log.error(Category.GUI, "...What?  Got an unknown button index in GuiJeweledPipe.actionPerfomed()");
 			return;
 		}
 		((GuiButtonOnOff)button).togglePressed();
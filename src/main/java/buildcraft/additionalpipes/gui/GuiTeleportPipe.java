@@ -9,6 +9,7 @@ import net.minecraftforge.fml.relauncher.SideOnly;
 import org.lwjgl.opengl.GL11;
 
 import buildcraft.additionalpipes.network.PacketHandler;
+import buildcraft.additionalpipes.network.message.MessageTelePipePage;
 import buildcraft.additionalpipes.network.message.MessageTelePipeUpdate;
 import buildcraft.additionalpipes.pipes.PipeTeleport;
 import buildcraft.additionalpipes.textures.Textures;
@@ -29,7 +30,7 @@ public class GuiTeleportPipe extends GuiBuildCraft {
 		
 		public TeleportPipeLedger() {
 			super(GuiTeleportPipe.this);
-			maxHeight = 99;
+			maxHeight = 120;
 			overlayColor = 0xd46c1f;
 		}
 
@@ -52,20 +53,49 @@ public class GuiTeleportPipe extends GuiBuildCraft {
 				return;
 
 			fontRendererObj.drawString("Teleport Pipe", x + 22, y + 8, headerColour);
-			fontRendererObj.drawString("Owner:", x + 22, y + 20, subheaderColour);
-			fontRendererObj.drawString(pipe.ownerName, x + 22, y + 32, textColour);
-			fontRendererObj.drawStringWithShadow(networkTitle, x + 22, y + 44, subheaderColour);
-			fontRendererObj.drawString(String.valueOf(container.connectedPipes), x + 66, y + 45, textColour);
-			int[] net = pipe.network;
-			if(net.length > 0) {
-				fontRendererObj.drawString(new StringBuilder("(").append(net[0]).append(", ").append(net[1]).append(", ").append(net[2]).append(")").toString(), x + 22, y + 56, textColour);
+			fontRendererObj.drawString("Owner: " + pipe.ownerName, x + 22, y + 20, subheaderColour);
+			fontRendererObj.drawStringWithShadow(networkTitle, x + 22, y + 32, subheaderColour);
+			fontRendererObj.drawString(String.valueOf(Math.max(0, container.networkSize)), x + 66, y + 33, textColour);
+			
+			for(int slot = 0; slot < ContainerTeleportPipe.PAGE_SIZE; ++slot)
+			{
+				ContainerTeleportPipe.NetworkEntry entry = container.pageEntries[slot];
+				if(entry != null)
+				{
+					fontRendererObj.drawString(new StringBuilder("(").append(entry.pos.getX()).append(", ").append(entry.pos.getY()).append(", ").append(entry.pos.getZ()).append(")").toString(), x + 22, y + 44 + slot * 20, textColour);
+					fontRendererObj.drawString(entry.ownerName + " " + getStateName(entry.state), x + 22, y + 54 + slot * 20, subheaderColour);
+				}
+			}
+			
+			if(getPageCount() > 1)
+			{
+				fontRendererObj.drawString("<  " + (container.page + 1) + " / " + getPageCount() + "  >", x + 22, y + 106, headerColour);
 			}
-			if(net.length > 3) {
-				fontRendererObj.drawString(new StringBuilder("(").append(net[3]).append(", ").append(net[4]).append(", ").append(net[5]).append(")").toString(), x + 22, y + 68, textColour);
+		}
+		
+		@Override
+		public boolean handleMouseClicked(int x, int y, int mouseButton)
+		{
+			// the page arrows are on the bottom line of the ledger
+			if(!isFullyOpened() || getPageCount() <= 1 || y - currentShiftY < 104 || y - currentShiftY > 116)
+			{
+				return false;
 			}
-			if(net.length > 6) {
-				fontRendererObj.drawString(new StringBuilder("(").append(net[6]).append(", ").append(net[7]).append(", ").append(net[8]).append(")").toString(), x + 22, y + 80, textColour);
+			
+			int step = isShiftKeyDown() ? 10 : 1;
+			int newPage = x - currentShiftX < maxWidth / 2 ? container.page - step : container.page + step;
+			newPage = Math.max(0, Math.min(newPage, getPageCount() - 1));
+			if(newPage != container.page)
+			{
+				PacketHandler.INSTANCE.sendToServer(new MessageTelePipePage(container.windowId, newPage));
 			}
+			
+			return true;
+		}
+		
+		private int getPageCount()
+		{
+			return (Math.max(0, container.networkSize) + ContainerTeleportPipe.PAGE_SIZE - 1) / ContainerTeleportPipe.PAGE_SIZE;
 		}
 
 		@Override
@@ -76,7 +106,7 @@ public class GuiTeleportPipe extends GuiBuildCraft {
 
 	private final PipeTeleport<?> pipe;
 	private final ContainerTeleportPipe container;
-	private final GuiButton[] buttons = new GuiButton[8];
+	private final GuiButton[] buttons = new GuiButton[9];
 
 	public GuiTeleportPipe(EntityPlayer player, PipeTeleport<?> pipe) {
 		super(new ContainerTeleportPipe(player, pipe), null, Textures.GUI_TELEPORT);
@@ -98,8 +128,9 @@ public class GuiTeleportPipe extends GuiBuildCraft {
 		buttonList.add(buttons[4] = new GuiButton(5, x + 12 + bw * 4 / 6, y + 32, bw / 6, 20, "+10"));
 		buttonList.add(buttons[5] = new GuiButton(6, x + 12 + bw * 5 / 6, y + 32, bw / 6, 20, "+100"));
 
-		buttonList.add(buttons[6] = new GuiButton(7, x + 12, y + 10, bw / 2, 20, "Send Only"));
-		buttonList.add(buttons[7] = new GuiButton(8, x + 12 + bw * 3 / 6, y + 10, bw / 2, 20, "Private"));
+		buttonList.add(buttons[6] = new GuiButton(7, x + 12, y + 10, bw * 2 / 5, 20, "Send Only"));
+		buttonList.add(buttons[7] = new GuiButton(8, x + 12 + bw * 2 / 5, y + 10, bw * 3 / 10, 20, "Private"));
+		buttonList.add(buttons[8] = new GuiButton(9, x + 12 + bw * 7 / 10, y + 10, bw * 3 / 10, 20, "This Dim"));
 	}
 
 	@Override
@@ -129,6 +160,11 @@ public class GuiTeleportPipe extends GuiBuildCraft {
 		} else {
 			buttons[7].displayString = "Private";
 		}
+		if(pipe.crossDimension) {
+			buttons[8].displayString = "Any Dim";
+		} else {
+			buttons[8].displayString = "This Dim";
+		}
 	}
 
 	@Override
@@ -136,6 +172,7 @@ public class GuiTeleportPipe extends GuiBuildCraft {
 		int freq = pipe.getFrequency();
 		byte state = pipe.state;
 		boolean isPublic = pipe.isPublic;
+		boolean crossDimension = pipe.crossDimension;
 		switch(guibutton.id) {
 		case 1:
 			freq -= 100;
@@ -161,15 +198,33 @@ public class GuiTeleportPipe extends GuiBuildCraft {
 		case 8:
 			isPublic = !isPublic;
 			break;
+		case 9:
+			crossDimension = !crossDimension;
+			break;
 		}
 		if(freq < 0) {
 			freq = 0;
 		}
 
-		MessageTelePipeUpdate packet = new MessageTelePipeUpdate(pipe.container.getPos(), freq, isPublic, state);
+		MessageTelePipeUpdate packet = new MessageTelePipeUpdate(pipe.container.getPos(), freq, isPublic, state, crossDimension);
 		PacketHandler.INSTANCE.sendToServer(packet);
 	}
 
+	private static String getStateName(byte state)
+	{
+		switch(state)
+		{
+		case 3:
+			return "(both)";
+		case 2:
+			return "(receive)";
+		case 1:
+			return "(send)";
+		default:
+			return "(disabled)";
+		}
+	}
+
 	@Override
 	protected void initLedgers(IInventory inventory) {
 		super.initLedgers(inventory);
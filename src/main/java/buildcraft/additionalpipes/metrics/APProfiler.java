@@ -0,0 +1,435 @@
+package buildcraft.additionalpipes.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.BlockPos;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent.Phase;
+import net.minecraftforge.fml.common.gameevent.TickEvent.ServerTickEvent;
+
+/**
+ * Always-on timer for the parts of Additional Pipes that run every tick on the server.
+ *
+ * Each timed call costs two System.nanoTime() calls and a few array writes.  For every section it keeps a
+ * histogram of call times in power of two buckets, and the total time spent at each position so the worst
+ * pipes can be listed.  Only the server thread records anything, so nothing here is synchronized.
+ */
+public class APProfiler
+{
+	public static final APProfiler instance = new APProfiler();
+
+	public static enum Section
+	{
+		ITEM_TELEPORT("Item teleport"),
+		FLUID_TELEPORT("Fluid teleport"),
+		POWER_TELEPORT_RECEIVE("Power teleport send"),
+		POWER_TELEPORT_REQUEST("Power teleport request"),
+		OBSIDIAN_PIPE("Obsidian pipe"),
+		OBSIDIAN_SCAN("Obsidian pipe item scan"),
+		GRAVITY_FEED("Gravity feed pull"),
+		ADVANCED_WOOD("Advanced wood pull"),
+		REGISTRY_SWEEP("Teleport registry sweep"),
+		ROUTING("Item routing"),
+		CHUNK_LOADER("Chunk loader");
+
+		public final String displayName;
+
+		private Section(String displayName)
+		{
+			this.displayName = displayName;
+		}
+	}
+
+	/**
+	 * Returned by start() for calls that are not timed.
+	 */
+	public static final long NOT_TIMED = Long.MIN_VALUE;
+
+	//bucket n holds calls that took between 2^n and 2^(n+1) nanoseconds
+	private static final int HISTOGRAM_BUCKETS = 40;
+
+	//positions tracked per section.  When the table is full, the half that used the least time per tick is dropped.
+	private static final int POSITION_CAPACITY = 1024;
+
+	private static class SectionData
+	{
+		long calls;
+		long totalNanos;
+		long maxNanos;
+		final long[] histogram = new long[HISTOGRAM_BUCKETS];
+		final PositionTotals positions = new PositionTotals();
+	}
+
+	/**
+	 * Open addressing table from position and dimension to time spent there, so recording doesn't allocate.
+	 *
+	 * Each position remembers the tick it was first recorded in.  Positions are compared by time per tick since then,
+	 * so one that only started using time lately, like a pipe that was just placed, can still push out the ones that
+	 * were recorded first.
+	 */
+	private static class PositionTotals
+	{
+		final long[] positions = new long[POSITION_CAPACITY * 2];
+		final int[] dimensions = new int[POSITION_CAPACITY * 2];
+		final long[] nanos = new long[POSITION_CAPACITY * 2];
+		final long[] calls = new long[POSITION_CAPACITY * 2];
+		final long[] firstTicks = new long[POSITION_CAPACITY * 2];
+		final boolean[] used = new boolean[POSITION_CAPACITY * 2];
+		int size;
+
+		// scratch space for evict()
+		final double[] rates = new double[POSITION_CAPACITY];
+		final int[] kept = new int[POSITION_CAPACITY];
+		final long[] keptPositions = new long[POSITION_CAPACITY];
+		final int[] keptDimensions = new int[POSITION_CAPACITY];
+		final long[] keptNanos = new long[POSITION_CAPACITY];
+		final long[] keptCalls = new long[POSITION_CAPACITY];
+		final long[] keptFirstTicks = new long[POSITION_CAPACITY];
+
+		void add(long position, int dimension, long elapsed, long tick)
+		{
+			int index = find(position, dimension);
+			if(used[index])
+			{
+				nanos[index] += elapsed;
+				++calls[index];
+				return;
+			}
+
+			if(size >= POSITION_CAPACITY)
+			{
+				evict(tick);
+				index = find(position, dimension);
+			}
+
+			used[index] = true;
+			positions[index] = position;
+			dimensions[index] = dimension;
+			nanos[index] = elapsed;
+			calls[index] = 1;
+			firstTicks[index] = tick;
+			++size;
+		}
+
+		// returns the slot holding the position, or the empty slot it would go in
+		private int find(long position, int dimension)
+		{
+			int mask = positions.length - 1;
+			int index = (int) ((position ^ (position >>> 29) ^ dimension * 0x9E3779B9L) & mask);
+			while(used[index] && (positions[index] != position || dimensions[index] != dimension))
+			{
+				index = (index + 1) & mask;
+			}
+			return index;
+		}
+
+		static double getRate(long nanos, long firstTick, long tick)
+		{
+			return nanos / (double) Math.max(1, tick - firstTick + 1);
+		}
+
+		/**
+		 * Drop the half of the positions that used the least time per tick, so new positions can be recorded.
+		 * Happens at most once every POSITION_CAPACITY / 2 new positions.
+		 */
+		private void evict(long tick)
+		{
+			int count = 0;
+			for(int index = 0; index < used.length; ++index)
+			{
+				if(used[index])
+				{
+					rates[count++] = getRate(nanos[index], firstTicks[index], tick);
+				}
+			}
+			Arrays.sort(rates, 0, count);
+			double threshold = rates[count / 2];
+
+			//keep the ones above the median, then ones equal to it until half are kept
+			int keptCount = 0;
+			for(int index = 0; index < used.length; ++index)
+			{
+				if(used[index] && getRate(nanos[index], firstTicks[index], tick) > threshold)
+				{
+					kept[keptCount++] = index;
+				}
+			}
+			for(int index = 0; index < used.length && keptCount < count / 2; ++index)
+			{
+				if(used[index] && getRate(nanos[index], firstTicks[index], tick) == threshold)
+				{
+					kept[keptCount++] = index;
+				}
+			}
+
+			for(int keptIndex = 0; keptIndex < keptCount; ++keptIndex)
+			{
+				int index = kept[keptIndex];
+				keptPositions[keptIndex] = positions[index];
+				keptDimensions[keptIndex] = dimensions[index];
+				keptNanos[keptIndex] = nanos[index];
+				keptCalls[keptIndex] = calls[index];
+				keptFirstTicks[keptIndex] = firstTicks[index];
+			}
+
+			//put the survivors back, since open addressing can't just have holes punched in it
+			clear();
+			for(int keptIndex = 0; keptIndex < keptCount; ++keptIndex)
+			{
+				int index = find(keptPositions[keptIndex], keptDimensions[keptIndex]);
+				used[index] = true;
+				positions[index] = keptPositions[keptIndex];
+				dimensions[index] = keptDimensions[keptIndex];
+				nanos[index] = keptNanos[keptIndex];
+				calls[index] = keptCalls[keptIndex];
+				firstTicks[index] = keptFirstTicks[keptIndex];
+			}
+			size = keptCount;
+		}
+
+		void clear()
+		{
+			Arrays.fill(used, false);
+			size = 0;
+		}
+	}
+
+	/**
+	 * Total time spent at one position, for reports.
+	 */
+	public static class PositionReport
+	{
+		public final BlockPos pos;
+		public final int dimension;
+		public final long nanos;
+		public final long calls;
+
+		// how many ticks the position has been recorded for, at least 1
+		public final long ticks;
+
+		PositionReport(BlockPos pos, int dimension, long nanos, long calls, long ticks)
+		{
+			this.pos = pos;
+			this.dimension = dimension;
+			this.nanos = nanos;
+			this.calls = calls;
+			this.ticks = ticks;
+		}
+
+		public double getNanosPerTick()
+		{
+			return nanos / (double) ticks;
+		}
+	}
+
+	private final SectionData[] sections;
+
+	//nesting depth of timed calls, so time spent in a call made by another timed call is only added to the tick once
+	private int depth;
+
+	private long currentTickNanos;
+	private long lastTickNanos;
+	private long ticks;
+
+	private APProfiler()
+	{
+		sections = new SectionData[Section.values().length];
+		for(int index = 0; index < sections.length; ++index)
+		{
+			sections[index] = new SectionData();
+		}
+	}
+
+	/**
+	 * Start timing a call.  Pass the result to end() when the call finishes, even if it threw.
+	 * @param tile the tile the work is done for
+	 * @return
+	 */
+	public static long start(TileEntity tile)
+	{
+		if(tile.getWorld() == null || tile.getWorld().isRemote)
+		{
+			return NOT_TIMED;
+		}
+
+		++instance.depth;
+		return System.nanoTime();
+	}
+
+	public static void end(Section section, long start, TileEntity tile)
+	{
+		if(start == NOT_TIMED)
+		{
+			return;
+		}
+
+		long elapsed = System.nanoTime() - start;
+		instance.record(section, elapsed, tile.getPos(), tile.getWorld().provider.getDimensionId());
+	}
+
+	/**
+	 * Start timing a call that isn't for a tile.  Only call this on the server thread.
+	 * @return
+	 */
+	public static long start()
+	{
+		++instance.depth;
+		return System.nanoTime();
+	}
+
+	public static void end(Section section, long start)
+	{
+		instance.record(section, System.nanoTime() - start, null, 0);
+	}
+
+	private void record(Section section, long elapsed, BlockPos pos, int dimension)
+	{
+		if(--depth == 0)
+		{
+			currentTickNanos += elapsed;
+		}
+
+		SectionData data = sections[section.ordinal()];
+		++data.calls;
+		data.totalNanos += elapsed;
+		if(elapsed > data.maxNanos)
+		{
+			data.maxNanos = elapsed;
+		}
+
+		int bucket = 63 - Long.numberOfLeadingZeros(Math.max(1, elapsed));
+		++data.histogram[Math.min(bucket, HISTOGRAM_BUCKETS - 1)];
+
+		if(pos != null)
+		{
+			data.positions.add(pos.toLong(), dimension, elapsed, ticks);
+		}
+	}
+
+	@SubscribeEvent
+	public void onServerTick(ServerTickEvent event)
+	{
+		if(event.phase == Phase.END)
+		{
+			lastTickNanos = currentTickNanos;
+			currentTickNanos = 0;
+			++ticks;
+		}
+	}
+
+	/**
+	 * @return how long timed calls took so far this tick
+	 */
+	public long getCurrentTickNanos()
+	{
+		return currentTickNanos;
+	}
+
+	/**
+	 * @return how long timed calls took during the last complete server tick
+	 */
+	public long getLastTickNanos()
+	{
+		return lastTickNanos;
+	}
+
+	public long getTicks()
+	{
+		return ticks;
+	}
+
+	public long getCalls(Section section)
+	{
+		return sections[section.ordinal()].calls;
+	}
+
+	public long getTotalNanos(Section section)
+	{
+		return sections[section.ordinal()].totalNanos;
+	}
+
+	public long getMaxNanos(Section section)
+	{
+		return sections[section.ordinal()].maxNanos;
+	}
+
+	/**
+	 * Estimate a percentile from the histogram.
+	 * @param section
+	 * @param fraction between 0 and 1
+	 * @return the upper bound of the bucket the percentile falls in, in nanoseconds
+	 */
+	public long getPercentileNanos(Section section, double fraction)
+	{
+		SectionData data = sections[section.ordinal()];
+		long target = (long) Math.ceil(data.calls * fraction);
+		long seen = 0;
+		for(int bucket = 0; bucket < HISTOGRAM_BUCKETS; ++bucket)
+		{
+			seen += data.histogram[bucket];
+			if(seen >= target && seen > 0)
+			{
+				return Math.min(2L << bucket, data.maxNanos);
+			}
+		}
+
+		return data.maxNanos;
+	}
+
+	/**
+	 * Get the positions that took the most time per tick in a section, so ones recorded since the last reset aren't
+	 * ranked above busier ones that were recorded later.
+	 * @param section
+	 * @param count how many positions to return at most
+	 * @return the positions, slowest first
+	 */
+	public List<PositionReport> getTopPositions(Section section, int count)
+	{
+		PositionTotals totals = sections[section.ordinal()].positions;
+		List<PositionReport> top = new ArrayList<PositionReport>(count + 1);
+
+		for(int index = 0; index < totals.used.length; ++index)
+		{
+			if(!totals.used[index])
+			{
+				continue;
+			}
+
+			//insertion into a short sorted list
+			double rate = PositionTotals.getRate(totals.nanos[index], totals.firstTicks[index], ticks);
+			int insertAt = top.size();
+			while(insertAt > 0 && top.get(insertAt - 1).getNanosPerTick() < rate)
+			{
+				--insertAt;
+			}
+
+			if(insertAt < count)
+			{
+				top.add(insertAt, new PositionReport(BlockPos.fromLong(totals.positions[index]), totals.dimensions[index], totals.nanos[index], totals.calls[index],
+						Math.max(1, ticks - totals.firstTicks[index] + 1)));
+				if(top.size() > count)
+				{
+					top.remove(count);
+				}
+			}
+		}
+
+		return top;
+	}
+
+	public void reset()
+	{
+		for(SectionData data : sections)
+		{
+			data.calls = 0;
+			data.totalNanos = 0;
+			data.maxNanos = 0;
+			Arrays.fill(data.histogram, 0);
+			data.positions.clear();
+		}
+		ticks = 0;
+	}
+}
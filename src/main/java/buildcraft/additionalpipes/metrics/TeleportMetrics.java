@@ -0,0 +1,279 @@
+package buildcraft.additionalpipes.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import net.minecraft.world.World;
+import net.minecraftforge.common.DimensionManager;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent.Phase;
+import net.minecraftforge.fml.common.gameevent.TickEvent.ServerTickEvent;
+import buildcraft.additionalpipes.APConfiguration;
+import buildcraft.additionalpipes.api.PipeType;
+import buildcraft.additionalpipes.pipes.TeleportManager;
+import buildcraft.additionalpipes.utils.Log;
+import buildcraft.additionalpipes.utils.Log.Category;
+
+/**
+ * Counts what the teleport pipes of each channel move, and how often a send found nowhere to go.
+ *
+ * Counters are lock-free so they can be read from the command or the exporter while pipes update them.
+ * Rates are kept in a ring of one second buckets covering the last five minutes.
+ * If teleportMetricsExportSeconds is set, the counters are also written to the world folder that often.
+ */
+public class TeleportMetrics
+{
+	public static enum Counter
+	{
+		ITEMS("items", "Items teleported"),
+		FLUID("millibuckets", "Millibuckets of fluid teleported"),
+		ENERGY("rf", "RF teleported"),
+		FAILED_SENDS("failed_sends", "Sends that found no receiver to accept them");
+
+		public final String metricName;
+		public final String help;
+
+		private Counter(String metricName, String help)
+		{
+			this.metricName = metricName;
+			this.help = help;
+		}
+	}
+
+	public static final int ONE_MINUTE = 60;
+	public static final int FIVE_MINUTES = 300;
+
+	public static final String FILE_NAME = "additionalpipes-teleport.prom";
+
+	private static final int COUNTERS = Counter.values().length;
+
+	/**
+	 * Counters for one channel.
+	 */
+	public static class ChannelCounters
+	{
+		public final PipeType type;
+		public final int frequency;
+
+		private final AtomicLongArray totals = new AtomicLongArray(COUNTERS);
+
+		//second each bucket currently holds, and its counts
+		private final AtomicLongArray bucketSeconds = new AtomicLongArray(FIVE_MINUTES);
+		private final AtomicLongArray buckets = new AtomicLongArray(FIVE_MINUTES * COUNTERS);
+
+		ChannelCounters(PipeType type, int frequency)
+		{
+			this.type = type;
+			this.frequency = frequency;
+		}
+
+		/**
+		 * Count something in this channel.  Pipes can keep the counters of their channel to skip the lookup in TeleportMetrics.add().
+		 * @param counter
+		 * @param amount
+		 */
+		public void add(Counter counter, long amount)
+		{
+			add(counter, amount, currentSecond());
+		}
+
+		void add(Counter counter, long amount, long second)
+		{
+			int bucket = (int) (second % FIVE_MINUTES);
+			long bucketSecond = bucketSeconds.get(bucket);
+			if(bucketSecond != second && bucketSeconds.compareAndSet(bucket, bucketSecond, second))
+			{
+				//whoever moves the bucket to the new second clears it.  An add racing with this may be lost, which is fine for a rate.
+				for(int index = 0; index < COUNTERS; ++index)
+				{
+					buckets.set(bucket * COUNTERS + index, 0);
+				}
+			}
+
+			buckets.addAndGet(bucket * COUNTERS + counter.ordinal(), amount);
+			totals.addAndGet(counter.ordinal(), amount);
+		}
+
+		public long getTotal(Counter counter)
+		{
+			return totals.get(counter.ordinal());
+		}
+
+		/**
+		 * Get the average per second over the last few seconds, not counting the current second.
+		 * @param counter
+		 * @param seconds at most FIVE_MINUTES
+		 * @return
+		 */
+		public double getRate(Counter counter, int seconds)
+		{
+			long now = currentSecond();
+			long sum = 0;
+			for(long second = now - seconds; second < now; ++second)
+			{
+				int bucket = (int) (second % FIVE_MINUTES);
+				if(bucketSeconds.get(bucket) == second)
+				{
+					sum += buckets.get(bucket * COUNTERS + counter.ordinal());
+				}
+			}
+
+			return sum / (double) seconds;
+		}
+
+		void clear()
+		{
+			for(int index = 0; index < COUNTERS; ++index)
+			{
+				totals.set(index, 0);
+			}
+			for(int bucket = 0; bucket < FIVE_MINUTES; ++bucket)
+			{
+				bucketSeconds.set(bucket, 0);
+			}
+		}
+	}
+
+	private final ConcurrentMap<Long, ChannelCounters> channels = new ConcurrentHashMap<Long, ChannelCounters>();
+
+	private int ticksSinceExport = 0;
+
+	public void add(PipeType type, int frequency, Counter counter, long amount)
+	{
+		getChannel(type, frequency).add(counter, amount, currentSecond());
+	}
+
+	public ChannelCounters getChannel(PipeType type, int frequency)
+	{
+		long key = TeleportManager.getChannelKey(type, frequency);
+		ChannelCounters counters = channels.get(key);
+		if(counters == null)
+		{
+			counters = new ChannelCounters(type, frequency);
+			ChannelCounters existing = channels.putIfAbsent(key, counters);
+			if(existing != null)
+			{
+				counters = existing;
+			}
+		}
+
+		return counters;
+	}
+
+	public Iterable<ChannelCounters> getChannels()
+	{
+		return channels.values();
+	}
+
+	/**
+	 * Zero every channel's counters.  The channels are kept, since pipes may hold on to their counters.
+	 */
+	public void reset()
+	{
+		for(ChannelCounters counters : channels.values())
+		{
+			counters.clear();
+		}
+	}
+
+	@SubscribeEvent
+	public void onServerTick(ServerTickEvent event)
+	{
+		if(event.phase != Phase.END || APConfiguration.teleportMetricsExportSeconds <= 0)
+		{
+			return;
+		}
+
+		if(++ticksSinceExport >= APConfiguration.teleportMetricsExportSeconds * 20)
+		{
+			ticksSinceExport = 0;
+			File file = getExportFile();
+			if(file != null)
+			{
+				writePrometheus(file);
+			}
+		}
+	}
+
+	/**
+	 * @return the file in the world folder the metrics are exported to, or null if no world is loaded
+	 */
+	public static File getExportFile()
+	{
+		World overworld = DimensionManager.getWorld(0);
+		return overworld == null ? null : new File(TeleportManager.instance.getWorldSave(overworld), FILE_NAME);
+	}
+
+	/**
+	 * Write every channel's counters to a file in the Prometheus text format.
+	 * The file is written next to it and renamed, so a scraper never sees half of it.
+	 * @param file
+	 */
+	public void writePrometheus(File file)
+	{
+		File tempFile = new File(file.getPath() + ".tmp");
+		PrintWriter writer = null;
+		try
+		{
+			writer = new PrintWriter(tempFile, "UTF-8");
+			for(Counter counter : Counter.values())
+			{
+				String name = "additionalpipes_teleport_" + counter.metricName;
+
+				writer.println("# HELP " + name + "_total " + counter.help + ".");
+				writer.println("# TYPE " + name + "_total counter");
+				for(ChannelCounters channel : channels.values())
+				{
+					writer.println(name + "_total" + getLabels(channel, null) + " " + channel.getTotal(counter));
+				}
+
+				writer.println("# HELP " + name + "_per_second " + counter.help + " per second.");
+				writer.println("# TYPE " + name + "_per_second gauge");
+				for(ChannelCounters channel : channels.values())
+				{
+					writer.println(name + "_per_second" + getLabels(channel, "1m") + " " + channel.getRate(counter, ONE_MINUTE));
+					writer.println(name + "_per_second" + getLabels(channel, "5m") + " " + channel.getRate(counter, FIVE_MINUTES));
+				}
+			}
+			writer.close();
+			writer = null;
+
+			//renameTo() won't replace an existing file on every platform
+			if(!tempFile.renameTo(file) && !(file.delete() && tempFile.renameTo(file)))
+			{
+				Log.warn(Category.TELEPORT, "Could not replace teleport metrics file " + file);
+			}
+		}
+		catch(IOException e)
+		{
+			Log.error(Category.TELEPORT, "Could not write teleport metrics to " + file + ": " + e);
+		}
+		finally
+		{
+			if(writer != null)
+			{
+				writer.close();
+			}
+		}
+	}
+
+	private static String getLabels(ChannelCounters channel, String window)
+	{
+		StringBuilder labels = new StringBuilder("{type=\"").append(channel.type.toString().toLowerCase()).append("\",frequency=\"").append(channel.frequency).append('"');
+		if(window != null)
+		{
+			labels.append(",window=\"").append(window).append('"');
+		}
+
+		return labels.append('}').toString();
+	}
+
+	private static long currentSecond()
+	{
+		return System.currentTimeMillis() / 1000;
+	}
+}
@@ -0,0 +1,243 @@
+package buildcraft.additionalpipes.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.minecraft.util.BlockPos;
+import net.minecraft.world.World;
+import net.minecraftforge.common.DimensionManager;
+import buildcraft.additionalpipes.APConfiguration;
+import buildcraft.additionalpipes.api.PipeType;
+import buildcraft.additionalpipes.pipes.TeleportManager;
+import buildcraft.additionalpipes.utils.Log;
+import buildcraft.additionalpipes.utils.Log.Category;
+
+/**
+ * Keeps the last teleportTraceSize things teleport pipes did, so a problem can be looked into after it happened
+ * without running with debug logging.
+ *
+ * Events are stored as numbers in a ring of arrays, so recording one never allocates or builds a string.
+ * Nothing is recorded while teleportTraceSize is 0.
+ */
+public class TeleportTrace
+{
+	public static final String FILE_NAME = "additionalpipes-trace.txt";
+
+	public static enum Event
+	{
+		SENT("sent"),
+		BUFFERED("buffered in receiver"),
+		QUEUED("queued for unloaded dimension"),
+		DELIVERED("delivered from queue"),
+		NO_RECEIVER("found no receiver"),
+		ADDED("added"),
+		REMOVED("removed"),
+		PURGED("purged as stale");
+
+		public final String description;
+
+		private Event(String description)
+		{
+			this.description = description;
+		}
+	}
+
+	/**
+	 * One recorded event, copied out of the ring.
+	 */
+	public static class Entry
+	{
+		public final long worldTime;
+		public final Event event;
+		public final PipeType type;
+		public final int frequency;
+		public final int dimension;
+		public final BlockPos from;
+
+		// null if the event didn't involve another pipe
+		public final BlockPos to;
+
+		public final long amount;
+
+		Entry(long worldTime, Event event, PipeType type, int frequency, int dimension, BlockPos from, BlockPos to, long amount)
+		{
+			this.worldTime = worldTime;
+			this.event = event;
+			this.type = type;
+			this.frequency = frequency;
+			this.dimension = dimension;
+			this.from = from;
+			this.to = to;
+			this.amount = amount;
+		}
+
+		@Override
+		public String toString()
+		{
+			StringBuilder builder = new StringBuilder();
+			builder.append(worldTime).append(' ').append(type.toString().toLowerCase()).append(' ').append(frequency);
+			builder.append(" [").append(from.getX()).append(", ").append(from.getY()).append(", ").append(from.getZ()).append("] dim ").append(dimension);
+			builder.append(' ').append(event.description);
+			if(to != null)
+			{
+				builder.append(" to [").append(to.getX()).append(", ").append(to.getY()).append(", ").append(to.getZ()).append(']');
+			}
+			if(amount != 0)
+			{
+				builder.append(" x").append(amount);
+			}
+
+			return builder.toString();
+		}
+	}
+
+	private static final long NO_POS = Long.MIN_VALUE;
+
+	// the ring, one array per field.  Allocated when the size is first known.
+	private long[] worldTimes;
+	private byte[] events;
+	private byte[] types;
+	private int[] frequencies;
+	private int[] dimensions;
+	private long[] froms;
+	private long[] tos;
+	private long[] amounts;
+
+	// where the next event goes, and how many events were recorded in all
+	private int next;
+	private long recorded;
+
+	/**
+	 * Cheap enough to check before every record().
+	 */
+	public boolean isEnabled()
+	{
+		return APConfiguration.teleportTraceSize > 0;
+	}
+
+	/**
+	 * @param worldTime
+	 * @param event
+	 * @param type
+	 * @param frequency
+	 * @param dimension
+	 * @param from the pipe the event happened at
+	 * @param to the other pipe involved, or null
+	 * @param amount items, millibuckets or RF, or 0
+	 */
+	public synchronized void record(long worldTime, Event event, PipeType type, int frequency, int dimension, BlockPos from, BlockPos to, long amount)
+	{
+		if(worldTimes == null || worldTimes.length != APConfiguration.teleportTraceSize)
+		{
+			allocate(APConfiguration.teleportTraceSize);
+		}
+
+		worldTimes[next] = worldTime;
+		events[next] = (byte) event.ordinal();
+		types[next] = (byte) type.ordinal();
+		frequencies[next] = frequency;
+		dimensions[next] = dimension;
+		froms[next] = from.toLong();
+		tos[next] = to == null ? NO_POS : to.toLong();
+		amounts[next] = amount;
+
+		next = (next + 1) % worldTimes.length;
+		++recorded;
+	}
+
+	private void allocate(int size)
+	{
+		worldTimes = new long[size];
+		events = new byte[size];
+		types = new byte[size];
+		frequencies = new int[size];
+		dimensions = new int[size];
+		froms = new long[size];
+		tos = new long[size];
+		amounts = new long[size];
+		next = 0;
+		recorded = 0;
+	}
+
+	/**
+	 * @param limit how many of the latest events to get at most
+	 * @return the latest events, oldest first
+	 */
+	public synchronized List<Entry> getLatest(int limit)
+	{
+		List<Entry> entries = new ArrayList<Entry>();
+		if(worldTimes == null)
+		{
+			return entries;
+		}
+
+		int count = (int) Math.min(Math.min(recorded, worldTimes.length), limit);
+		for(int back = count; back > 0; --back)
+		{
+			int index = (next - back + worldTimes.length) % worldTimes.length;
+			entries.add(new Entry(worldTimes[index], Event.values()[events[index]], PipeType.values()[types[index]], frequencies[index], dimensions[index],
+					BlockPos.fromLong(froms[index]), tos[index] == NO_POS ? null : BlockPos.fromLong(tos[index]), amounts[index]));
+		}
+
+		return entries;
+	}
+
+	/**
+	 * @return how many events were recorded since the trace was last cleared, including ones that were overwritten
+	 */
+	public synchronized long getRecorded()
+	{
+		return recorded;
+	}
+
+	public synchronized void clear()
+	{
+		worldTimes = null;
+		next = 0;
+		recorded = 0;
+	}
+
+	/**
+	 * @return the file in the world folder the trace is dumped to, or null if no world is loaded
+	 */
+	public static File getDumpFile()
+	{
+		World overworld = DimensionManager.getWorld(0);
+		return overworld == null ? null : new File(TeleportManager.instance.getWorldSave(overworld), FILE_NAME);
+	}
+
+	/**
+	 * Write every event in the ring to a file, oldest first.
+	 * @param file
+	 * @return whether the file was written
+	 */
+	public boolean dump(File file)
+	{
+		List<Entry> entries = getLatest(Integer.MAX_VALUE);
+		PrintWriter writer = null;
+		try
+		{
+			writer = new PrintWriter(file, "UTF-8");
+			for(Entry entry : entries)
+			{
+				writer.println(entry);
+			}
+			return true;
+		}
+		catch(IOException e)
+		{
+			Log.error(Category.TELEPORT, "Could not write teleport trace to " + file + ": " + e);
+			return false;
+		}
+		finally
+		{
+			if(writer != null)
+			{
+				writer.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package buildcraft.additionalpipes.metrics;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+
+import net.minecraft.tileentity.TileEntity;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent.Phase;
+import net.minecraftforge.fml.common.gameevent.TickEvent.ServerTickEvent;
+import buildcraft.additionalpipes.APConfiguration;
+import buildcraft.additionalpipes.metrics.APProfiler.Section;
+
+/**
+ * Keeps the work Additional Pipes does each server tick under tickBudgetMicros, by putting off work that can wait.
+ *
+ * Work that can wait, like pulling from an inventory or looking for items to suck up, is handed to run().
+ * If the tick is within budget and nothing is already waiting, it runs straight away.  Otherwise it waits in line,
+ * and the line is worked through at the start of the next tick, oldest first, for as long as the budget lasts.
+ * Time is measured by APProfiler, so everything it times counts against the budget, including teleporting.
+ * Only the server thread uses this, so nothing here is synchronized.
+ */
+public class TickBudget
+{
+	public static final TickBudget instance = new TickBudget();
+
+	/**
+	 * Work that can be put off.  Pipes implement this themselves.
+	 */
+	public static interface Deferrable
+	{
+		/**
+		 * Do the work.  Work that waited may find its pipe gone, so check first.
+		 */
+		void runDeferredWork();
+
+		/**
+		 * @return the section the work is timed in
+		 */
+		Section getBudgetSection();
+
+		/**
+		 * @return the tile the work is for, or null if it isn't for one
+		 */
+		TileEntity getBudgetTile();
+	}
+
+	// in the order it was put off.  A set, so work put off twice only waits once.
+	private final LinkedHashSet<Deferrable> waiting = new LinkedHashSet<Deferrable>();
+
+	private final long[] executed = new long[Section.values().length];
+	private final long[] deferred = new long[Section.values().length];
+
+	/**
+	 * Run some work now if the tick has time left for it, or else at the start of a later tick.
+	 * @param work
+	 */
+	public void run(Deferrable work)
+	{
+		if(waiting.isEmpty() && !isOverBudget())
+		{
+			execute(work);
+		}
+		else if(waiting.add(work))
+		{
+			++deferred[work.getBudgetSection().ordinal()];
+		}
+	}
+
+	/**
+	 * @return whether Additional Pipes has already used its time for this tick.  Always false if there is no budget.
+	 */
+	public boolean isOverBudget()
+	{
+		return APConfiguration.tickBudgetMicros > 0 && APProfiler.instance.getCurrentTickNanos() >= APConfiguration.tickBudgetMicros * 1000L;
+	}
+
+	private void execute(Deferrable work)
+	{
+		++executed[work.getBudgetSection().ordinal()];
+
+		TileEntity tile = work.getBudgetTile();
+		long start = tile == null ? APProfiler.start() : APProfiler.start(tile);
+		try
+		{
+			work.runDeferredWork();
+		}
+		finally
+		{
+			if(tile == null)
+			{
+				APProfiler.end(work.getBudgetSection(), start);
+			}
+			else
+			{
+				APProfiler.end(work.getBudgetSection(), start, tile);
+			}
+		}
+	}
+
+	@SubscribeEvent
+	public void onServerTick(ServerTickEvent event)
+	{
+		if(event.phase != Phase.START)
+		{
+			return;
+		}
+
+		Iterator<Deferrable> works = waiting.iterator();
+		while(works.hasNext() && !isOverBudget())
+		{
+			Deferrable work = works.next();
+			works.remove();
+			execute(work);
+		}
+	}
+
+	public long getExecuted(Section section)
+	{
+		return executed[section.ordinal()];
+	}
+
+	public long getDeferred(Section section)
+	{
+		return deferred[section.ordinal()];
+	}
+
+	/**
+	 * @return how much work is waiting for a later tick
+	 */
+	public int getWaiting()
+	{
+		return waiting.size();
+	}
+
+	/**
+	 * Drop everything waiting, for when the server stops.
+	 */
+	public void clear()
+	{
+		waiting.clear();
+	}
+
+	public void reset()
+	{
+		for(int index = 0; index < executed.length; ++index)
+		{
+			executed[index] = 0;
+			deferred[index] = 0;
+		}
+	}
+}
@@ -12,6 +12,8 @@ import buildcraft.additionalpipes.network.message.MessageJeweledPipeOptionsClien
 import buildcraft.additionalpipes.network.message.MessageJeweledPipeOptionsServer;
 import buildcraft.additionalpipes.network.message.MessagePriorityPipe;
 import buildcraft.additionalpipes.network.message.MessageTelePipeData;
+import buildcraft.additionalpipes.network.message.MessageTelePipeNetwork;
+import buildcraft.additionalpipes.network.message.MessageTelePipePage;
 import buildcraft.additionalpipes.network.message.MessageTelePipeUpdate;
 
 
@@ -30,6 +32,8 @@ public class PacketHandler
         INSTANCE.registerMessage(MessagePriorityPipe.class, MessagePriorityPipe.class, 6, Side.SERVER);
         INSTANCE.registerMessage(MessageJeweledPipeOptionsServer.class, MessageJeweledPipeOptionsServer.class, 7, Side.SERVER);
         INSTANCE.registerMessage(MessageJeweledPipeOptionsClient.class, MessageJeweledPipeOptionsClient.class, 8, Side.CLIENT);
+        INSTANCE.registerMessage(MessageTelePipePage.class, MessageTelePipePage.class, 9, Side.SERVER);
+        INSTANCE.registerMessage(MessageTelePipeNetwork.class, MessageTelePipeNetwork.class, 10, Side.CLIENT);
 
     }
 }
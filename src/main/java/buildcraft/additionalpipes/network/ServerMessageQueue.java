@@ -0,0 +1,197 @@
+package buildcraft.additionalpipes.network;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.util.BlockPos;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent.Phase;
+import net.minecraftforge.fml.common.gameevent.TickEvent.ServerTickEvent;
+import buildcraft.additionalpipes.utils.Log;
+import buildcraft.additionalpipes.utils.Log.Category;
+
+/**
+ * Runs what server bound messages do on the server thread, at the start of the next tick.
+ *
+ * Message handlers are called on a network thread, so they must not touch the world or pipes directly.
+ * Messages that set the same thing on the same pipe before the tick runs are collapsed into the last one,
+ * and each player can only have so many changes waiting, so a client spamming its GUI can't make much work.
+ */
+public class ServerMessageQueue
+{
+	public static final ServerMessageQueue instance = new ServerMessageQueue();
+
+	/**
+	 * Changes a player can have waiting at once.  Further messages are dropped until the next tick.
+	 */
+	public static final int MAX_PENDING_PER_PLAYER = 32;
+
+	/**
+	 * Something a message does on the server.  Messages implement this themselves.
+	 */
+	public static interface Task
+	{
+		void run(EntityPlayerMP player);
+	}
+
+	/**
+	 * What a task changes.  Tasks with equal keys replace each other.
+	 */
+	private static class Key
+	{
+		final Class<?> messageClass;
+
+		// only set for messages that aren't about a pipe, since those are about the player
+		final EntityPlayerMP player;
+
+		final int dimension;
+		final BlockPos pos;
+		final int index;
+
+		Key(Class<?> messageClass, EntityPlayerMP player, int dimension, BlockPos pos, int index)
+		{
+			this.messageClass = messageClass;
+			this.player = player;
+			this.dimension = dimension;
+			this.pos = pos;
+			this.index = index;
+		}
+
+		@Override
+		public boolean equals(Object other)
+		{
+			if(!(other instanceof Key))
+			{
+				return false;
+			}
+
+			Key key = (Key) other;
+			return messageClass == key.messageClass && player == key.player && dimension == key.dimension && index == key.index
+					&& (pos == null ? key.pos == null : pos.equals(key.pos));
+		}
+
+		@Override
+		public int hashCode()
+		{
+			int hash = messageClass.hashCode() * 31 + (player == null ? 0 : player.hashCode());
+			hash = (hash * 31 + dimension) * 31 + (pos == null ? 0 : pos.hashCode());
+			return hash * 31 + index;
+		}
+	}
+
+	private static class Pending
+	{
+		final EntityPlayerMP player;
+		Task task;
+
+		Pending(EntityPlayerMP player, Task task)
+		{
+			this.player = player;
+			this.task = task;
+		}
+	}
+
+	// in the order the first message for each key arrived
+	private LinkedHashMap<Object, Pending> pending = new LinkedHashMap<Object, Pending>();
+
+	private final Map<EntityPlayerMP, Integer> pendingPerPlayer = new HashMap<EntityPlayerMP, Integer>();
+
+	private long dropped;
+
+	/**
+	 * Run a task on the next server tick, replacing any waiting task from the same kind of message for the same thing.
+	 * @param player the player who sent the message
+	 * @param messageClass
+	 * @param pos the pipe the message changes, or null if it isn't about a pipe
+	 * @param index which part of the pipe it changes, such as a side, or 0
+	 * @param task
+	 */
+	public void schedule(EntityPlayerMP player, Class<?> messageClass, BlockPos pos, int index, Task task)
+	{
+		schedule(player, new Key(messageClass, pos == null ? player : null, player.dimension, pos, index), task);
+	}
+
+	/**
+	 * Run a task on the next server tick without collapsing it into any other.  For messages like toggles, where two of them don't do the same as one.
+	 * @param player
+	 * @param task
+	 */
+	public void scheduleEach(EntityPlayerMP player, Task task)
+	{
+		schedule(player, new Object(), task);
+	}
+
+	private synchronized void schedule(EntityPlayerMP player, Object key, Task task)
+	{
+		Pending existing = pending.get(key);
+		if(existing != null && existing.player == player)
+		{
+			existing.task = task;
+			return;
+		}
+
+		Integer count = pendingPerPlayer.get(player);
+		if(count != null && count >= MAX_PENDING_PER_PLAYER)
+		{
+			if(dropped++ % 100 == 0)
+			{
+				Log.warn(Category.NETWORK, "Dropping GUI messages from " + player.getName() + ", too many sent in one tick");
+			}
+			return;
+		}
+
+		pendingPerPlayer.put(player, count == null ? 1 : count + 1);
+		if(existing != null)
+		{
+			//another player changed the same thing, so run theirs after
+			key = new Object();
+		}
+		pending.put(key, new Pending(player, task));
+	}
+
+	@SubscribeEvent
+	public void onServerTick(ServerTickEvent event)
+	{
+		if(event.phase != Phase.START)
+		{
+			return;
+		}
+
+		LinkedHashMap<Object, Pending> toRun;
+		synchronized(this)
+		{
+			if(pending.isEmpty())
+			{
+				return;
+			}
+
+			toRun = pending;
+			pending = new LinkedHashMap<Object, Pending>();
+			pendingPerPlayer.clear();
+		}
+
+		for(Pending task : toRun.values())
+		{
+			//a bad message used to only kill its network thread, so don't let it take the server down now
+			try
+			{
+				task.task.run(task.player);
+			}
+			catch(RuntimeException e)
+			{
+				Log.error(Category.NETWORK, "Error handling a message from " + task.player.getName(), e);
+			}
+		}
+	}
+
+	/**
+	 * Forget everything waiting, for when the server stops.
+	 */
+	public synchronized void clear()
+	{
+		pending.clear();
+		pendingPerPlayer.clear();
+	}
+}
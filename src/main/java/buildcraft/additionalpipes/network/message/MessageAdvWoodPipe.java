@@ -1,12 +1,14 @@
 package buildcraft.additionalpipes.network.message;
 
 import io.netty.buffer.ByteBuf;
+import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.BlockPos;
 import net.minecraft.world.World;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
 import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+import buildcraft.additionalpipes.network.ServerMessageQueue;
 import buildcraft.additionalpipes.pipes.PipeItemsAdvancedWood;
 import buildcraft.transport.TileGenericPipe;
 
@@ -14,7 +16,7 @@ import buildcraft.transport.TileGenericPipe;
  * Message that signals an AdvWoodenPipe to switch its state
  *
  */
-public class MessageAdvWoodPipe implements IMessage, IMessageHandler<MessageAdvWoodPipe, IMessage>
+public class MessageAdvWoodPipe implements IMessage, IMessageHandler<MessageAdvWoodPipe, IMessage>, ServerMessageQueue.Task
 {
 	public BlockPos position;
 	
@@ -42,14 +44,20 @@ public class MessageAdvWoodPipe implements IMessage, IMessageHandler<MessageAdvW
     @Override
     public IMessage onMessage(MessageAdvWoodPipe message, MessageContext ctx)
     {
-    	World world = ctx.getServerHandler().playerEntity.worldObj;
-    	TileEntity te = world.getTileEntity(message.position);
+    	//the handler is called on a network thread, so change the pipe on the next tick instead
+    	ServerMessageQueue.instance.scheduleEach(ctx.getServerHandler().playerEntity, message);
+    	return null;
+    }
+
+    @Override
+    public void run(EntityPlayerMP player)
+    {
+    	World world = player.worldObj;
+    	TileEntity te = world.getTileEntity(position);
     	if(te instanceof TileGenericPipe) {
 			PipeItemsAdvancedWood pipe = (PipeItemsAdvancedWood) ((TileGenericPipe) te).pipe;
 			pipe.transport.exclude = !pipe.transport.exclude;
 		}
-    	
-    	return null;
     }
 
     @Override
@@ -1,27 +1,38 @@
 package buildcraft.additionalpipes.network.message;
 
 import io.netty.buffer.ByteBuf;
-
-import java.util.ArrayList;
-import java.util.List;
-
 import net.minecraft.world.ChunkCoordIntPair;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
 import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
 import buildcraft.additionalpipes.AdditionalPipes;
+import buildcraft.additionalpipes.ChunkLoadViewDataProxy;
+import buildcraft.additionalpipes.utils.NetworkUtils;
 
+/**
+ * Message that sends the forced chunks around a player to the client.
+ * 
+ * Chunks are written as zig-zag varints relative to the player's chunk, so most of them fit in two bytes.
+ */
 public class MessageChunkloadData implements IMessage, IMessageHandler<MessageChunkloadData, IMessage>
 {
-	List<ChunkCoordIntPair> _chunksInRange;
+	int _centerX;
+	int _centerZ;
+	
+	//packed with ChunkCoordIntPair.chunkXZ2Int()
+	long[] _chunksInRange;
+	int _chunkCount;
 	
     public MessageChunkloadData()
     {
     }
     
-    public MessageChunkloadData(List<ChunkCoordIntPair> chunksInRange)
+    public MessageChunkloadData(int centerX, int centerZ, long[] chunksInRange, int chunkCount)
     {
+    	_centerX = centerX;
+    	_centerZ = centerZ;
     	_chunksInRange = chunksInRange;
+    	_chunkCount = chunkCount;
     }
 
     @Override
@@ -41,25 +52,32 @@ public class MessageChunkloadData implements IMessage, IMessageHandler<MessageCh
 	@Override
 	public void fromBytes(ByteBuf buf)
 	{
-		int _chunksInRangeLength = buf.readInt();
+		_centerX = NetworkUtils.readSignedVarInt(buf);
+		_centerZ = NetworkUtils.readSignedVarInt(buf);
+		_chunkCount = NetworkUtils.readVarInt(buf);
 		
-		_chunksInRange = new ArrayList<ChunkCoordIntPair>(_chunksInRangeLength);
+		_chunksInRange = new long[_chunkCount];
 		
-		for(int counter = 0; counter < _chunksInRangeLength; ++counter)
+		for(int counter = 0; counter < _chunkCount; ++counter)
 		{
-			_chunksInRange.add(new ChunkCoordIntPair(buf.readInt(), buf.readInt()));
+			int chunkX = _centerX + NetworkUtils.readSignedVarInt(buf);
+			int chunkZ = _centerZ + NetworkUtils.readSignedVarInt(buf);
+			_chunksInRange[counter] = ChunkCoordIntPair.chunkXZ2Int(chunkX, chunkZ);
 		}
 	}
 
 	@Override
 	public void toBytes(ByteBuf buf) 
 	{
-		buf.writeInt(_chunksInRange.size());
+		NetworkUtils.writeSignedVarInt(buf, _centerX);
+		NetworkUtils.writeSignedVarInt(buf, _centerZ);
+		NetworkUtils.writeVarInt(buf, _chunkCount);
 		
-		for(ChunkCoordIntPair pair : _chunksInRange)
+		for(int counter = 0; counter < _chunkCount; ++counter)
 		{
-			buf.writeInt(pair.chunkXPos);
-			buf.writeInt(pair.chunkZPos);
+			long chunk = _chunksInRange[counter];
+			NetworkUtils.writeSignedVarInt(buf, ChunkLoadViewDataProxy.getChunkX(chunk) - _centerX);
+			NetworkUtils.writeSignedVarInt(buf, ChunkLoadViewDataProxy.getChunkZ(chunk) - _centerZ);
 		}
 	}
 }
@@ -1,12 +1,14 @@
 package buildcraft.additionalpipes.network.message;
 
 import io.netty.buffer.ByteBuf;
+import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
 import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
 import buildcraft.additionalpipes.AdditionalPipes;
+import buildcraft.additionalpipes.network.ServerMessageQueue;
 
-public class MessageChunkloadRequest implements IMessage, IMessageHandler<MessageChunkloadRequest, IMessage>
+public class MessageChunkloadRequest implements IMessage, IMessageHandler<MessageChunkloadRequest, IMessage>, ServerMessageQueue.Task
 {
     public MessageChunkloadRequest()
     {
@@ -15,11 +17,17 @@ public class MessageChunkloadRequest implements IMessage, IMessageHandler<Messag
     @Override
     public IMessage onMessage(MessageChunkloadRequest message, MessageContext ctx)
     {
-    	AdditionalPipes.instance.chunkLoadViewer.sendPersistentChunksToPlayer(ctx.getServerHandler().playerEntity);
-    	
+    	//the handler is called on a network thread, so do this on the next tick instead
+    	ServerMessageQueue.instance.schedule(ctx.getServerHandler().playerEntity, MessageChunkloadRequest.class, null, 0, message);
     	return null;
     }
 
+    @Override
+    public void run(EntityPlayerMP player)
+    {
+    	AdditionalPipes.instance.chunkLoadViewer.sendPersistentChunksToPlayer(player);
+    }
+
     @Override
     public String toString()
     {
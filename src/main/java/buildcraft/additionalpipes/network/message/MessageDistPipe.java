@@ -1,12 +1,14 @@
 package buildcraft.additionalpipes.network.message;
 
 import io.netty.buffer.ByteBuf;
+import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.BlockPos;
 import net.minecraft.world.World;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
 import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+import buildcraft.additionalpipes.network.ServerMessageQueue;
 import buildcraft.additionalpipes.pipes.PipeItemsDistributor;
 import buildcraft.transport.TileGenericPipe;
 
@@ -14,7 +16,7 @@ import buildcraft.transport.TileGenericPipe;
  * Message that sets the properties of a Distribution Pipe from the GUI
  *
  */
-public class MessageDistPipe implements IMessage, IMessageHandler<MessageDistPipe, IMessage>
+public class MessageDistPipe implements IMessage, IMessageHandler<MessageDistPipe, IMessage>, ServerMessageQueue.Task
 {
 	public BlockPos position;
 	byte _index;
@@ -49,17 +51,25 @@ public class MessageDistPipe implements IMessage, IMessageHandler<MessageDistPip
 
     @Override
     public IMessage onMessage(MessageDistPipe message, MessageContext ctx)
+    {
+    	//the handler is called on a network thread, so change the pipe on the next tick instead
+    	ServerMessageQueue.instance.schedule(ctx.getServerHandler().playerEntity, MessageDistPipe.class, message.position, message._index, message);
+    	return null;
+    }
+
+    @Override
+    public void run(EntityPlayerMP player)
     {
     	
-    	World world = ctx.getServerHandler().playerEntity.worldObj;
-    	TileEntity te = world.getTileEntity(message.position);
+    	World world = player.worldObj;
+    	TileEntity te = world.getTileEntity(position);
 		if(te instanceof TileGenericPipe)
 		{
 			PipeItemsDistributor pipe = (PipeItemsDistributor) ((TileGenericPipe) te).pipe;
 
-			if(message._newData >= 0 && message._index >= 0 && message._index < pipe.distData.length) {
-				pipe.distData[message._index] = message._newData;
-				boolean found = message._newData > 0;
+			if(_newData >= 0 && _index >= 0 && _index < pipe.distData.length) {
+				pipe.distData[_index] = _newData;
+				boolean found = _newData > 0;
 				if(!found) {
 					for(int i = 0; i < pipe.distData.length; i++) {
 						if(pipe.distData[i] > 0) {
@@ -75,8 +85,6 @@ public class MessageDistPipe implements IMessage, IMessageHandler<MessageDistPip
 
 			}
 		}
-    	
-    	return null;
     }
 
     @Override
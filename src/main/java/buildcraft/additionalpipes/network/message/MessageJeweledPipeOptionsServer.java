@@ -1,12 +1,14 @@
 package buildcraft.additionalpipes.network.message;
 
 import io.netty.buffer.ByteBuf;
+import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.BlockPos;
 import net.minecraft.world.World;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
 import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+import buildcraft.additionalpipes.network.ServerMessageQueue;
 import buildcraft.additionalpipes.pipes.PipeItemsJeweled;
 import buildcraft.additionalpipes.pipes.SideFilterData;
 import buildcraft.transport.TileGenericPipe;
@@ -15,7 +17,7 @@ import buildcraft.transport.TileGenericPipe;
  * Message that sets the three option booleans of a Jeweled Pipe on the client for a single side
  *
  */
-public class MessageJeweledPipeOptionsServer implements IMessage, IMessageHandler<MessageJeweledPipeOptionsServer, IMessage>
+public class MessageJeweledPipeOptionsServer implements IMessage, IMessageHandler<MessageJeweledPipeOptionsServer, IMessage>, ServerMessageQueue.Task
 {
 	public BlockPos position;
 	byte index; //1-indexed index of filter data that we are updating
@@ -59,21 +61,27 @@ public class MessageJeweledPipeOptionsServer implements IMessage, IMessageHandle
 
     @Override
     public IMessage onMessage(MessageJeweledPipeOptionsServer message, MessageContext ctx)
+    {
+    	//the handler is called on a network thread, so change the pipe on the next tick instead
+    	ServerMessageQueue.instance.schedule(ctx.getServerHandler().playerEntity, MessageJeweledPipeOptionsServer.class, message.position, message.index, message);
+    	return null;
+    }
+
+    @Override
+    public void run(EntityPlayerMP player)
     {
     	
-    	World world = ctx.getServerHandler().playerEntity.worldObj;
-    	TileEntity te = world.getTileEntity(message.position);
+    	World world = player.worldObj;
+    	TileEntity te = world.getTileEntity(position);
 		if(te instanceof TileGenericPipe)
 		{
 			PipeItemsJeweled pipe = (PipeItemsJeweled) ((TileGenericPipe) te).pipe;
 
-			SideFilterData dataToUpdate = pipe.filterData[message.index - 1];
-			dataToUpdate.setAcceptUnsortedItems(message.acceptUnsorted);
-			dataToUpdate.setMatchNBT(message.matchNBT);
-			dataToUpdate.setMatchMetadata(message.matchMeta);
+			SideFilterData dataToUpdate = pipe.filterData[index - 1];
+			dataToUpdate.setAcceptUnsortedItems(acceptUnsorted);
+			dataToUpdate.setMatchNBT(matchNBT);
+			dataToUpdate.setMatchMetadata(matchMeta);
 		}
-    	
-    	return null;
     }
 
     @Override
@@ -1,12 +1,14 @@
 package buildcraft.additionalpipes.network.message;
 
 import io.netty.buffer.ByteBuf;
+import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.BlockPos;
 import net.minecraft.world.World;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
 import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+import buildcraft.additionalpipes.network.ServerMessageQueue;
 import buildcraft.additionalpipes.pipes.PipeItemsPriorityInsertion;
 import buildcraft.transport.TileGenericPipe;
 
@@ -15,7 +17,7 @@ import buildcraft.transport.TileGenericPipe;
  * Message that sets the properties of a Distribution Pipe from the GUI
  *
  */
-public class MessagePriorityPipe implements IMessage, IMessageHandler<MessagePriorityPipe, IMessage>
+public class MessagePriorityPipe implements IMessage, IMessageHandler<MessagePriorityPipe, IMessage>, ServerMessageQueue.Task
 {
 	public BlockPos position;
 	byte _index;
@@ -50,17 +52,25 @@ public class MessagePriorityPipe implements IMessage, IMessageHandler<MessagePri
 
     @Override
     public IMessage onMessage(MessagePriorityPipe message, MessageContext ctx)
+    {
+    	//the handler is called on a network thread, so change the pipe on the next tick instead
+    	ServerMessageQueue.instance.schedule(ctx.getServerHandler().playerEntity, MessagePriorityPipe.class, message.position, message._index, message);
+    	return null;
+    }
+
+    @Override
+    public void run(EntityPlayerMP player)
     {
     	
-    	World world = ctx.getServerHandler().playerEntity.worldObj;
-    	TileEntity te = world.getTileEntity(message.position);
+    	World world = player.worldObj;
+    	TileEntity te = world.getTileEntity(position);
 		if(te instanceof TileGenericPipe)
 		{
 			PipeItemsPriorityInsertion pipe = (PipeItemsPriorityInsertion) ((TileGenericPipe) te).pipe;
 
-			if(message._newData >= 0 && message._index >= 0 && message._index < pipe.sidePriorities.length) {
-				pipe.sidePriorities[message._index] = message._newData;
-				boolean found = message._newData > 0;
+			if(_newData >= 0 && _index >= 0 && _index < pipe.sidePriorities.length) {
+				pipe.sidePriorities[_index] = _newData;
+				boolean found = _newData > 0;
 				if(!found) {
 					for(int i = 0; i < pipe.sidePriorities.length; i++) {
 						if(pipe.sidePriorities[i] > 0) {
@@ -76,8 +86,6 @@ public class MessagePriorityPipe implements IMessage, IMessageHandler<MessagePri
 
 			}
 		}
-    	
-    	return null;
     }
 
     @Override
@@ -17,7 +17,6 @@ import buildcraft.transport.TileGenericPipe;
 public class MessageTelePipeData implements IMessage, IMessageHandler<MessageTelePipeData, IMessage>
 {
 	public BlockPos position;
-    public int[] locations;
     public String ownerUUID;
     public String ownerName;
 
@@ -25,10 +24,9 @@ public class MessageTelePipeData implements IMessage, IMessageHandler<MessageTel
     {
     }
 
-    public MessageTelePipeData(BlockPos position, int[] locations, UUID ownerUUID, String ownerName)
+    public MessageTelePipeData(BlockPos position, UUID ownerUUID, String ownerName)
     {
     	this.position = position;
-        this.locations = locations;
         this.ownerUUID = ownerUUID.toString();
         this.ownerName = ownerName;
     }
@@ -37,15 +35,6 @@ public class MessageTelePipeData implements IMessage, IMessageHandler<MessageTel
     public void fromBytes(ByteBuf buf)
     {
     	position = BlockPos.fromLong(buf.readLong());
-        int locationsLength = buf.readInt();
-        	
-        this.locations = new int[locationsLength];
-        
-        for(int counter = 0; counter < locationsLength; ++counter)
-        {
-        	locations[counter] = buf.readInt();
-        }
-        		
         ownerUUID = ByteBufUtils.readUTF8String(buf);
         ownerName = ByteBufUtils.readUTF8String(buf);
     }
@@ -54,11 +43,6 @@ public class MessageTelePipeData implements IMessage, IMessageHandler<MessageTel
     public void toBytes(ByteBuf buf)
     {
     	buf.writeLong(position.toLong());
-        buf.writeInt(locations.length);
-        for(int location : locations)
-        {
-        	buf.writeInt(location);
-        }
         ByteBufUtils.writeUTF8String(buf, ownerUUID);
         ByteBufUtils.writeUTF8String(buf, ownerName);
     }
@@ -71,7 +55,6 @@ public class MessageTelePipeData implements IMessage, IMessageHandler<MessageTel
         PipeTeleport<?> pipe = (PipeTeleport<?>) ((TileGenericPipe) te).pipe;
 		pipe.ownerUUID = UUID.fromString(message.ownerUUID);
 		pipe.ownerName = message.ownerName;
-		pipe.network = message.locations;
 
         return null;
     }
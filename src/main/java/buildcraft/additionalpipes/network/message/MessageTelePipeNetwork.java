@@ -0,0 +1,112 @@
+package buildcraft.additionalpipes.network.message;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.List;
+
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.util.BlockPos;
+import net.minecraftforge.fml.client.FMLClientHandler;
+import net.minecraftforge.fml.common.network.ByteBufUtils;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
+import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+import buildcraft.additionalpipes.gui.ContainerTeleportPipe;
+import buildcraft.additionalpipes.gui.ContainerTeleportPipe.NetworkEntry;
+import buildcraft.additionalpipes.utils.NetworkUtils;
+
+/**
+ * Message that sends the entries of the network page a player is looking at in the Teleport Pipe GUI.
+ * 
+ * Only the entries that changed since the last message are sent.
+ */
+public class MessageTelePipeNetwork implements IMessage, IMessageHandler<MessageTelePipeNetwork, IMessage>
+{
+	int _windowId;
+	int _networkSize;
+	int _page;
+	
+	int[] _slots;
+	
+	//null entries are empty slots
+	NetworkEntry[] _entries;
+	
+	public MessageTelePipeNetwork()
+	{
+	}
+	
+	public MessageTelePipeNetwork(int windowId, int networkSize, int page, List<Integer> changedSlots, NetworkEntry[] pageEntries)
+	{
+		_windowId = windowId;
+		_networkSize = networkSize;
+		_page = page;
+		_slots = new int[changedSlots.size()];
+		_entries = new NetworkEntry[changedSlots.size()];
+		for(int index = 0; index < _slots.length; ++index)
+		{
+			_slots[index] = changedSlots.get(index);
+			_entries[index] = pageEntries[_slots[index]];
+		}
+	}
+
+	@Override
+	public void fromBytes(ByteBuf buf)
+	{
+		_windowId = buf.readByte();
+		_networkSize = NetworkUtils.readVarInt(buf);
+		_page = NetworkUtils.readVarInt(buf);
+		
+		int count = buf.readByte();
+		_slots = new int[count];
+		_entries = new NetworkEntry[count];
+		for(int index = 0; index < count; ++index)
+		{
+			_slots[index] = buf.readByte();
+			if(buf.readBoolean())
+			{
+				_entries[index] = new NetworkEntry(BlockPos.fromLong(buf.readLong()), buf.readByte(), ByteBufUtils.readUTF8String(buf));
+			}
+		}
+	}
+
+	@Override
+	public void toBytes(ByteBuf buf)
+	{
+		buf.writeByte(_windowId);
+		NetworkUtils.writeVarInt(buf, _networkSize);
+		NetworkUtils.writeVarInt(buf, _page);
+		
+		buf.writeByte(_slots.length);
+		for(int index = 0; index < _slots.length; ++index)
+		{
+			buf.writeByte(_slots[index]);
+			buf.writeBoolean(_entries[index] != null);
+			if(_entries[index] != null)
+			{
+				buf.writeLong(_entries[index].pos.toLong());
+				buf.writeByte(_entries[index].state);
+				ByteBufUtils.writeUTF8String(buf, _entries[index].ownerName);
+			}
+		}
+	}
+
+	@Override
+	public IMessage onMessage(MessageTelePipeNetwork message, MessageContext ctx)
+	{
+		EntityPlayer player = FMLClientHandler.instance().getClient().thePlayer;
+		
+		//the GUI may have been closed while the message was on its way
+		if(player.openContainer instanceof ContainerTeleportPipe && player.openContainer.windowId == message._windowId)
+		{
+			((ContainerTeleportPipe) player.openContainer).receiveNetworkPage(message._networkSize, message._page, message._slots, message._entries);
+		}
+		
+		return null;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "MessageTelePipeNetwork";
+	}
+}
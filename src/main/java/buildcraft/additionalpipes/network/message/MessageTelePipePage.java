@@ -0,0 +1,68 @@
+package buildcraft.additionalpipes.network.message;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
+import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+import buildcraft.additionalpipes.gui.ContainerTeleportPipe;
+import buildcraft.additionalpipes.network.ServerMessageQueue;
+import buildcraft.additionalpipes.utils.NetworkUtils;
+
+/**
+ * Message that changes which page of the network a player is looking at in the Teleport Pipe GUI
+ *
+ */
+public class MessageTelePipePage implements IMessage, IMessageHandler<MessageTelePipePage, IMessage>, ServerMessageQueue.Task
+{
+	int _windowId;
+	int _page;
+	
+	public MessageTelePipePage()
+	{
+	}
+	
+	public MessageTelePipePage(int windowId, int page)
+	{
+		_windowId = windowId;
+		_page = page;
+	}
+
+	@Override
+	public void fromBytes(ByteBuf buf)
+	{
+		_windowId = buf.readByte();
+		_page = NetworkUtils.readVarInt(buf);
+	}
+
+	@Override
+	public void toBytes(ByteBuf buf)
+	{
+		buf.writeByte(_windowId);
+		NetworkUtils.writeVarInt(buf, Math.max(0, _page));
+	}
+
+	@Override
+	public IMessage onMessage(MessageTelePipePage message, MessageContext ctx)
+	{
+		//the handler is called on a network thread, so do this on the next tick instead
+		ServerMessageQueue.instance.schedule(ctx.getServerHandler().playerEntity, MessageTelePipePage.class, null, 0, message);
+		return null;
+	}
+
+	@Override
+	public void run(EntityPlayerMP player)
+	{
+		if(player.openContainer instanceof ContainerTeleportPipe && player.openContainer.windowId == _windowId)
+		{
+			//the container clamps the page and sends it on the next tick
+			((ContainerTeleportPipe) player.openContainer).page = _page;
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return "MessageTelePipePage";
+	}
+}
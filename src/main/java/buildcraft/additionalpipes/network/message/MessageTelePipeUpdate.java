@@ -8,31 +8,35 @@ import net.minecraft.util.ChatComponentText;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
 import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+import buildcraft.additionalpipes.network.ServerMessageQueue;
 import buildcraft.additionalpipes.pipes.PipeTeleport;
+import buildcraft.additionalpipes.pipes.TeleportManager;
 import buildcraft.transport.TileGenericPipe;
 
 /**
  * Message that sets the properties of a Teleport Pipe from the GUI
  *
  */
-public class MessageTelePipeUpdate implements IMessage, IMessageHandler<MessageTelePipeUpdate, IMessage>
+public class MessageTelePipeUpdate implements IMessage, IMessageHandler<MessageTelePipeUpdate, IMessage>, ServerMessageQueue.Task
 {
 	public BlockPos position;
 	int _freq;
 	boolean _isPublic;
 	byte _state;
+	boolean _crossDimension;
 	int _newData;
 	
     public MessageTelePipeUpdate()
     {
     }
 
-    public MessageTelePipeUpdate(BlockPos position, int freq, boolean isPublic, byte index)
+    public MessageTelePipeUpdate(BlockPos position, int freq, boolean isPublic, byte index, boolean crossDimension)
     {
     	this.position = position;
     	_freq = freq;
     	_isPublic = isPublic;
     	_state = index;
+    	_crossDimension = crossDimension;
     }
 
     @Override
@@ -42,6 +46,7 @@ public class MessageTelePipeUpdate implements IMessage, IMessageHandler<MessageT
         _freq = buf.readInt();
         _isPublic = buf.readBoolean();
         _state = buf.readByte();
+        _crossDimension = buf.readBoolean();
     }
 
     @Override
@@ -51,30 +56,34 @@ public class MessageTelePipeUpdate implements IMessage, IMessageHandler<MessageT
         buf.writeInt(_freq);
         buf.writeBoolean(_isPublic);
         buf.writeByte(_state);
+        buf.writeBoolean(_crossDimension);
     }
 
     @Override
     public IMessage onMessage(MessageTelePipeUpdate message, MessageContext ctx)
     {
-    	TileEntity te = ctx.getServerHandler().playerEntity.worldObj.getTileEntity(message.position);
+    	//the handler is called on a network thread, so change the pipe on the next tick instead
+    	ServerMessageQueue.instance.schedule(ctx.getServerHandler().playerEntity, MessageTelePipeUpdate.class, message.position, 0, message);
+    	return null;
+    }
+
+    @Override
+    public void run(EntityPlayerMP player)
+    {
+    	TileEntity te = player.worldObj.getTileEntity(position);
     	if(te instanceof TileGenericPipe) {
 			PipeTeleport<?> pipe = (PipeTeleport<?>) ((TileGenericPipe) te).pipe;
 			// only allow the owner to change pipe state
-			EntityPlayerMP entityPlayer = (EntityPlayerMP) ctx.getServerHandler().playerEntity;
-			if(!PipeTeleport.canPlayerModifyPipe(entityPlayer, pipe)) {
-				entityPlayer.addChatComponentMessage(new ChatComponentText("Sorry, You may not change pipe state."));
-				return null;
+			if(!PipeTeleport.canPlayerModifyPipe(player, pipe)) {
+				player.addChatComponentMessage(new ChatComponentText("Sorry, You may not change pipe state."));
+				return;
 			}
-			int frequency = message._freq;
+			int frequency = _freq;
 			if(frequency < 0) {
 				frequency = 0;
 			}
-			pipe.setFrequency(frequency);
-			pipe.state = (byte) message._state;
-			pipe.isPublic = message._isPublic;
+			TeleportManager.instance.applySettings(pipe, frequency, _state, _isPublic, _crossDimension);
 		}
-    	
-    	return null;
     }
 
     @Override
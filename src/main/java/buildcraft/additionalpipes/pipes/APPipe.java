@@ -1,22 +1,239 @@
 package buildcraft.additionalpipes.pipes;
 
+import java.util.Arrays;
+
+import net.minecraft.inventory.IInventory;
+import net.minecraft.inventory.ISidedInventory;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.BlockPos;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.Vec3;
+import net.minecraft.world.World;
+import net.minecraftforge.fluids.IFluidHandler;
 import buildcraft.additionalpipes.textures.Textures;
+import buildcraft.additionalpipes.utils.DirectionUtils;
 import buildcraft.api.core.IIconProvider;
 import buildcraft.core.lib.utils.Utils;
 import buildcraft.transport.Pipe;
 import buildcraft.transport.PipeTransport;
 import buildcraft.transport.PipeTransportItems;
+import buildcraft.transport.PipeTransportPower;
+import buildcraft.transport.TileGenericPipe;
 import buildcraft.transport.TravelingItem;
 
 public abstract class APPipe<pipeType extends PipeTransport> extends Pipe<pipeType> 
 {
+	// what a neighbour can be used as, one bit each
+	private static final byte INVENTORY = 1;
+	private static final byte SIDED_INVENTORY = 2;
+	private static final byte FLUID_HANDLER = 4;
+	private static final byte POWER_PIPE = 8;
+
+	// the tile on each side and what it can be used as, looked up the first time they are needed after a neighbour change.
+	// Only the server hears about neighbour changes, so the client, and pipes with no world, look them up every time.
+	private final TileEntity[] neighbours = new TileEntity[6];
+	private final byte[] neighbourKinds = new byte[6];
+	private int neighboursKnown;
+
+	// the ChunkEpoch each neighbour was last known to be current at
+	private final int[] neighbourEpochs = new int[6];
+
 	public APPipe(pipeType transport, Item item) {
 		super(transport, item);
 	}
+
+	@Override
+	public void onNeighborBlockChange(int blockId)
+	{
+		super.onNeighborBlockChange(blockId);
+		invalidateNeighbours();
+	}
+
+	@Override
+	public void invalidate()
+	{
+		super.invalidate();
+		clearNeighbours();
+	}
+
+	@Override
+	public void onChunkUnload()
+	{
+		super.onChunkUnload();
+		clearNeighbours();
+	}
+
+	/**
+	 * Forget what is next to this pipe, so it is looked up again when next needed.
+	 * Subclasses that keep their own state about their neighbours should override this and forget that too.
+	 */
+	protected void invalidateNeighbours()
+	{
+		neighboursKnown = 0;
+	}
+
+	private void clearNeighbours()
+	{
+		Arrays.fill(neighbours, null);
+		invalidateNeighbours();
+	}
+
+	// returns the index of the side in the cache, after looking up its neighbour if needed
+	private int lookUpNeighbour(EnumFacing side)
+	{
+		int index = side.ordinal();
+		if(isNeighbourKnown(side))
+		{
+			TileEntity cached = neighbours[index];
+			if(isCurrent(side))
+			{
+				return index;
+			}
+
+			if((cached == null || !cached.isInvalid()) && container.getTile(side) == cached)
+			{
+				//some chunk came or went, but not this neighbour's
+				neighbourEpochs[index] = ChunkEpoch.instance.get();
+				return index;
+			}
+
+			//the neighbour was broken, or the chunk across the border unloaded or loaded, before this pipe heard about it
+			invalidateNeighbours();
+		}
+
+		TileEntity tile = container.getTile(side);
+		byte kinds = 0;
+		if(tile instanceof IInventory)
+		{
+			kinds |= INVENTORY;
+		}
+		if(tile instanceof ISidedInventory)
+		{
+			kinds |= SIDED_INVENTORY;
+		}
+		if(tile instanceof IFluidHandler)
+		{
+			kinds |= FLUID_HANDLER;
+		}
+		if(tile instanceof TileGenericPipe && ((TileGenericPipe) tile).pipe != null && ((TileGenericPipe) tile).pipe.transport instanceof PipeTransportPower)
+		{
+			kinds |= POWER_PIPE;
+		}
+
+		neighbours[index] = tile;
+		neighbourKinds[index] = kinds;
+		neighbourEpochs[index] = ChunkEpoch.instance.get();
+
+		//a pipe that hasn't finished loading can't say what it is yet.  Pipes without a world, like the simulator's, never cache.
+		boolean loading = tile instanceof TileGenericPipe && ((TileGenericPipe) tile).pipe == null;
+		World world = getWorld();
+		if(world != null && !world.isRemote && !loading)
+		{
+			neighboursKnown |= 1 << index;
+		}
+		return index;
+	}
+
+	/**
+	 * Check a cached neighbour without asking the world.  Tiles in a chunk that unloads aren't invalidated in 1.8, so a
+	 * neighbour across a chunk border is only trusted until any chunk loads or unloads.  A neighbour in this pipe's own
+	 * chunk can't unload without this pipe unloading too.
+	 * @param side
+	 * @return whether the cached neighbour on that side can be used as it is
+	 */
+	private boolean isCurrent(EnumFacing side)
+	{
+		int index = side.ordinal();
+		TileEntity tile = neighbours[index];
+		return (tile == null || !tile.isInvalid()) && (!DirectionUtils.contains(getBorderSides(), side) || neighbourEpochs[index] == ChunkEpoch.instance.get());
+	}
+
+	/**
+	 * @return the sides whose neighbours are in another chunk, as a DirectionUtils mask
+	 */
+	protected int getBorderSides()
+	{
+		BlockPos pos = container.getPos();
+		int sides = 0;
+		if((pos.getX() & 15) == 0)
+		{
+			sides |= DirectionUtils.bit(EnumFacing.WEST);
+		}
+		else if((pos.getX() & 15) == 15)
+		{
+			sides |= DirectionUtils.bit(EnumFacing.EAST);
+		}
+		if((pos.getZ() & 15) == 0)
+		{
+			sides |= DirectionUtils.bit(EnumFacing.NORTH);
+		}
+		else if((pos.getZ() & 15) == 15)
+		{
+			sides |= DirectionUtils.bit(EnumFacing.SOUTH);
+		}
+		return sides;
+	}
+
+	/**
+	 * @param side
+	 * @return whether the neighbour on that side is cached, rather than looked up every time
+	 */
+	protected boolean isNeighbourKnown(EnumFacing side)
+	{
+		return (neighboursKnown & (1 << side.ordinal())) != 0;
+	}
+
+	/**
+	 * Get the tile entity next to this pipe, from the cache if it is still current.
+	 * @param side
+	 * @return the tile, or null if there is none
+	 */
+	protected TileEntity getNeighbour(EnumFacing side)
+	{
+		return neighbours[lookUpNeighbour(side)];
+	}
+
+	/**
+	 * @param side
+	 * @return the neighbour on that side as an inventory, or null if it isn't one
+	 */
+	protected IInventory getNeighbourInventory(EnumFacing side)
+	{
+		int index = lookUpNeighbour(side);
+		return (neighbourKinds[index] & INVENTORY) != 0 ? (IInventory) neighbours[index] : null;
+	}
+
+	/**
+	 * @param side
+	 * @return the neighbour on that side as a sided inventory, or null if it isn't one
+	 */
+	protected ISidedInventory getNeighbourSidedInventory(EnumFacing side)
+	{
+		int index = lookUpNeighbour(side);
+		return (neighbourKinds[index] & SIDED_INVENTORY) != 0 ? (ISidedInventory) neighbours[index] : null;
+	}
+
+	/**
+	 * @param side
+	 * @return the neighbour on that side as a fluid handler, or null if it isn't one
+	 */
+	protected IFluidHandler getNeighbourFluidHandler(EnumFacing side)
+	{
+		int index = lookUpNeighbour(side);
+		return (neighbourKinds[index] & FLUID_HANDLER) != 0 ? (IFluidHandler) neighbours[index] : null;
+	}
+
+	/**
+	 * @param side
+	 * @return the transport of the power pipe on that side, or null if there isn't one
+	 */
+	protected PipeTransportPower getNeighbourPowerTransport(EnumFacing side)
+	{
+		int index = lookUpNeighbour(side);
+		return (neighbourKinds[index] & POWER_PIPE) != 0 ? (PipeTransportPower) ((TileGenericPipe) neighbours[index]).pipe.transport : null;
+	}
 	
 	@Override
 	public IIconProvider getIconProvider()
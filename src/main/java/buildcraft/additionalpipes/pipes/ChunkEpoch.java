@@ -0,0 +1,42 @@
+package buildcraft.additionalpipes.pipes;
+
+import net.minecraftforge.event.world.ChunkEvent;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+
+/**
+ * Counts chunks loading and unloading on the server, so pipes can tell cheaply whether a neighbour they cached in
+ * another chunk might have come or gone.
+ *
+ * In 1.8 tiles in a chunk that unloads are never invalidated, so isInvalid() can't tell.  Any chunk loading or unloading
+ * moves the epoch on, which is coarse, but comparing two ints is all a pipe has to do on every read.
+ * Only the server thread uses this, so nothing here is synchronized.
+ */
+public class ChunkEpoch
+{
+	public static final ChunkEpoch instance = new ChunkEpoch();
+
+	private int epoch;
+
+	public int get()
+	{
+		return epoch;
+	}
+
+	@SubscribeEvent
+	public void onChunkLoad(ChunkEvent.Load event)
+	{
+		if(!event.world.isRemote)
+		{
+			++epoch;
+		}
+	}
+
+	@SubscribeEvent
+	public void onChunkUnload(ChunkEvent.Unload event)
+	{
+		if(!event.world.isRemote)
+		{
+			++epoch;
+		}
+	}
+}
@@ -12,8 +12,9 @@ import java.util.LinkedList;
 
 import net.minecraft.inventory.IInventory;
 import net.minecraft.item.Item;
-import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.EnumFacing;
+import buildcraft.additionalpipes.metrics.APProfiler;
+import buildcraft.additionalpipes.metrics.APProfiler.Section;
 import buildcraft.additionalpipes.utils.InventoryUtils;
 import buildcraft.core.lib.inventory.ITransactor;
 import buildcraft.core.lib.inventory.Transactor;
@@ -35,6 +36,19 @@ public class PipeItemsAddition extends APPipe<PipeTransportItems>
 	}
 	
 	public void eventHandler(PipeEventItem.FindDest event)
+	{
+		long start = APProfiler.start(container);
+		try
+		{
+			findDestinations(event);
+		}
+		finally
+		{
+			APProfiler.end(Section.ROUTING, start, container);
+		}
+	}
+
+	private void findDestinations(PipeEventItem.FindDest event)
 	{
 		LinkedList<EnumFacing> newOris = new LinkedList<EnumFacing>();
 
@@ -46,14 +60,12 @@ public class PipeItemsAddition extends APPipe<PipeTransportItems>
 			//I don't know what the equivalent to the Position argument to filterPossibleMovements() is in the new eventHandler system
 			//if(orientation != pos.orientation.getOpposite())
 			{
-				TileEntity entity = container.getTile(orientation);
-				if (entity instanceof IInventory)
+				IInventory inventory = getNeighbourInventory(orientation);
+				if (inventory != null)
 				{
-					IInventory inventory = (IInventory)entity;
-					
 					if(InventoryUtils.containsItem(true, false, event.item.getItemStack(), inventory))
 					{
-						ITransactor transactor = Transactor.getTransactorFor(entity, orientation.getOpposite());
+						ITransactor transactor = Transactor.getTransactorFor(inventory, orientation.getOpposite());
 						if (transactor.add(event.item.getItemStack(), false).stackSize > 0)
 						{
 							newOris.add(orientation);
@@ -12,8 +12,9 @@ import java.util.LinkedList;
 
 import net.minecraft.inventory.IInventory;
 import net.minecraft.item.Item;
-import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.EnumFacing;
+import buildcraft.additionalpipes.metrics.APProfiler;
+import buildcraft.additionalpipes.metrics.APProfiler.Section;
 import buildcraft.core.lib.inventory.ITransactor;
 import buildcraft.core.lib.inventory.Transactor;
 import buildcraft.transport.PipeTransportItems;
@@ -29,6 +30,19 @@ public class PipeItemsAdvancedInsertion extends APPipe<PipeTransportItems> {
 	}
 	
 	public void eventHandler(PipeEventItem.FindDest event)
+	{
+		long start = APProfiler.start(container);
+		try
+		{
+			findDestinations(event);
+		}
+		finally
+		{
+			APProfiler.end(Section.ROUTING, start, container);
+		}
+	}
+
+	private void findDestinations(PipeEventItem.FindDest event)
 	{
 		LinkedList<EnumFacing> newOris = new LinkedList<EnumFacing>();
 
@@ -36,14 +50,14 @@ public class PipeItemsAdvancedInsertion extends APPipe<PipeTransportItems> {
 		{
 			EnumFacing orientation = EnumFacing.values()[o];
 			
-			TileEntity entity = container.getTile(orientation);
-			if (entity instanceof IInventory)
+			IInventory inventory = getNeighbourInventory(orientation);
+			if (inventory != null)
 			{
 				if (event.item.output == orientation.getOpposite())
 				{
 					// continue;
 				}
-				ITransactor transactor = Transactor.getTransactorFor(entity, orientation.getOpposite());
+				ITransactor transactor = Transactor.getTransactorFor(inventory, orientation.getOpposite());
 				if (transactor.add(event.item.getItemStack(), false).stackSize > 0)
 				{
 					newOris.add(orientation);
@@ -20,79 +20,130 @@ import net.minecraft.util.MathHelper;
 import buildcraft.additionalpipes.APConfiguration;
 import buildcraft.additionalpipes.AdditionalPipes;
 import buildcraft.additionalpipes.gui.GuiHandler;
+import buildcraft.additionalpipes.metrics.APProfiler.Section;
+import buildcraft.additionalpipes.metrics.TickBudget;
+import buildcraft.additionalpipes.utils.TimerWheel;
 import buildcraft.api.tools.IToolWrench;
 import buildcraft.core.lib.RFBattery;
 import buildcraft.core.lib.inventory.InvUtils;
 import buildcraft.core.lib.utils.Utils;
 import cofh.api.energy.IEnergyReceiver;
 
-public class PipeItemsAdvancedWood extends APPipe<PipeTransportAdvancedWood> implements IEnergyReceiver
+public class PipeItemsAdvancedWood extends APPipe<PipeTransportAdvancedWood> implements IEnergyReceiver, TickBudget.Deferrable, TimerWheel.Task
 {
 	
 	protected RFBattery battery = new RFBattery(640, 640, 0);
 	
 	public final PipeTransportAdvancedWood transport;
 	
-	private int ticksSincePull = 0;
+	// wakes the pipe when its next pull is due.  Only scheduled while it has energy to pull with.
+	private final TimerWheel.Timer pullTimer = new TimerWheel.Timer(this);
+
+	// TimerWheel time of the last pull
+	private long lastPull = Long.MIN_VALUE / 2;
 
 	public PipeItemsAdvancedWood(Item item) {
 		super(new PipeTransportAdvancedWood(), item);
 		transport = (PipeTransportAdvancedWood) super.transport;
 	}
 	
-	private boolean shouldTick() {
-		if (battery.getEnergyStored() >= 64 * 10) {
-			return true;
-		} else {
-			return ticksSincePull >= 16 && battery.getEnergyStored() >= 10;
+	/**
+	 * Wake up when the next pull is due: straight away with a full battery, otherwise 16 ticks after the last one.
+	 * Stays asleep until energy arrives if there isn't enough for a pull.
+	 */
+	private void schedulePull()
+	{
+		if(getWorld() == null || getWorld().isRemote || container.getBlockMetadata() > 5)
+		{
+			return;
+		}
+
+		if(battery.getEnergyStored() >= 64 * 10)
+		{
+			TimerWheel.instance.scheduleNoLater(pullTimer, 1);
+		}
+		else if(battery.getEnergyStored() >= 10)
+		{
+			TimerWheel.instance.scheduleNoLater(pullTimer, lastPull + 16 - TimerWheel.instance.getTime());
 		}
 	}
-	
+
 	@Override
-	public void updateEntity()
+	public void onTimer()
 	{
-		super.updateEntity();
-
-		if(container.getWorld().isRemote)
+		if(container == null || container.isInvalid())
 		{
 			return;
 		}
-		
-		ticksSincePull++;
 
-		if(shouldTick())
-		{
-			
-			int meta = container.getBlockMetadata();
+		lastPull = TimerWheel.instance.getTime();
+		TickBudget.instance.run(this);
+		schedulePull();
+	}
 
-			if(meta > 5)
-			{
-				return;
-			}
-	        EnumFacing side = EnumFacing.getFront(meta);
-				
-	        TileEntity tile = container.getTile(side);
+	@Override
+	public void onNeighborBlockChange(int blockId)
+	{
+		super.onNeighborBlockChange(blockId);
+		schedulePull();
+	}
 
+	@Override
+	public void invalidate()
+	{
+		super.invalidate();
+		TimerWheel.instance.cancel(pullTimer);
+	}
 
-			
-			ticksSincePull = 0;
+	@Override
+	public void onChunkUnload()
+	{
+		super.onChunkUnload();
+		TimerWheel.instance.cancel(pullTimer);
+	}
 
-			if(tile instanceof IInventory)
-			{
-					
-				IInventory inventory = (IInventory) tile;
+	@Override
+	public void runDeferredWork()
+	{
+		if(container == null || container.isInvalid())
+		{
+			return;
+		}
 
-				ItemStack extracted = checkExtract(inventory, true, EnumFacing.values()[meta].getOpposite());
+		//the pipe may have been turned while the pull waited
+		int meta = container.getBlockMetadata();
+		if(meta > 5)
+		{
+			return;
+		}
 
-				if(extracted == null || extracted.stackSize == 0) {
-					return;
-				}
+		EnumFacing side = EnumFacing.getFront(meta);
+		IInventory inventory = getNeighbourInventory(side);
+
+		if(inventory != null)
+		{
+			ItemStack extracted = checkExtract(inventory, true, EnumFacing.values()[meta].getOpposite());
 
-                injectItem(extracted, side);
+			if(extracted == null || extracted.stackSize == 0) {
+				return;
 			}
 
-			battery.setEnergy(0);
+			injectItem(extracted, side);
 		}
+
+		battery.setEnergy(0);
+	}
+
+	@Override
+	public Section getBudgetSection()
+	{
+		return Section.ADVANCED_WOOD;
+	}
+
+	@Override
+	public TileEntity getBudgetTile()
+	{
+		return container;
 	}
 
 	public ItemStack checkExtract(IInventory inventory, boolean doRemove, EnumFacing from) {
@@ -196,6 +247,7 @@ public class PipeItemsAdvancedWood extends APPipe<PipeTransportAdvancedWood> imp
 		if(equipped instanceof IToolWrench && ((IToolWrench) equipped).canWrench(entityplayer, container.getPos())) {
 			((PipeTransportAdvancedWood) transport).switchSource();
 			((IToolWrench) equipped).wrenchUsed(entityplayer, container.getPos());
+			schedulePull();
 			return true;
 		}
 		if(APConfiguration.filterRightclicks && AdditionalPipes.isPipe(equipped))
@@ -236,7 +288,12 @@ public class PipeItemsAdvancedWood extends APPipe<PipeTransportAdvancedWood> imp
 	@Override
 	public int receiveEnergy(EnumFacing from, int maxReceive, boolean simulate)
 	{
-		return battery.receiveEnergy(maxReceive, simulate);
+		int received = battery.receiveEnergy(maxReceive, simulate);
+		if(!simulate && received > 0)
+		{
+			schedulePull();
+		}
+		return received;
 	}
 
 }
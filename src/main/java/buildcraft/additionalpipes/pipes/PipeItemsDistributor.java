@@ -18,6 +18,8 @@ import net.minecraft.util.EnumFacing;
 import buildcraft.additionalpipes.APConfiguration;
 import buildcraft.additionalpipes.AdditionalPipes;
 import buildcraft.additionalpipes.gui.GuiHandler;
+import buildcraft.additionalpipes.metrics.APProfiler;
+import buildcraft.additionalpipes.metrics.APProfiler.Section;
 import buildcraft.transport.PipeTransportItems;
 import buildcraft.transport.pipes.events.PipeEventItem;
 
@@ -57,6 +59,19 @@ public class PipeItemsDistributor extends APPipe<PipeTransportItems> {
 	}
 	
 	public void eventHandler(PipeEventItem.FindDest event)
+	{
+		long start = APProfiler.start(container);
+		try
+		{
+			findDestinations(event);
+		}
+		finally
+		{
+			APProfiler.end(Section.ROUTING, start, container);
+		}
+	}
+
+	private void findDestinations(PipeEventItem.FindDest event)
 	{
 		LinkedList<EnumFacing> result = new LinkedList<EnumFacing>();
 
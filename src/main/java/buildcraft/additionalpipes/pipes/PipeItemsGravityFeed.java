@@ -6,62 +6,118 @@ import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.EnumFacing;
-import net.minecraft.world.World;
 import buildcraft.additionalpipes.APConfiguration;
+import buildcraft.additionalpipes.metrics.APProfiler.Section;
+import buildcraft.additionalpipes.metrics.TickBudget;
+import buildcraft.additionalpipes.utils.TimerWheel;
 import buildcraft.core.lib.inventory.InvUtils;
 import buildcraft.core.lib.utils.Utils;
 import buildcraft.transport.PipeTransportItems;
 
-public class PipeItemsGravityFeed extends APPipe<PipeTransportItems>
+public class PipeItemsGravityFeed extends APPipe<PipeTransportItems> implements TickBudget.Deferrable, TimerWheel.Task
 {
-			
-	private int ticksSincePull = 0;
+	// wakes the pipe when its next pull is due.  Only scheduled while there is an inventory above.
+	private final TimerWheel.Timer pullTimer = new TimerWheel.Timer(this);
+
+	// TimerWheel time of the last pull
+	private long lastPull = Long.MIN_VALUE / 2;
 
 	public PipeItemsGravityFeed(Item item) {
 		super(new PipeTransportItems(), item);
 	}
-	
-	private boolean shouldTick() {
-		return ticksSincePull >= APConfiguration.gravityFeedPipeTicksPerPull;
+
+	@Override
+	public void initialize()
+	{
+		super.initialize();
+		schedulePull();
 	}
-	
+
 	@Override
-	public void updateEntity()
+	public void onNeighborBlockChange(int blockId)
 	{
-		super.updateEntity();
+		super.onNeighborBlockChange(blockId);
+
+		//an inventory may have been put above
+		schedulePull();
+	}
 
-		if(container.getWorld().isRemote)
+	@Override
+	public void invalidate()
+	{
+		super.invalidate();
+		TimerWheel.instance.cancel(pullTimer);
+	}
+
+	@Override
+	public void onChunkUnload()
+	{
+		super.onChunkUnload();
+		TimerWheel.instance.cancel(pullTimer);
+	}
+
+	/**
+	 * Wake up when the next pull is due, if there is an inventory to pull from.
+	 */
+	private void schedulePull()
+	{
+		if(getWorld() == null || getWorld().isRemote || pullTimer.isScheduled() || getNeighbourInventory(EnumFacing.UP) == null)
 		{
 			return;
 		}
-		
-		ticksSincePull++;
 
-		if(shouldTick())
+		long sinceLastPull = TimerWheel.instance.getTime() - lastPull;
+		TimerWheel.instance.schedule(pullTimer, APConfiguration.gravityFeedPipeTicksPerPull - sinceLastPull);
+	}
+
+	@Override
+	public void onTimer()
+	{
+		if(container == null || container.isInvalid())
 		{
-			
-			World w = getWorld();
-			TileEntity tile = w.getTileEntity(container.getPos().up());
-			ticksSincePull = 0;
+			return;
+		}
 
-			if(tile instanceof IInventory)
-			{
-					
-				IInventory inventory = (IInventory) tile;
+		lastPull = TimerWheel.instance.getTime();
+		TickBudget.instance.run(this);
+		schedulePull();
+	}
+
+	@Override
+	public void runDeferredWork()
+	{
+		if(container == null || container.isInvalid())
+		{
+			return;
+		}
 
-				ItemStack extracted = removeItem(inventory, true, EnumFacing.DOWN);
+		IInventory inventory = getNeighbourInventory(EnumFacing.UP);
 
-				if(extracted == null || extracted.stackSize == 0)
-				{
-					return;
-				}
-				
-				injectItem(extracted, EnumFacing.UP);
-			}
+		if(inventory != null)
+		{
+			ItemStack extracted = removeItem(inventory, true, EnumFacing.DOWN);
 
+			if(extracted == null || extracted.stackSize == 0)
+			{
+				return;
+			}
+			
+			injectItem(extracted, EnumFacing.UP);
 		}
 	}
 
+	@Override
+	public Section getBudgetSection()
+	{
+		return Section.GRAVITY_FEED;
+	}
+
+	@Override
+	public TileEntity getBudgetTile()
+	{
+		return container;
+	}
+
 	public ItemStack removeItem(IInventory inventory, boolean doRemove, EnumFacing from) {
 		IInventory inv = InvUtils.getInventory(inventory);
 		int first = 0;
@@ -22,6 +22,8 @@ import buildcraft.additionalpipes.APConfiguration;
 import buildcraft.additionalpipes.AdditionalPipes;
 import buildcraft.additionalpipes.gui.GuiHandler;
 import buildcraft.additionalpipes.gui.GuiJeweledPipe;
+import buildcraft.additionalpipes.metrics.APProfiler;
+import buildcraft.additionalpipes.metrics.APProfiler.Section;
 import buildcraft.api.tiles.IDebuggable;
 import buildcraft.core.lib.inventory.InvUtils;
 import buildcraft.transport.PipeTransportItems;
@@ -65,8 +67,21 @@ public class PipeItemsJeweled extends APPipe<PipeTransportItems> implements IDeb
 		}
 	}
 	
-	//adapted from Diamond Pipe code
 	public void eventHandler(PipeEventItem.FindDest event)
+	{
+		long start = APProfiler.start(container);
+		try
+		{
+			findDestinations(event);
+		}
+		finally
+		{
+			APProfiler.end(Section.ROUTING, start, container);
+		}
+	}
+
+	//adapted from Diamond Pipe code
+	private void findDestinations(PipeEventItem.FindDest event)
 	{
 		LinkedList<EnumFacing> filteredOrientations = new LinkedList<EnumFacing>();
 		LinkedList<EnumFacing> defaultOrientations = new LinkedList<EnumFacing>();
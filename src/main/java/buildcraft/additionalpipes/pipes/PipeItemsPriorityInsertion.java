@@ -14,12 +14,13 @@ import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.inventory.IInventory;
 import net.minecraft.item.Item;
 import net.minecraft.nbt.NBTTagCompound;
-import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.BlockPos;
 import net.minecraft.util.EnumFacing;
 import buildcraft.additionalpipes.APConfiguration;
 import buildcraft.additionalpipes.AdditionalPipes;
 import buildcraft.additionalpipes.gui.GuiHandler;
+import buildcraft.additionalpipes.metrics.APProfiler;
+import buildcraft.additionalpipes.metrics.APProfiler.Section;
 import buildcraft.core.lib.inventory.ITransactor;
 import buildcraft.core.lib.inventory.Transactor;
 import buildcraft.transport.PipeTransportItems;
@@ -59,6 +60,19 @@ public class PipeItemsPriorityInsertion extends APPipe<PipeTransportItems> {
 	}
 	
 	public void eventHandler(PipeEventItem.FindDest event)
+	{
+		long start = APProfiler.start(container);
+		try
+		{
+			findDestinations(event);
+		}
+		finally
+		{
+			APProfiler.end(Section.ROUTING, start, container);
+		}
+	}
+
+	private void findDestinations(PipeEventItem.FindDest event)
 	{
 		ArrayList<EnumFacing> result = new ArrayList<EnumFacing>();
 
@@ -70,10 +84,10 @@ public class PipeItemsPriorityInsertion extends APPipe<PipeTransportItems> {
 			{
 				if(sidePriorities[side.ordinal()] == checkingPriority)
 				{
-					TileEntity entity = container.getTile(side);
-					if (entity instanceof IInventory)
+					IInventory inventory = getNeighbourInventory(side);
+					if (inventory != null)
 					{
-						ITransactor transactor = Transactor.getTransactorFor(entity, side.getOpposite());
+						ITransactor transactor = Transactor.getTransactorFor(inventory, side.getOpposite());
 						if (transactor.add(event.item.getItemStack(), true).stackSize > 0)
 						{
 							result.add(side);
@@ -8,94 +8,249 @@
 
 package buildcraft.additionalpipes.pipes;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
-import java.util.List;
 
 import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
 import net.minecraft.util.EnumFacing;
+import buildcraft.additionalpipes.APConfiguration;
 import buildcraft.additionalpipes.api.PipeType;
+import buildcraft.additionalpipes.metrics.APProfiler;
+import buildcraft.additionalpipes.metrics.APProfiler.Section;
+import buildcraft.additionalpipes.metrics.TeleportMetrics.Counter;
+import buildcraft.additionalpipes.metrics.TeleportTrace.Event;
 import buildcraft.additionalpipes.utils.Log;
+import buildcraft.additionalpipes.utils.Log.Category;
 import buildcraft.transport.PipeTransportItems;
 import buildcraft.transport.pipes.events.PipeEventItem;
 
 public class PipeItemsTeleport extends PipeTeleport<PipeTransportItems> {
 	private static final int ICON = 0;
 
+	// reused for every item, so teleporting doesn't allocate a list each time
+	private final ArrayList<PipeItemsTeleport> receivers = new ArrayList<PipeItemsTeleport>();
+
+	// stacks received while every output was blocked, sent on one a tick once an output opens
+	private final LinkedList<ItemStack> buffer = new LinkedList<ItemStack>();
+
 	public PipeItemsTeleport(Item items) {
 		super(new PipeTransportItems(), items, PipeType.ITEMS);
 	}
 	
 	public void eventHandler(PipeEventItem.Entered event)
+	{
+		long start = APProfiler.start(container);
+		try
+		{
+			teleportItem(event);
+		}
+		finally
+		{
+			APProfiler.end(Section.ITEM_TELEPORT, start, container);
+		}
+	}
+
+	private void teleportItem(PipeEventItem.Entered event)
 	{
 		if(getWorld().isRemote) 
 		{
 			return;
 		}
 		
-		List<PipeItemsTeleport> connectedTeleportPipes = TeleportManager.instance.getConnectedPipes(this, false, true);
+		if((state & 0x1) == 0) {
+			return;
+		}
+		
+		TeleportManager.instance.getConnectedPipes(this, false, true, receivers);
 		
 		// no teleport pipes connected, use default
-		if(connectedTeleportPipes.size() <= 0 || (state & 0x1) == 0) {
+		if(receivers.size() <= 0) {
+			if(queueForUnloadedDimension(event)) {
+				return;
+			}
+			recordTeleport(Counter.FAILED_SENDS, 1);
+			trace(Event.NO_RECEIVER, null, 0);
+			loadDormantReceivers();
 			return;
 		}
 
-		// output to random pipe
-		LinkedList<EnumFacing> outputOrientations = new LinkedList<EnumFacing>();
-		PipeTeleport<?> otherPipe;
-		
-		int originalPipeNumber = rand.nextInt(connectedTeleportPipes.size());
-		int currentPipeNumber = originalPipeNumber;
-		
-		boolean found = false;
-		int numberOfTries = 0;
+		// output to a random pipe with something connected to it
+		int firstIndex = rand.nextInt(receivers.size());
+		PipeItemsTeleport otherPipe = findReceiverWithOutput(receivers, firstIndex);
+
+		// every receiver is blocked, so hold on to the item in one with room in its buffer
+		PipeItemsTeleport bufferedIn = otherPipe == null ? bufferInReceiver(event.item.getItemStack(), firstIndex) : null;
 		
-		// find a pipe with something connected to it
-		// The logic for this is... pretty complicated, actually.
-		do
+		// the item may come back through this pipe, which reuses the list
+		receivers.clear();
+
+		if(bufferedIn != null)
 		{
-			++numberOfTries;
-			otherPipe = connectedTeleportPipes.get(currentPipeNumber);
-			
-			for(EnumFacing o : EnumFacing.values())
-			{
-				if(otherPipe.outputOpen(o))
-				{
-					outputOrientations.add(o);
-				}
-			}
-			
-			// no outputs found, try again
-			if(outputOrientations.size() <= 0) 
-			{
-				++currentPipeNumber;
-				
-				//loop back to the start
-				if(currentPipeNumber >= connectedTeleportPipes.size())
-				{
-					currentPipeNumber = 0;
-				}
-			}
-			else
-			{
-				found = true;
-			}
+			recordTeleport(Counter.ITEMS, event.item.getItemStack().stackSize);
+			trace(Event.BUFFERED, bufferedIn, event.item.getItemStack().stackSize);
+			event.cancelled = true;
+			return;
 		}
-		while(numberOfTries < connectedTeleportPipes.size() && !found);
+
+		//the receiver always has an open output here, but check in case its outputs just changed
+		EnumFacing newOrientation = otherPipe == null ? null : otherPipe.getNextOutputOrientation();
 
 		//couldn't find any, so give up
-		if(!found)
+		if(newOrientation == null)
 		{
+			recordTeleport(Counter.FAILED_SENDS, 1);
+			trace(Event.NO_RECEIVER, null, 0);
+			loadDormantReceivers();
 			return;
 		}
 		
 		//can no longer set position of TravelingItems as of BC 7.2, so we have to make a new one
 		
-		EnumFacing newOrientation = otherPipe.getOpenOrientation();
-		
 		otherPipe.injectItemAtCenter(event.item.getItemStack(), newOrientation);		
+		TeleportManager.instance.renewReceiverLease(otherPipe);
+		recordTeleport(Counter.ITEMS, event.item.getItemStack().stackSize);
+		trace(Event.SENT, otherPipe, event.item.getItemStack().stackSize);
+
+		if(Log.isDebugEnabled(Category.TELEPORT))
+		{
+			Log.debug(Category.TELEPORT, event.item + " from " + getPosition() + " to " + otherPipe.getPosition() + ": " + newOrientation.getName2());
+		}
+		event.cancelled = true;
+	}
+
+	/**
+	 * @return the receiver that took the stack, or null if none had room
+	 */
+	private PipeItemsTeleport bufferInReceiver(ItemStack stack, int firstIndex)
+	{
+		for(int count = 0; count < receivers.size(); ++count)
+		{
+			PipeItemsTeleport receiver = receivers.get((firstIndex + count) % receivers.size());
+			if(receiver.bufferItems(stack.copy()))
+			{
+				return receiver;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Hold on to a stack until one of this pipe's outputs opens.
+	 * @param stack
+	 * @return whether there was room for it
+	 */
+	public boolean bufferItems(ItemStack stack)
+	{
+		if(!canReceive() || buffer.size() >= APConfiguration.teleportReceiverBufferSize)
+		{
+			return false;
+		}
+
+		buffer.add(stack);
+		return true;
+	}
+
+	@Override
+	public float getBufferFill()
+	{
+		return APConfiguration.teleportReceiverBufferSize <= 0 ? 0 : Math.min(1, buffer.size() / (float) APConfiguration.teleportReceiverBufferSize);
+	}
+
+	@Override
+	protected boolean hasBufferedTraffic()
+	{
+		return !buffer.isEmpty();
+	}
+
+	@Override
+	protected void drainBuffer()
+	{
+		EnumFacing orientation = getNextOutputOrientation();
+		if(orientation != null)
+		{
+			injectItemAtCenter(buffer.removeFirst(), orientation);
+		}
+	}
+
+	@Override
+	public void dropContents()
+	{
+		super.dropContents();
+		for(ItemStack stack : buffer)
+		{
+			dropItem(stack);
+		}
+		buffer.clear();
+	}
+
+	@Override
+	public void writeToNBT(NBTTagCompound nbt)
+	{
+		super.writeToNBT(nbt);
+		NBTTagList bufferList = new NBTTagList();
+		for(ItemStack stack : buffer)
+		{
+			bufferList.appendTag(stack.writeToNBT(new NBTTagCompound()));
+		}
+		nbt.setTag("buffer", bufferList);
+	}
 
-		Log.debug(event.item + " from " + getPosition() + " to " + otherPipe.getPosition() + ": " + newOrientation.getName2());
+	@Override
+	public void readFromNBT(NBTTagCompound nbt)
+	{
+		super.readFromNBT(nbt);
+		buffer.clear();
+		NBTTagList bufferList = nbt.getTagList("buffer", 10);
+		for(int index = 0; index < bufferList.tagCount(); ++index)
+		{
+			ItemStack stack = ItemStack.loadItemStackFromNBT(bufferList.getCompoundTagAt(index));
+			if(stack != null)
+			{
+				buffer.add(stack);
+			}
+		}
+	}
+
+	/**
+	 * Queue the item if every receiver it could go to is in an unloaded dimension.
+	 * @param event
+	 * @return whether the item was queued
+	 */
+	private boolean queueForUnloadedDimension(PipeEventItem.Entered event)
+	{
+		if(!TeleportManager.instance.shouldQueueFor(this))
+		{
+			return false;
+		}
+
+		TeleportQueueData queue = TeleportManager.instance.getQueueData();
+		if(queue == null || !queue.offerItems(this, event.item.getItemStack().copy()))
+		{
+			return false;
+		}
+
+		trace(Event.QUEUED, null, event.item.getItemStack().stackSize);
 		event.cancelled = true;
+		return true;
+	}
+
+	@Override
+	protected void deliverQueued(TeleportQueueData queue, TeleportQueueData.Entry entry)
+	{
+		EnumFacing orientation = getNextOutputOrientation();
+		if(entry.stack == null || orientation == null)
+		{
+			return;
+		}
+
+		injectItemAtCenter(entry.stack.copy(), orientation);
+		queue.delivered(this, entry, entry.stack.stackSize);
+		recordTeleport(Counter.ITEMS, entry.stack.stackSize);
+		trace(Event.DELIVERED, null, entry.stack.stackSize);
 	}
 
 	@Override
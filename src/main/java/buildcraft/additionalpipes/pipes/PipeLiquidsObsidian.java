@@ -3,7 +3,11 @@ package buildcraft.additionalpipes.pipes;
 import java.util.Arrays;
 import java.util.List;
 
+import buildcraft.additionalpipes.metrics.APProfiler;
+import buildcraft.additionalpipes.metrics.APProfiler.Section;
+import buildcraft.additionalpipes.metrics.TickBudget;
 import buildcraft.additionalpipes.utils.Log;
+import buildcraft.additionalpipes.utils.Log.Category;
 import buildcraft.core.lib.RFBattery;
 import buildcraft.core.lib.utils.Utils;
 import buildcraft.core.proxy.CoreProxy;
@@ -17,6 +21,7 @@ import net.minecraft.entity.item.EntityItem;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.AxisAlignedBB;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.Vec3;
@@ -25,7 +30,7 @@ import net.minecraftforge.fluids.FluidContainerRegistry;
 import net.minecraftforge.fluids.FluidStack;
 import net.minecraftforge.fluids.IFluidContainerItem;
 
-public class PipeLiquidsObsidian extends APPipe<PipeTransportFluids> implements IEnergyHandler 
+public class PipeLiquidsObsidian extends APPipe<PipeTransportFluids> implements IEnergyHandler, TickBudget.Deferrable 
 {
 	// 		return battery.receiveEnergy(maxReceive, simulate);
 
@@ -143,7 +148,26 @@ public class PipeLiquidsObsidian extends APPipe<PipeTransportFluids> implements
 	public void updateEntity ()
 	{
 		super.updateEntity();
+
+		//nothing to empty and no energy to suck with, which is most of the time
+		if(fluidInItem == null && battery.getEnergyStored() <= 0)
+		{
+			return;
+		}
 		
+		long start = APProfiler.start(container);
+		try
+		{
+			updateBufferAndSuck();
+		}
+		finally
+		{
+			APProfiler.end(Section.OBSIDIAN_PIPE, start, container);
+		}
+	}
+
+	private void updateBufferAndSuck()
+	{
 		//empty the fluid buffer, if it exists
 		if(fluidInItem != null)
 		{
@@ -169,21 +193,44 @@ public class PipeLiquidsObsidian extends APPipe<PipeTransportFluids> implements
 				currentItem = null;
 			}
 		}
-		else
+		else if(!container.getWorld().isRemote)
 		{
-			//suck in a new item
-			if (battery.getEnergyStored() > 0) {
-				for (int j = 1; j < 5; ++j) {
-					if (suckItem(j)) {
-						return;
-					}
-				}
+			//scanning for items is the expensive part, so it can wait for a tick with time to spare
+			TickBudget.instance.run(this);
+		}
+	}
+
+	@Override
+	public void runDeferredWork()
+	{
+		if(container == null || container.isInvalid() || fluidInItem != null)
+		{
+			return;
+		}
 
+		//suck in a new item
+		if (battery.getEnergyStored() > 0) {
+			for (int j = 1; j < 5; ++j) {
+				if (suckItem(j)) {
+					return;
+				}
 			}
-			
-			battery.useEnergy(0, 5, false);
 
 		}
+		
+		battery.useEnergy(0, 5, false);
+	}
+
+	@Override
+	public Section getBudgetSection()
+	{
+		return Section.OBSIDIAN_SCAN;
+	}
+
+	@Override
+	public TileEntity getBudgetTile()
+	{
+		return container;
 	}
 
 	private boolean suckItem(int distance)
@@ -290,7 +337,7 @@ public class PipeLiquidsObsidian extends APPipe<PipeTransportFluids> implements
 		else
 		{
 		
-			Log.debug("Storing " + drainedLiquid.amount + "MB of fluid in buffer.");
+			Log.debug(Category.PIPES, "Storing %dMB of fluid in buffer.", drainedLiquid.amount);
 	
 			
 			//add liquid to buffer
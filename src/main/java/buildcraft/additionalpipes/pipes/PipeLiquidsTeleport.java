@@ -8,14 +8,22 @@
 
 package buildcraft.additionalpipes.pipes;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.util.ArrayList;
 
 import net.minecraft.item.Item;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.EnumFacing;
+import net.minecraftforge.fluids.FluidContainerRegistry;
 import net.minecraftforge.fluids.FluidStack;
 import net.minecraftforge.fluids.IFluidHandler;
+import buildcraft.additionalpipes.APConfiguration;
 import buildcraft.additionalpipes.api.PipeType;
+import buildcraft.additionalpipes.metrics.APProfiler;
+import buildcraft.additionalpipes.metrics.APProfiler.Section;
+import buildcraft.additionalpipes.metrics.TeleportMetrics.Counter;
+import buildcraft.additionalpipes.metrics.TeleportTrace.Event;
+import buildcraft.additionalpipes.utils.DirectionUtils;
 import buildcraft.transport.IPipeTransportFluidsHook;
 import buildcraft.transport.PipeTransportFluids;
 import buildcraft.transport.pipes.PipeFluidsDiamond;
@@ -23,6 +31,12 @@ import buildcraft.transport.pipes.PipeFluidsDiamond;
 public class PipeLiquidsTeleport extends PipeTeleport<PipeTransportFluids> implements IPipeTransportFluidsHook {
 	private static final int ICON = 2;
 
+	// filled by each fill() instead of allocating a new list
+	private final ArrayList<PipeLiquidsTeleport> receivers = new ArrayList<PipeLiquidsTeleport>();
+
+	// fluid received while every output was full, sent on as they empty
+	private FluidStack buffer;
+
 	public PipeLiquidsTeleport(Item item)
 	{
 		super(new PipeTransportFluids(), item, PipeType.FLUIDS);
@@ -32,43 +46,178 @@ public class PipeLiquidsTeleport extends PipeTeleport<PipeTransportFluids> imple
 	}
 
 	@Override
-	public int fill(EnumFacing from, FluidStack resource, boolean doFill) {
-		List<PipeLiquidsTeleport> pipeList = TeleportManager.instance.getConnectedPipes(this, false, true);
+	public int fill(EnumFacing from, FluidStack resource, boolean doFill)
+	{
+		long start = APProfiler.start(container);
+		try
+		{
+			return teleportFluid(resource, doFill);
+		}
+		finally
+		{
+			APProfiler.end(Section.FLUID_TELEPORT, start, container);
+		}
+	}
 
-		if(pipeList.size() == 0 || (state & 0x1) == 0) {
+	private int teleportFluid(FluidStack resource, boolean doFill) {
+		if((state & 0x1) == 0) {
 			return 0;
 		}
 
-		int i = getWorld().rand.nextInt(pipeList.size());
-		List<IFluidHandler> possibleMovements = getPossibleLiquidMovements(pipeList.get(i));
-
-		if(possibleMovements.size() <= 0) {
+		TeleportManager.instance.getConnectedPipes(this, false, true, receivers);
+
+		if(receivers.size() == 0) {
+			// hold on to it if the receivers are all in unloaded dimensions
+			if(TeleportManager.instance.shouldQueueFor(this)) {
+				TeleportQueueData queue = TeleportManager.instance.getQueueData();
+				int queued = queue == null ? 0 : queue.offerFluid(this, resource, doFill);
+				if(queued > 0) {
+					if(doFill) {
+						trace(Event.QUEUED, null, queued);
+					}
+					return queued;
+				}
+			}
+			if(doFill) {
+				recordTeleport(Counter.FAILED_SENDS, 1);
+				trace(Event.NO_RECEIVER, null, 0);
+			}
+			loadDormantReceivers();
 			return 0;
 		}
 
+		PipeLiquidsTeleport otherPipe = receivers.get(getWorld().rand.nextInt(receivers.size()));
+		receivers.clear();
+		int possibleMovements = otherPipe.getHandlerMask();
+
 		int used = 0;
-		while(possibleMovements.size() > 0 && used <= 0) {
-			int a = rand.nextInt(possibleMovements.size());
-			used = possibleMovements.get(a).fill(EnumFacing.UP, resource, doFill);
-			possibleMovements.remove(a);
+		while(possibleMovements != 0 && used <= 0) {
+			EnumFacing side = DirectionUtils.randomSide(possibleMovements, rand);
+			IFluidHandler handler = otherPipe.getNeighbourFluidHandler(side);
+			if(handler != null) {
+				used = handler.fill(EnumFacing.UP, resource, doFill);
+			}
+			possibleMovements &= ~DirectionUtils.bit(side);
+		}
+
+		// every output is blocked or full, so keep it in the receiver's buffer if there is room
+		boolean buffered = false;
+		if(used <= 0) {
+			used = otherPipe.bufferFluid(resource, doFill);
+			buffered = true;
+		}
+
+		if(doFill) {
+			if(used > 0) {
+				TeleportManager.instance.renewReceiverLease(otherPipe);
+				recordTeleport(Counter.FLUID, used);
+				trace(buffered ? Event.BUFFERED : Event.SENT, otherPipe, used);
+			} else {
+				recordTeleport(Counter.FAILED_SENDS, 1);
+				trace(Event.NO_RECEIVER, null, 0);
+			}
 		}
 
 		return used;
 	}
 
-	private static List<IFluidHandler> getPossibleLiquidMovements(PipeTeleport<?> pipe) {
-		List<IFluidHandler> result = new LinkedList<IFluidHandler>();
+	@Override
+	protected void deliverQueued(TeleportQueueData queue, TeleportQueueData.Entry entry) {
+		if(entry.fluid == null) {
+			return;
+		}
+
+		int possibleMovements = getHandlerMask();
+		while(possibleMovements != 0) {
+			EnumFacing side = DirectionUtils.randomSide(possibleMovements, rand);
+			IFluidHandler handler = getNeighbourFluidHandler(side);
+			if(handler != null) {
+				int used = handler.fill(side.getOpposite(), entry.fluid, true);
+				if(used > 0) {
+					queue.delivered(this, entry, used);
+					recordTeleport(Counter.FLUID, used);
+					trace(Event.DELIVERED, null, used);
+					return;
+				}
+			}
+			possibleMovements &= ~DirectionUtils.bit(side);
+		}
+	}
+
+	/**
+	 * Hold on to fluid until one of this pipe's outputs can take it.
+	 * @param resource
+	 * @param doFill
+	 * @return how much of the fluid there was room for
+	 */
+	public int bufferFluid(FluidStack resource, boolean doFill) {
+		if(!canReceive() || (buffer != null && !buffer.isFluidEqual(resource))) {
+			return 0;
+		}
+
+		int accepted = Math.min(resource.amount, getBufferCapacity() - (buffer == null ? 0 : buffer.amount));
+		if(accepted <= 0) {
+			return 0;
+		}
+
+		if(doFill) {
+			if(buffer == null) {
+				buffer = resource.copy();
+				buffer.amount = accepted;
+			} else {
+				buffer.amount += accepted;
+			}
+		}
+		return accepted;
+	}
+
+	private static int getBufferCapacity() {
+		return APConfiguration.teleportReceiverBufferSize * FluidContainerRegistry.BUCKET_VOLUME;
+	}
+
+	@Override
+	public float getBufferFill() {
+		return buffer == null || getBufferCapacity() <= 0 ? 0 : Math.min(1, buffer.amount / (float) getBufferCapacity());
+	}
+
+	@Override
+	protected boolean hasBufferedTraffic() {
+		return buffer != null;
+	}
 
-		for(EnumFacing o : EnumFacing.values()) {
-			if(pipe.outputOpen(o)) {
-				IFluidHandler te = (IFluidHandler) pipe.container.getTile(o);
-				if (te != null) {
-					result.add(te);
+	@Override
+	protected void drainBuffer() {
+		int possibleMovements = getHandlerMask();
+		while(possibleMovements != 0 && buffer != null) {
+			EnumFacing side = DirectionUtils.randomSide(possibleMovements, rand);
+			IFluidHandler handler = getNeighbourFluidHandler(side);
+			if(handler != null) {
+				buffer.amount -= handler.fill(side.getOpposite(), buffer, true);
+				if(buffer.amount <= 0) {
+					buffer = null;
 				}
 			}
+			possibleMovements &= ~DirectionUtils.bit(side);
 		}
+	}
 
-		return result;
+	@Override
+	public void writeToNBT(NBTTagCompound nbt) {
+		super.writeToNBT(nbt);
+		if(buffer != null) {
+			nbt.setTag("buffer", buffer.writeToNBT(new NBTTagCompound()));
+		}
+	}
+
+	@Override
+	public void readFromNBT(NBTTagCompound nbt) {
+		super.readFromNBT(nbt);
+		buffer = nbt.hasKey("buffer") ? FluidStack.loadFluidStackFromNBT(nbt.getCompoundTag("buffer")) : null;
+	}
+
+	@Override
+	protected boolean canHandOutputTo(EnumFacing side, TileEntity tile) {
+		return getNeighbourFluidHandler(side) != null;
 	}
 
 	@Override
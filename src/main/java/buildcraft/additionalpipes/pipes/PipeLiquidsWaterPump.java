@@ -14,6 +14,9 @@ public class PipeLiquidsWaterPump extends APPipe<PipeTransportFluids> {
 	private static final int ICON = 24;
 	private static final Block water = Blocks.water;
 
+	// whether the block below is water, checked again whenever a neighbour changes.  Only the server hears about neighbour changes.
+	private boolean overWater;
+
 	public PipeLiquidsWaterPump(Item item)
 	{
 		super(new PipeTransportFluids(), item);
@@ -22,11 +25,30 @@ public class PipeLiquidsWaterPump extends APPipe<PipeTransportFluids> {
 		transport.initFromPipe(getClass());
 	}
 
+	@Override
+	public void initialize()
+	{
+		super.initialize();
+		overWater = isOverWater();
+	}
+
+	@Override
+	public void onNeighborBlockChange(int blockId)
+	{
+		super.onNeighborBlockChange(blockId);
+		overWater = isOverWater();
+	}
+
+	private boolean isOverWater()
+	{
+		return getWorld().getBlockState(container.getPos().down()).getBlock() == water;
+	}
+
 	@Override
 	public void updateEntity() 
 	{
 		super.updateEntity();
-        if(getWorld().getBlockState(container.getPos().down()).getBlock() == water)
+        if(getWorld().isRemote ? isOverWater() : overWater)
 		{
 			transport.fill(EnumFacing.DOWN, new FluidStack(FluidRegistry.WATER, APConfiguration.waterPumpWaterPerTick), true);
 
@@ -8,8 +8,7 @@
 
 package buildcraft.additionalpipes.pipes;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.util.ArrayList;
 
 import net.minecraft.item.Item;
 import net.minecraft.tileentity.TileEntity;
@@ -17,24 +16,23 @@ import net.minecraft.util.EnumFacing;
 import net.minecraft.util.MathHelper;
 import buildcraft.additionalpipes.APConfiguration;
 import buildcraft.additionalpipes.api.PipeType;
+import buildcraft.additionalpipes.metrics.APProfiler;
+import buildcraft.additionalpipes.metrics.APProfiler.Section;
+import buildcraft.additionalpipes.metrics.TeleportMetrics.Counter;
+import buildcraft.additionalpipes.utils.DirectionUtils;
 import buildcraft.core.lib.utils.Utils;
 import buildcraft.transport.IPipeTransportPowerHook;
 import buildcraft.transport.PipeTransportPower;
-import buildcraft.transport.TileGenericPipe;
 import buildcraft.transport.pipes.PipePowerDiamond;
 
 public class PipePowerTeleport extends PipeTeleport<PipeTransportPower> implements IPipeTransportPowerHook {
 	private static final int ICON = 3;
 
-	private static class PowerRequest {
-		public final TileGenericPipe tile;
-		public final EnumFacing orientation;
-
-		public PowerRequest(TileGenericPipe te, EnumFacing o) {
-			tile = te;
-			orientation = o;
-		}
-	}
+	// scratch space for receiver lookups, and the sides of each receiver that need power.
+	// Taken while in use, since handing on power or a request can come back into this pipe through a teleport pipe
+	// next to a receiver, and that call needs its own.
+	private ArrayList<PipePowerTeleport> spareConnectedPipes = new ArrayList<PipePowerTeleport>();
+	private int[] spareNeedsPowerMasks = new int[8];
 
 	public PipePowerTeleport(Item item) {
 		super(new PipeTransportPower(), item, PipeType.POWER);
@@ -42,121 +40,179 @@ public class PipePowerTeleport extends PipeTeleport<PipeTransportPower> implemen
 	}
 
 	@Override
-	public int requestEnergy(EnumFacing from, int value ) {
-		int requested = 0;
-
-		if((state & 0x2) == 0) { // No need to waste CPU
-			return requested;
+	public int requestEnergy(EnumFacing from, int value)
+	{
+		long start = APProfiler.start(container);
+		try
+		{
+			return requestTeleportedEnergy(value);
+		}
+		finally
+		{
+			APProfiler.end(Section.POWER_TELEPORT_REQUEST, start, container);
 		}
+	}
 
-		List<PipePowerTeleport> pipeList = TeleportManager.instance.getConnectedPipes(this, true, false);
+	private int requestTeleportedEnergy(int value) {
+		int requested = 0;
 
-		if(pipeList.size() <= 0) {
+		if((state & 0x2) == 0) { // No need to waste CPU
 			return requested;
 		}
 
-		for(PipeTeleport<?> pipe : pipeList) {
-			LinkedList<EnumFacing> possibleMovements = getRealPossibleMovements(pipe);
-			for(EnumFacing orientation : possibleMovements) {
-				TileEntity tile = pipe.container.getTile(orientation);
-				if(tile instanceof TileGenericPipe) {
-					TileGenericPipe adjacentTile = (TileGenericPipe) tile;
-					PipeTransportPower nearbyTransport = (PipeTransportPower) adjacentTile.pipe.transport;
-					nearbyTransport.requestEnergy(orientation.getOpposite(), value);
-					//TODO does this work??
-					requested += nearbyTransport.nextPowerQuery[orientation.getOpposite().ordinal()];
+		ArrayList<PipePowerTeleport> connectedPipes = takeConnectedPipes();
+		try {
+			TeleportManager.instance.getConnectedPipes(this, true, false, connectedPipes);
+
+			for(int index = 0; index < connectedPipes.size(); ++index) {
+				PipeTeleport<?> pipe = connectedPipes.get(index);
+				int possibleMovements = pipe.getHandlerMask();
+				for(EnumFacing orientation : EnumFacing.VALUES) {
+					if(DirectionUtils.contains(possibleMovements, orientation)) {
+						PipeTransportPower nearbyTransport = pipe.getNeighbourPowerTransport(orientation);
+						if(nearbyTransport == null) {
+							continue;
+						}
+						nearbyTransport.requestEnergy(orientation.getOpposite(), value);
+						//TODO does this work??
+						requested += nearbyTransport.nextPowerQuery[orientation.getOpposite().ordinal()];
+					}
 				}
 			}
+		} finally {
+			giveBackConnectedPipes(connectedPipes);
 		}
 		return requested;
 	}
 
 	@Override
-	public int receiveEnergy(EnumFacing from, int energy) {
-		List<PipePowerTeleport> connectedPipes = TeleportManager.instance.<PipePowerTeleport>getConnectedPipes(this, false, true);
-		List<PipePowerTeleport> sendingToList = new LinkedList<PipePowerTeleport>();
-
-		// no connected pipes, leave!
-		if(connectedPipes.size() <= 0 || (state & 0x1) == 0) {
-			return 0;
+	public int receiveEnergy(EnumFacing from, int energy)
+	{
+		long start = APProfiler.start(container);
+		try
+		{
+			return teleportEnergy(energy);
 		}
-
-		for(PipePowerTeleport pipe : connectedPipes) {
-			if(getPipesNeedsPower(pipe).size() > 0) {
-				sendingToList.add(pipe);
-			}
+		finally
+		{
+			APProfiler.end(Section.POWER_TELEPORT_RECEIVE, start, container);
 		}
+	}
 
-		// no pipes need energy, leave!
-		if(sendingToList.size() <= 0) {
+	private int teleportEnergy(int energy) {
+		if((state & 0x1) == 0) {
 			return 0;
 		}
 
-		// TODO proportional power relay
-		double powerToSend = APConfiguration.powerTransmittanceCfg * energy / sendingToList.size();
+		ArrayList<PipePowerTeleport> connectedPipes = takeConnectedPipes();
+		int[] needsPowerMasks = takeNeedsPowerMasks();
+		try {
+			TeleportManager.instance.getConnectedPipes(this, false, true, connectedPipes);
 
-		for(PipePowerTeleport receiver : sendingToList) {
-			List<PowerRequest> needsPower = getPipesNeedsPower(receiver);
+			// no connected pipes, leave!
+			if(connectedPipes.size() <= 0) {
+				recordTeleport(Counter.FAILED_SENDS, 1);
+				return 0;
+			}
 
-			if(needsPower.size() <= 0) {
-				continue;
+			if(needsPowerMasks.length < connectedPipes.size()) {
+				needsPowerMasks = new int[Math.max(connectedPipes.size(), needsPowerMasks.length * 2)];
 			}
 
-			int dividedPowerToSend = MathHelper.ceiling_double_int(powerToSend / needsPower.size());
+			int sendingTo = 0;
+			for(int index = 0; index < connectedPipes.size(); ++index) {
+				needsPowerMasks[index] = getPipesNeedsPower(connectedPipes.get(index));
+				if(needsPowerMasks[index] != 0) {
+					++sendingTo;
+				}
+			}
 
-			for(PowerRequest powerEntry : needsPower) {
-				PipeTransportPower nearbyTransport = (PipeTransportPower) powerEntry.tile.pipe.transport;
-				nearbyTransport.receiveEnergy(powerEntry.orientation, dividedPowerToSend);
+			// no pipes need energy, leave!
+			if(sendingTo <= 0) {
+				recordTeleport(Counter.FAILED_SENDS, 1);
+				return 0;
 			}
-		}
-		return energy;
-	}
 
-	private List<PowerRequest> getPipesNeedsPower(PipeTeleport<?> pipe) {
-		LinkedList<EnumFacing> possibleMovements = getRealPossibleMovements(pipe);
-		List<PowerRequest> needsPower = new LinkedList<PowerRequest>();
-
-		if(possibleMovements.size() > 0) {
-			for(EnumFacing orientation : possibleMovements) {
-				TileEntity tile = pipe.container.getTile(orientation);
-				if(tile instanceof TileGenericPipe) {
-					TileGenericPipe adjacentPipe = (TileGenericPipe) tile;
-					if(pipeNeedsPower(adjacentPipe)) {
-						needsPower.add(new PowerRequest(adjacentPipe, orientation.getOpposite()));
+			// TODO proportional power relay
+			double powerToSend = APConfiguration.powerTransmittanceCfg * energy / sendingTo;
+			double sent = 0;
+
+			for(int index = 0; index < connectedPipes.size(); ++index) {
+				int needsPower = needsPowerMasks[index];
+
+				if(needsPower == 0) {
+					continue;
+				}
+
+				PipePowerTeleport receiver = connectedPipes.get(index);
+				int dividedPowerToSend = MathHelper.ceiling_double_int(powerToSend / Integer.bitCount(needsPower));
+
+				for(EnumFacing orientation : EnumFacing.VALUES) {
+					if(DirectionUtils.contains(needsPower, orientation)) {
+						PipeTransportPower nearbyTransport = receiver.getNeighbourPowerTransport(orientation);
+						if(nearbyTransport == null) {
+							continue;
+						}
+						sent += nearbyTransport.receiveEnergy(orientation.getOpposite(), dividedPowerToSend);
 					}
 				}
 			}
+			recordTeleport(Counter.ENERGY, Math.round(sent));
+			return energy;
+		} finally {
+			giveBackConnectedPipes(connectedPipes);
+			spareNeedsPowerMasks = needsPowerMasks;
 		}
+	}
 
-		return needsPower;
+	// the scratch list, or a new one if a call further up the stack has it
+	private ArrayList<PipePowerTeleport> takeConnectedPipes() {
+		ArrayList<PipePowerTeleport> connectedPipes = spareConnectedPipes;
+		spareConnectedPipes = null;
+		return connectedPipes != null ? connectedPipes : new ArrayList<PipePowerTeleport>();
 	}
 
-	// precondition: power pipe that isn't tp
-	private static boolean pipeNeedsPower(TileGenericPipe tile) {
-		if(tile instanceof TileGenericPipe) {
-			PipeTransportPower ttb = (PipeTransportPower) tile.pipe.transport;
-			for(int i = 0; i < ttb.nextPowerQuery.length; i++)
-				if(ttb.nextPowerQuery[i] > 0) {
-					return true;
-				}
-		}
-		return false;
+	private void giveBackConnectedPipes(ArrayList<PipePowerTeleport> connectedPipes) {
+		connectedPipes.clear();
+		spareConnectedPipes = connectedPipes;
 	}
 
-	// returns all adjacent pipes
-	private static LinkedList<EnumFacing> getRealPossibleMovements(PipeTeleport<?> pipe) {
-		LinkedList<EnumFacing> result = new LinkedList<EnumFacing>();
+	private int[] takeNeedsPowerMasks() {
+		int[] needsPowerMasks = spareNeedsPowerMasks;
+		spareNeedsPowerMasks = null;
+		return needsPowerMasks != null ? needsPowerMasks : new int[8];
+	}
+
+	// returns the sides of the pipe with a power pipe that wants power, as a DirectionUtils mask
+	private static int getPipesNeedsPower(PipeTeleport<?> pipe) {
+		int possibleMovements = pipe.getHandlerMask();
+		int needsPower = 0;
 
-		for(EnumFacing orientation : EnumFacing.values()) {
-			if(pipe.outputOpen(orientation)) {
-				TileEntity te = pipe.container.getTile(orientation);
-				if((te instanceof TileGenericPipe) && Utils.checkPipesConnections(pipe.container, te)) {
-					result.add(orientation);
+		for(EnumFacing orientation : EnumFacing.VALUES) {
+			if(DirectionUtils.contains(possibleMovements, orientation)) {
+				PipeTransportPower nearbyTransport = pipe.getNeighbourPowerTransport(orientation);
+				if(nearbyTransport != null && pipeNeedsPower(nearbyTransport)) {
+					needsPower |= DirectionUtils.bit(orientation);
 				}
 			}
 		}
 
-		return result;
+		return needsPower;
+	}
+
+	// precondition: power pipe that isn't tp
+	private static boolean pipeNeedsPower(PipeTransportPower ttb) {
+		for(int i = 0; i < ttb.nextPowerQuery.length; i++)
+			if(ttb.nextPowerQuery[i] > 0) {
+				return true;
+			}
+		return false;
+	}
+
+	// only adjacent pipes connected to this one can take power
+	@Override
+	protected boolean canHandOutputTo(EnumFacing side, TileEntity tile) {
+		return getNeighbourPowerTransport(side) != null && Utils.checkPipesConnections(container, tile);
 	}
 
 	@Override
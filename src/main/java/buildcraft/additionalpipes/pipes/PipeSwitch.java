@@ -11,6 +11,10 @@ public class PipeSwitch<pipeType extends PipeTransport> extends APPipe<pipeType>
 
 	private final int textureIndex;
 
+	// whether the block is powered, checked again whenever a neighbour changes
+	private boolean powered;
+	private boolean poweredKnown;
+
 	public PipeSwitch(pipeType transport, Item item, int textureIndex) {
 		super(transport, item);
 		this.textureIndex = textureIndex;
@@ -35,6 +39,16 @@ public class PipeSwitch<pipeType extends PipeTransport> extends APPipe<pipeType>
 	@Override
 	public void onNeighborBlockChange(int blockId) {
 		super.onNeighborBlockChange(blockId);
+
+		// only reconnect when the redstone actually changed, otherwise redstone clocks nearby keep whole networks reconnecting
+		boolean wasPowered = powered;
+		boolean wasKnown = poweredKnown;
+		powered = getWorld().isBlockPowered(container.getPos());
+		poweredKnown = true;
+		if(wasKnown && wasPowered == powered) {
+			return;
+		}
+
 		container.scheduleNeighborChange();
 		for(EnumFacing direction : EnumFacing.values()) {
 			TileEntity tile = container.getTile(direction);
@@ -48,8 +62,24 @@ public class PipeSwitch<pipeType extends PipeTransport> extends APPipe<pipeType>
 	public boolean canPipeConnect(TileEntity tile, EnumFacing side) {
 		if(container == null && side == null) return false;
 		World world = getWorld();
-		return world != null && super.canPipeConnect(tile, side) && !world.isBlockPowered(container.getPos());
+		return world != null && super.canPipeConnect(tile, side) && !isPowered(world);
 
 	}
 
+	/**
+	 * Whether the pipe was powered when its neighbours last changed.  Only the server hears about neighbour changes,
+	 * so the client always checks the world.
+	 */
+	private boolean isPowered(World world) {
+		if(world.isRemote) {
+			return world.isBlockPowered(container.getPos());
+		}
+
+		if(!poweredKnown) {
+			powered = world.isBlockPowered(container.getPos());
+			poweredKnown = true;
+		}
+		return powered;
+	}
+
 }
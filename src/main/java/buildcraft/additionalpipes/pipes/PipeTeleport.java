@@ -3,6 +3,7 @@ package buildcraft.additionalpipes.pipes;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 import java.util.UUID;
 
@@ -19,6 +20,11 @@ import buildcraft.additionalpipes.AdditionalPipes;
 import buildcraft.additionalpipes.api.ITeleportPipe;
 import buildcraft.additionalpipes.api.PipeType;
 import buildcraft.additionalpipes.gui.GuiHandler;
+import buildcraft.additionalpipes.metrics.TeleportMetrics.ChannelCounters;
+import buildcraft.additionalpipes.metrics.TeleportMetrics.Counter;
+import buildcraft.additionalpipes.metrics.TeleportTrace;
+import buildcraft.additionalpipes.metrics.TeleportTrace.Event;
+import buildcraft.additionalpipes.utils.DirectionUtils;
 import buildcraft.additionalpipes.utils.PlayerUtils;
 import buildcraft.api.transport.IPipeTile;
 import buildcraft.api.transport.PipeWire;
@@ -37,11 +43,38 @@ public abstract class PipeTeleport<pipeType extends PipeTransport> extends APPip
 	public UUID ownerUUID;
 	public String ownerName = "";
 	
-	public int[] network = new int[0];
 	public boolean isPublic = false;
 	
+	public boolean crossDimension = false;
+	
 	public final PipeType type;
 
+	// where TeleportManager keeps this pipe, so it can be removed without searching.  Only changed by TeleportManager, so a pipe can only be in one manager.
+	TeleportChannel<?> registryChannel;
+	int registryIndex;
+
+	// the owner's id in TeleportManager.owners, and the owner it was worked out for
+	int ownerId;
+	UUID internedOwner;
+	
+	// world time of the last time this pipe tried to load its receivers
+	private long lastReceiverLoad = Long.MIN_VALUE;
+
+	// counters of this pipe's channel, looked up again when the frequency changes
+	private ChannelCounters metricsChannel;
+
+	// open outputs, refreshed the first time they are needed after a neighbour or connection change
+	private boolean outputsValid = false;
+	private int outputMask;
+
+	// open outputs that can take what this pipe teleports, and the ChunkEpoch they were worked out at
+	private boolean handlersValid = false;
+	private int handlerMask;
+	private int handlersEpoch;
+
+	// which of the open outputs getNextOutputOrientation() last picked
+	private int nextOutput;
+
 	public PipeTeleport(pipeType transport, Item item, PipeType type)
 	{
 		super(transport, item);
@@ -123,22 +156,56 @@ public abstract class PipeTeleport<pipeType extends PipeTransport> extends APPip
 		return type;
 	}
 
+	@Override
+	public int getDimension()
+	{
+		//pipes made for tests have no world
+		return container == null || container.getWorld() == null ? 0 : container.getWorld().provider.getDimensionId();
+	}
+
+	@Override
+	public boolean isCrossDimension()
+	{
+		return crossDimension;
+	}
+
 	@Override
 	public void initialize() {
 		super.initialize();
-		TeleportManager.instance.add(this, frequency);
+		if(!getWorld().isRemote)
+		{
+			//registered with the rest of its chunk at the end of the tick
+			TeleportManager.instance.addLater(this);
+			TeleportManager.instance.rememberReceiver(this);
+		}
 	}
 
 	@Override
 	public void invalidate() {
 		super.invalidate();
-		TeleportManager.instance.remove(this, frequency);
+		if(!getWorld().isRemote)
+		{
+			TeleportManager.instance.remove(this, frequency);
+			TeleportManager.instance.forgetReceiver(this);
+		}
 	}
 
 	@Override
 	public void onChunkUnload() {
 		super.onChunkUnload();
-		TeleportManager.instance.remove(this, frequency);
+		if(!getWorld().isRemote)
+		{
+			TeleportManager.instance.removeUnloaded(this);
+		}
+	}
+
+	@Override
+	protected void invalidateNeighbours() {
+		super.invalidateNeighbours();
+
+		//called on the server after the container has recomputed its connections
+		outputsValid = false;
+		handlersValid = false;
 	}
 	
 	@Override
@@ -189,6 +256,98 @@ public abstract class PipeTeleport<pipeType extends PipeTransport> extends APPip
 	@Override
 	public void updateEntity() {
 		super.updateEntity();
+		if(getWorld().isRemote)
+		{
+			return;
+		}
+
+		if(hasBufferedTraffic() && hasOpenOutput())
+		{
+			drainBuffer();
+		}
+
+		//take one thing a tick from the queue of traffic sent while this pipe's dimension was unloaded
+		if(crossDimension && canReceive() && TeleportManager.instance.hasQueuedTraffic() && hasOpenOutput())
+		{
+			TeleportQueueData queue = TeleportManager.instance.getQueueData();
+			TeleportQueueData.Entry entry = queue.peek(this);
+			if(entry != null)
+			{
+				deliverQueued(queue, entry);
+			}
+		}
+	}
+
+	/**
+	 * Deliver something queued for this pipe's channel.  Pipes that can take it should pass what they
+	 * delivered to queue.delivered(), and leave the entry alone if they couldn't deliver any of it.
+	 * @param queue
+	 * @param entry
+	 */
+	protected void deliverQueued(TeleportQueueData queue, TeleportQueueData.Entry entry)
+	{
+	}
+
+	/**
+	 * @return how full this receiver's buffer is, from 0 to 1.  Pipes without a buffer are always empty.
+	 */
+	public float getBufferFill()
+	{
+		return 0;
+	}
+
+	protected boolean hasBufferedTraffic()
+	{
+		return false;
+	}
+
+	/**
+	 * Send on some of what was buffered while this pipe's outputs were blocked.
+	 * Only called on the server, when something is buffered and the pipe has an open output.
+	 */
+	protected void drainBuffer()
+	{
+	}
+
+	/**
+	 * Called by senders that have nowhere to send to.  Loads the chunks of receivers that are not loaded,
+	 * if that is turned on in the config.  Only checks once a second, since the chunks take a tick to load anyway.
+	 */
+	protected void loadDormantReceivers()
+	{
+		long worldTime = getWorld().getTotalWorldTime();
+		if(worldTime - lastReceiverLoad >= 20)
+		{
+			lastReceiverLoad = worldTime;
+			TeleportManager.instance.loadDormantReceivers(this);
+		}
+	}
+
+	/**
+	 * Count something this pipe sent, or a send that failed, in its channel's metrics.
+	 */
+	protected void recordTeleport(Counter counter, long amount)
+	{
+		if(metricsChannel == null || metricsChannel.frequency != frequency)
+		{
+			metricsChannel = TeleportManager.instance.metrics.getChannel(type, frequency);
+		}
+		metricsChannel.add(counter, amount);
+	}
+
+	/**
+	 * Record something this pipe did in the teleport trace, if the trace is turned on.
+	 * @param event
+	 * @param other the other pipe involved, or null
+	 * @param amount items or millibuckets, or 0
+	 */
+	protected void trace(Event event, PipeTeleport<?> other, long amount)
+	{
+		TeleportTrace trace = TeleportManager.instance.trace;
+		if(trace.isEnabled())
+		{
+			trace.record(getWorld().getTotalWorldTime(), event, type, frequency, getDimension(), getPosition(), other == null ? null : other.getPosition(), amount);
+		}
 	}
 
 	public void setFrequency(int freq) {
@@ -215,6 +374,138 @@ public abstract class PipeTeleport<pipeType extends PipeTransport> extends APPip
 	public boolean outputOpen(EnumFacing to) {
 		return container.isPipeConnected(to);
 	}
+
+	/**
+	 * @return the sides this pipe could output to, as a DirectionUtils mask
+	 */
+	public int getOutputMask()
+	{
+		if(!outputsValid)
+		{
+			refreshOutputs();
+		}
+		return outputMask;
+	}
+
+	/**
+	 * @return the open outputs with something on them that this type of pipe can hand things to, as a DirectionUtils mask
+	 */
+	public int getHandlerMask()
+	{
+		int outputs = getOutputMask();
+
+		//a neighbour across a chunk border may have unloaded without a neighbour change
+		if(!handlersValid || (handlersEpoch != ChunkEpoch.instance.get() && (outputs & getBorderSides()) != 0))
+		{
+			refreshHandlers(outputs);
+		}
+		return handlerMask;
+	}
+
+	/**
+	 * @return whether anything is connected to this pipe that it could output to
+	 */
+	public boolean hasOpenOutput()
+	{
+		return getOutputMask() != 0;
+	}
+
+	/**
+	 * Get the tile entity on an open output without looking it up in the world.
+	 * @param side
+	 * @return the tile, or null if there is none or the side isn't an open output
+	 */
+	public TileEntity getOutputTile(EnumFacing side)
+	{
+		return DirectionUtils.contains(getOutputMask(), side) ? getNeighbour(side) : null;
+	}
+
+	/**
+	 * Get the side the next thing this pipe outputs should be injected from.  The open outputs take turns, so a receiver
+	 * feeding several pipes spreads what it gets between them.
+	 * @return the opposite of an open output, or null if there are none
+	 */
+	public EnumFacing getNextOutputOrientation()
+	{
+		int mask = getOutputMask();
+		if(mask == 0)
+		{
+			return null;
+		}
+
+		nextOutput = (nextOutput + 1) % Integer.bitCount(mask);
+		return DirectionUtils.nthSide(mask, nextOutput).getOpposite();
+	}
+
+	/**
+	 * Decide whether an open output's neighbour can take what this pipe teleports.
+	 * @param side
+	 * @param tile the neighbour, may be null
+	 * @return
+	 */
+	protected boolean canHandOutputTo(EnumFacing side, TileEntity tile)
+	{
+		return true;
+	}
+
+	// the open outputs only depend on the container's connections, which are recomputed before a neighbour change is heard about
+	private void refreshOutputs()
+	{
+		outputMask = 0;
+		for(EnumFacing side : EnumFacing.VALUES)
+		{
+			if(outputOpen(side))
+			{
+				outputMask |= DirectionUtils.bit(side);
+			}
+		}
+		outputsValid = true;
+	}
+
+	private void refreshHandlers(int outputs)
+	{
+		handlerMask = 0;
+		handlersEpoch = ChunkEpoch.instance.get();
+		handlersValid = true;
+		for(EnumFacing side : EnumFacing.VALUES)
+		{
+			if(DirectionUtils.contains(outputs, side))
+			{
+				TileEntity tile = getNeighbour(side);
+				if(canHandOutputTo(side, tile))
+				{
+					handlerMask |= DirectionUtils.bit(side);
+				}
+
+				//on the server, an output that couldn't be cached, like a pipe that is still loading, is looked at again next time
+				if(!isNeighbourKnown(side) && getWorld() != null && !getWorld().isRemote)
+				{
+					handlersValid = false;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Find a receiver with something connected to it.
+	 * Receivers are tried in order starting at firstIndex, wrapping around at the end of the list.
+	 * @param receivers
+	 * @param firstIndex
+	 * @return the receiver, or null if none of them have an open output
+	 */
+	public static <T extends PipeTeleport<?>> T findReceiverWithOutput(List<T> receivers, int firstIndex)
+	{
+		for(int tries = 0; tries < receivers.size(); ++tries)
+		{
+			T receiver = receivers.get((firstIndex + tries) % receivers.size());
+			if(receiver.hasOpenOutput())
+			{
+				return receiver;
+			}
+		}
+
+		return null;
+	}
 	
 	// Teleport Gates stuff
 	// ---------------------------------------------
@@ -259,7 +550,7 @@ public abstract class PipeTeleport<pipeType extends PipeTransport> extends APPip
 			int maxStrength = 0;
 
 			for (EnumFacing dir : EnumFacing.VALUES) {
-				TileEntity tile = container.getTile(dir);
+				TileEntity tile = getNeighbour(dir);
 				if (tile instanceof IPipeTile)
 				{
 					Pipe<?> pipe = (Pipe<?>) ((IPipeTile) tile).getPipe();
@@ -375,6 +666,7 @@ public abstract class PipeTeleport<pipeType extends PipeTransport> extends APPip
 			nbttagcompound.setString("ownerName", ownerName);
 		}
 		nbttagcompound.setBoolean("isPublic", isPublic);
+		nbttagcompound.setBoolean("crossDim", crossDimension);
 	}
 
 	@Override
@@ -388,6 +680,7 @@ public abstract class PipeTeleport<pipeType extends PipeTransport> extends APPip
 			ownerName = nbttagcompound.getString("ownerName");
 		}
 		isPublic = nbttagcompound.getBoolean("isPublic");
+		crossDimension = nbttagcompound.getBoolean("crossDim");
 	}
 
 	public static boolean canPlayerModifyPipe(EntityPlayer player, PipeTeleport<?> pipe) {
@@ -7,6 +7,7 @@ import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
 import net.minecraft.util.IChatComponent;
 import buildcraft.additionalpipes.utils.Log;
+import buildcraft.additionalpipes.utils.Log.Category;
 
 /**
  * The purpose of this class is to store data for one of the sides of a Jeweled Transport Pipe.
@@ -113,7 +114,7 @@ public class SideFilterData implements IInventory
     {		
 		if(stack == null)
 		{
-			Log.error("SideFilterData.matchesSide() called with null argument!");
+			Log.error(Category.PIPES, "SideFilterData.matchesSide() called with null argument!");
 			return false;
 		}
 		
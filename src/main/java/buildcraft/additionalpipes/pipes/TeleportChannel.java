@@ -0,0 +1,89 @@
+package buildcraft.additionalpipes.pipes;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * The loaded pipes registered under one key in TeleportManager.
+ *
+ * Each pipe remembers which channel it is in and where, so removing it is constant time: the last pipe in the
+ * channel takes its place.  That means the order of the pipes changes, which nothing relies on.
+ * Only TeleportManager changes channels, while holding its lock.
+ */
+public class TeleportChannel<T extends PipeTeleport<?>> extends AbstractList<T> implements RandomAccess
+{
+	public final long key;
+
+	private PipeTeleport<?>[] pipes = new PipeTeleport<?>[4];
+	private int size;
+
+	TeleportChannel(long key)
+	{
+		this.key = key;
+	}
+
+	void add(T pipe)
+	{
+		if(size == pipes.length)
+		{
+			pipes = Arrays.copyOf(pipes, size * 2);
+		}
+
+		pipe.registryChannel = this;
+		pipe.registryIndex = size;
+		pipes[size++] = pipe;
+	}
+
+	/**
+	 * @param pipe
+	 * @return whether the pipe was in this channel
+	 */
+	boolean removePipe(PipeTeleport<?> pipe)
+	{
+		if(pipe.registryChannel != this)
+		{
+			return false;
+		}
+
+		int index = pipe.registryIndex;
+		PipeTeleport<?> last = pipes[--size];
+		pipes[index] = last;
+		last.registryIndex = index;
+		pipes[size] = null;
+
+		pipe.registryChannel = null;
+		return true;
+	}
+
+	/**
+	 * Forget every pipe, for when the manager is reset.
+	 */
+	void clearPipes()
+	{
+		for(int index = 0; index < size; ++index)
+		{
+			pipes[index].registryChannel = null;
+			pipes[index] = null;
+		}
+		size = 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public T get(int index)
+	{
+		if(index >= size)
+		{
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+
+		return (T) pipes[index];
+	}
+
+	@Override
+	public int size()
+	{
+		return size;
+	}
+}
@@ -4,153 +4,593 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
+import net.minecraft.util.BlockPos;
+import net.minecraft.world.ChunkCoordIntPair;
 import net.minecraft.world.World;
-import net.minecraftforge.fml.common.FMLCommonHandler;
-import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.common.DimensionManager;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent.Phase;
+import net.minecraftforge.fml.common.gameevent.TickEvent.ServerTickEvent;
+import buildcraft.additionalpipes.APConfiguration;
 import buildcraft.additionalpipes.api.ITeleportPipe;
 import buildcraft.additionalpipes.api.PipeType;
 import buildcraft.additionalpipes.api.TeleportManagerBase;
+import buildcraft.additionalpipes.chunkloader.ChunkLoadingManager;
+import buildcraft.additionalpipes.metrics.TeleportMetrics;
+import buildcraft.additionalpipes.metrics.TeleportTrace;
+import buildcraft.additionalpipes.metrics.TeleportTrace.Event;
+import buildcraft.additionalpipes.metrics.TickBudget;
 import buildcraft.additionalpipes.utils.Log;
+import buildcraft.additionalpipes.utils.Log.Category;
 import buildcraft.transport.PipeTransportFluids;
 import buildcraft.transport.PipeTransportItems;
 import buildcraft.transport.PipeTransportPower;
 
-import com.google.common.collect.LinkedListMultimap;
-import com.google.common.collect.Multimap;
-
-
+/**
+ * Keeps track of the loaded teleport pipes on the server, by channel.
+ *
+ * instance is the one the mod uses.  Other instances can be made for tests.  Only server side pipes should be added.
+ * Adding, removing and looking up pipes is synchronized, since network handlers can change pipes off the server thread.
+ */
 public class TeleportManager extends TeleportManagerBase
 {
 	public static final TeleportManager instance = new TeleportManager();
 
-	public final Multimap<Integer, PipeTeleport<PipeTransportItems>> itemPipes;
+	/**
+	 * Used in place of a dimension for the pipes that connect across dimensions.
+	 */
+	public static final int CROSS_DIMENSION = Integer.MIN_VALUE;
+
+	//channels of each type, keyed by getRegistryKey().  Empty channels are removed.
+
+	public final Map<Long, TeleportChannel<PipeTeleport<PipeTransportItems>>> itemPipes;
 	
-	public final Multimap<Integer, PipeTeleport<PipeTransportFluids>> fluidPipes;
+	public final Map<Long, TeleportChannel<PipeTeleport<PipeTransportFluids>>> fluidPipes;
 
-	public final Multimap<Integer, PipeTeleport<PipeTransportPower>> powerPipes;
+	public final Map<Long, TeleportChannel<PipeTeleport<PipeTransportPower>>> powerPipes;
 
-	//public final Multimap<Integer, PipeTeleport<PipeTransportItemsLogistics>> logisticsPipes;
+	//public final Map<Long, TeleportChannel<PipeTeleport<PipeTransportItemsLogistics>>> logisticsPipes;
 
 	public final Map<Integer, String> frequencyNames;
 
-	private TeleportManager() 
+	public final TeleportMetrics metrics;
+
+	public final TeleportTrace trace;
+
+	//finds pipes that went away without being removed
+	public final TeleportRegistrySweep sweep;
+
+	public final TeleportOwners owners;
+
+	//how often the owners' teams are looked up again
+	private static final int TEAM_REFRESH_TICKS = 100;
+	private int ticksUntilTeamRefresh;
+
+	//loaded from the overworld the first time they are needed
+	private TeleportReceiverData receiverData;
+	private TeleportQueueData queueData;
+
+	//pipes loading this tick, by chunk
+	private final Map<Long, Set<PipeTeleport<?>>> pendingChanges;
+
+	//channels pipes left or will join this tick, marked changed together by applyPendingChanges()
+	private final Set<Long> changedChannels;
+
+	//bumped whenever a pipe joins, leaves or changes its settings in a channel, so GUIs know when to refresh
+	private final Map<Long, Integer> channelGenerations;
+
+	public TeleportManager() 
 	{
-		//create the three multimaps
-		itemPipes = LinkedListMultimap.<Integer, PipeTeleport<PipeTransportItems>>create();
+		//create the three channel maps
+		itemPipes = new HashMap<Long, TeleportChannel<PipeTeleport<PipeTransportItems>>>();
 		
-		fluidPipes = LinkedListMultimap.<Integer, PipeTeleport<PipeTransportFluids>>create();
+		fluidPipes = new HashMap<Long, TeleportChannel<PipeTeleport<PipeTransportFluids>>>();
 		
-		powerPipes = LinkedListMultimap.<Integer, PipeTeleport<PipeTransportPower>>create();
+		powerPipes = new HashMap<Long, TeleportChannel<PipeTeleport<PipeTransportPower>>>();
 		
-		//logisticsPipes = LinkedListMultimap.<Integer, PipeTeleport<PipeTransportItemsLogistics>>create();
+		//logisticsPipes = new HashMap<Long, TeleportChannel<PipeTeleport<PipeTransportItemsLogistics>>>();
 		
 		frequencyNames = new HashMap<Integer, String>();
+		
+		channelGenerations = new HashMap<Long, Integer>();
+		
+		pendingChanges = new LinkedHashMap<Long, Set<PipeTeleport<?>>>();
+		
+		changedChannels = new HashSet<Long>();
+		
+		metrics = new TeleportMetrics();
+		
+		trace = new TeleportTrace();
+		
+		sweep = new TeleportRegistrySweep(this);
+		
+		owners = new TeleportOwners();
 	}
 	
 	/**
-	 * Get a collection containing the pipes in a channel (a channel consists of a frequency and a type).
+	 * Pack a channel into a single number.
+	 * @param type
 	 * @param frequency
+	 * @return
+	 */
+	public static long getChannelKey(PipeType type, int frequency)
+	{
+		return ((long) type.ordinal() << 32) | (frequency & 0xFFFFFFFFL);
+	}
+	
+	/**
+	 * Get a number that changes every time the pipes in a channel change.
+	 * @param type
+	 * @param frequency
+	 * @return
+	 */
+	public synchronized int getChannelGeneration(PipeType type, int frequency)
+	{
+		Integer generation = channelGenerations.get(getChannelKey(type, frequency));
+		return generation == null ? 0 : generation;
+	}
+	
+	/**
+	 * Tell open GUIs that something about the pipes in a channel changed.
+	 * @param type
+	 * @param frequency
+	 */
+	public synchronized void markChannelChanged(PipeType type, int frequency)
+	{
+		markChannelChanged(getChannelKey(type, frequency));
+	}
+	
+	private void markChannelChanged(long key)
+	{
+		Integer generation = channelGenerations.get(key);
+		channelGenerations.put(key, generation == null ? 1 : generation + 1);
+	}
+	
+	/**
+	 * Pack a frequency and a dimension into the key pipes are registered under.
+	 * @param frequency
+	 * @param dimension the pipes' dimension, or CROSS_DIMENSION
+	 * @return
+	 */
+	public static long getRegistryKey(int frequency, int dimension)
+	{
+		return ((long) dimension << 32) | (frequency & 0xFFFFFFFFL);
+	}
+	
+	private static long getRegistryKey(ITeleportPipe pipe, int frequency)
+	{
+		return getRegistryKey(frequency, pipe.isCrossDimension() ? CROSS_DIMENSION : pipe.getDimension());
+	}
+	
+	/**
+	 * Get the channels of a type of pipe.
 	 * @param type
 	 * @return
 	 */
 	@SuppressWarnings("rawtypes")
-	private Collection getPipesInChannel(int frequency, PipeType type)
+	private Map<Long, TeleportChannel> getChannels(PipeType type)
 	{
-		//it seems that you can't cast from a Collection<PipeTeleport<PipeTransportFluids>>
-		//to a Collection<PipeTeleport<?>>.  Why is that? -JS
+		//it seems that you can't cast from a Map<Long, TeleportChannel<PipeTeleport<PipeTransportFluids>>>
+		//to a Map<Long, TeleportChannel<?>>.  Why is that? -JS
+		Map channels = null;
 		switch(type)
 		{
 		case ITEMS:
-			return itemPipes.get(frequency);
+			channels = itemPipes;
+			break;
 		case FLUIDS:
-			return fluidPipes.get(frequency);
+			channels = fluidPipes;
+			break;
 		case POWER:
-			return powerPipes.get(frequency);
+			channels = powerPipes;
+			break;
 		case LOGISTICS:
-			
-			//return logisticsPipes.get(frequency);
+			//channels = logisticsPipes;
+			break;
 		}
 		
-		return null;
+		return channels;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private TeleportChannel getChannel(PipeType type, long key, boolean create)
+	{
+		Map<Long, TeleportChannel> channels = getChannels(type);
+		TeleportChannel channel = channels.get(key);
+		if(channel == null && create)
+		{
+			channel = new TeleportChannel(key);
+			channels.put(key, channel);
+		}
+
+		return channel;
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
-	public void add(ITeleportPipe pipe, int frequency)
+	public synchronized void add(ITeleportPipe pipe, int frequency)
 	{
-		if(FMLCommonHandler.instance().getEffectiveSide() == Side.CLIENT)
+		PipeTeleport<?> teleportPipe = (PipeTeleport<?>) pipe;
+		cancelPendingChange(teleportPipe);
+		register(teleportPipe, frequency);
+		markChannelChanged(pipe.getType(), frequency);
+
+		//if unit tests are being run, pipe.container will be null.
+		if(pipe.getContainer() == null)
 		{
 			return;
 		}
-		
-		switch(pipe.getType())
+
+		trace(Event.ADDED, teleportPipe);
+		if(Log.isDebugEnabled(Category.TELEPORT))
 		{
-		case ITEMS:
-			itemPipes.put(frequency, (PipeTeleport<PipeTransportItems>) pipe);
-			break;
-		case FLUIDS:
-			fluidPipes.put(frequency, (PipeTeleport<PipeTransportFluids>) pipe);
-			break;
-		case POWER:
-			powerPipes.put(frequency, (PipeTeleport<PipeTransportPower>) pipe);
-			break;
-		case LOGISTICS:
-			//logisticsPipes.put(frequency, (PipeTeleport<PipeTransportItemsLogistics>) pipe);
-			break;
+			Log.debug(Category.TELEPORT, String.format("[TeleportManager] Pipe added: %s @ (%s), %d pipes in channel", pipe.getType().toString().toLowerCase(),
+					pipe.getPosition().toString(), teleportPipe.registryChannel.size()));
+		}
+	}
+
+	@Override
+	public synchronized void remove(ITeleportPipe pipe, int frequency)
+	{
+		cancelPendingChange((PipeTeleport<?>) pipe);
+		if(!unregister((PipeTeleport<?>) pipe))
+		{
+			return;
 		}
+		markChannelChanged(pipe.getType(), frequency);
 
 		//if unit tests are being run, pipe.container will be null.
-		if(pipe.getContainer() != null)
+		if(pipe.getContainer() == null)
+		{
+			return;
+		}
+
+		trace(Event.REMOVED, (PipeTeleport<?>) pipe);
+		if(Log.isDebugEnabled(Category.TELEPORT))
 		{
-			Log.debug(String.format("[TeleportManager] Pipe added: %s @ (%s), %d pipes in channel", pipe.getType().toString().toLowerCase(),
-					pipe.getPosition().toString(), getPipesInChannel(frequency, pipe.getType()).size()));
+			Log.debug(Category.TELEPORT, String.format("[TeleportManager] Pipe removed: %s @ (%s)", pipe.getType().toString().toLowerCase(), pipe.getPosition().toString()));
 		}
 	}
 
-	@SuppressWarnings("unchecked")	
 	@Override
-	public void remove(ITeleportPipe pipe, int frequency)
+	public synchronized void move(ITeleportPipe pipe, int oldFrequency, int newFrequency)
 	{
-		if(FMLCommonHandler.instance().getEffectiveSide() == Side.CLIENT)
+		PipeTeleport<?> teleportPipe = (PipeTeleport<?>) pipe;
+		if(teleportPipe.registryChannel == null)
 		{
+			//not loaded, so there is nothing to move
 			return;
+		}
 
+		add(pipe, newFrequency);
+		if(oldFrequency != newFrequency)
+		{
+			markChannelChanged(pipe.getType(), oldFrequency);
 		}
-		switch(pipe.getType())
+	}
+
+	/**
+	 * Change a pipe's settings from the GUI, and move it to the channel they put it in.
+	 * Pipes are looked up from other threads, so this makes sure they never see the settings and the channel disagree.
+	 * @param pipe
+	 * @param frequency
+	 * @param state
+	 * @param isPublic
+	 * @param crossDimension
+	 */
+	public synchronized void applySettings(PipeTeleport<?> pipe, int frequency, byte state, boolean isPublic, boolean crossDimension)
+	{
+		int oldFrequency = pipe.getFrequency();
+		pipe.setFrequency(frequency);
+		pipe.state = state;
+		pipe.isPublic = isPublic;
+		pipe.crossDimension = crossDimension;
+
+		//state and public don't change the channel, but pipes looking at the channel need to know
+		move(pipe, oldFrequency, frequency);
+		markChannelChanged(pipe.getType(), frequency);
+
+		rememberReceiver(pipe);
+	}
+
+	/**
+	 * Add a pipe at the end of the tick, along with the other pipes in its chunk.  For pipes that are loading.
+	 * @param pipe
+	 */
+	public synchronized void addLater(PipeTeleport<?> pipe)
+	{
+		long chunkKey = getChunkKey(pipe);
+		Set<PipeTeleport<?>> changes = pendingChanges.get(chunkKey);
+		if(changes == null)
 		{
-		case ITEMS:
-			itemPipes.remove(frequency, (PipeTeleport<PipeTransportItems>) pipe);
-			break;
-		case FLUIDS:
-			fluidPipes.remove(frequency, (PipeTeleport<PipeTransportFluids>) pipe);
-			break;
-		case POWER:
-			powerPipes.remove(frequency, (PipeTeleport<PipeTransportPower>) pipe);
-			break;
-		case LOGISTICS:
-			//logisticsPipes.remove(frequency, (PipeTeleport<PipeTransportItemsLogistics>) pipe);
-			break;
+			changes = new LinkedHashSet<PipeTeleport<?>>();
+			pendingChanges.put(chunkKey, changes);
 		}
 
-		//if unit tests are being run, pipe.container will be null.
-		if(pipe.getContainer() != null)
+		changes.add(pipe);
+	}
+
+	/**
+	 * Remove a pipe whose chunk is unloading.  Chunks unload before tiles tick, and unloaded tiles are never invalidated,
+	 * so the pipe is removed straight away where senders later in the tick can't pick it.  Only marking its channel
+	 * changed waits for the end of the tick, along with the other pipes that came or went.
+	 * @param pipe
+	 */
+	public synchronized void removeUnloaded(PipeTeleport<?> pipe)
+	{
+		//a pipe that loads and unloads in the same tick is never added
+		cancelPendingChange(pipe);
+		if(unregister(pipe))
+		{
+			trace(Event.REMOVED, pipe);
+			changedChannels.add(getChannelKey(pipe.getType(), pipe.getFrequency()));
+		}
+	}
+
+	private void cancelPendingChange(PipeTeleport<?> pipe)
+	{
+		if(!pendingChanges.isEmpty())
+		{
+			Set<PipeTeleport<?>> changes = pendingChanges.get(getChunkKey(pipe));
+			if(changes != null)
+			{
+				changes.remove(pipe);
+			}
+		}
+	}
+
+	/**
+	 * @param pipe
+	 * @return the pipe's chunk x and z in the low 16 bit pairs, and its dimension in the high 32 bits.  Far out chunks may share a key, which only means they are applied together.
+	 */
+	private static long getChunkKey(PipeTeleport<?> pipe)
+	{
+		//pipes made for tests have no container
+		if(pipe.getContainer() == null)
+		{
+			return 0;
+		}
+
+		BlockPos pos = pipe.getPosition();
+		return ((long) pipe.getDimension() << 32) | (((pos.getZ() >> 4) & 0xFFFFL) << 16) | ((pos.getX() >> 4) & 0xFFFFL);
+	}
+
+	/**
+	 * Add the pipes queued by addLater(), one chunk at a time, and mark the channels pipes joined or left.
+	 * Each channel that changed is only marked once, however many of its pipes came or went.
+	 */
+	public synchronized void applyPendingChanges()
+	{
+		if(pendingChanges.isEmpty() && changedChannels.isEmpty())
+		{
+			return;
+		}
+
+		for(Map.Entry<Long, Set<PipeTeleport<?>>> chunk : pendingChanges.entrySet())
+		{
+			for(PipeTeleport<?> pipe : chunk.getValue())
+			{
+				register(pipe, pipe.getFrequency());
+				trace(Event.ADDED, pipe);
+				changedChannels.add(getChannelKey(pipe.getType(), pipe.getFrequency()));
+			}
+
+			if(Log.isDebugEnabled(Category.TELEPORT))
+			{
+				long key = chunk.getKey();
+				Log.debug(Category.TELEPORT, "[TeleportManager] Chunk (" + (short) key + ", " + (short) (key >> 16) + ") in dimension " + (int) (key >> 32) + ": " + chunk.getValue().size() + " pipes added");
+			}
+		}
+		pendingChanges.clear();
+
+		for(long key : changedChannels)
+		{
+			markChannelChanged(key);
+		}
+		changedChannels.clear();
+	}
+
+	@SubscribeEvent
+	public void onServerTick(ServerTickEvent event)
+	{
+		if(event.phase == Phase.END)
+		{
+			applyPendingChanges();
+			TickBudget.instance.run(sweep);
+
+			if(APConfiguration.teleportTeamSharing && --ticksUntilTeamRefresh <= 0)
+			{
+				ticksUntilTeamRefresh = TEAM_REFRESH_TICKS;
+				refreshTeams();
+			}
+		}
+	}
+
+	/**
+	 * Look up which scoreboard team each pipe owner is on, and tell open GUIs if that changed who connects to who.
+	 */
+	@SuppressWarnings("rawtypes")
+	public synchronized void refreshTeams()
+	{
+		World overworld = DimensionManager.getWorld(0);
+		if(overworld == null || !owners.refreshTeams(overworld.getScoreboard()))
+		{
+			return;
+		}
+
+		for(PipeType type : new PipeType[]{PipeType.ITEMS, PipeType.FLUIDS, PipeType.POWER})
+		{
+			for(TeleportChannel channel : getChannels(type).values())
+			{
+				//the registry key has the dimension where the channel key has the type
+				markChannelChanged(type, (int) channel.key);
+			}
+		}
+	}
+
+	/**
+	 * Put a pipe in the channel for its settings, taking it out of any other.
+	 * @param pipe
+	 * @param frequency
+	 */
+	@SuppressWarnings("unchecked")
+	private void register(PipeTeleport<?> pipe, int frequency)
+	{
+		//a pipe is only ever in one channel
+		unregister(pipe);
+		pipe.ownerId = owners.intern(pipe.ownerUUID, pipe.ownerName);
+		pipe.internedOwner = pipe.ownerUUID;
+		getChannel(pipe.getType(), getRegistryKey(pipe, frequency), true).add(pipe);
+	}
+
+	/**
+	 * Take a pipe out of its channel, removing the channel if it is now empty.
+	 * @param pipe
+	 * @return whether the pipe was in a channel
+	 */
+	@SuppressWarnings("rawtypes")
+	private boolean unregister(PipeTeleport<?> pipe)
+	{
+		TeleportChannel channel = pipe.registryChannel;
+		if(channel == null || !channel.removePipe(pipe))
 		{
-			Log.debug(String.format("[TeleportManager] Pipe removed: %s @ (%s), %d pipes in channel", pipe.getType().toString().toLowerCase(),
-					pipe.getPosition().toString(), getPipesInChannel(frequency, pipe.getType()).size()));
+			return false;
+		}
+
+		if(channel.isEmpty())
+		{
+			getChannels(pipe.getType()).remove(channel.key);
+		}
+		return true;
+	}
+
+	/**
+	 * Forget every pipe in a dimension.  Pipes don't hear about their chunks unloading when a whole dimension unloads.
+	 * @param dimension
+	 */
+	public synchronized void removeDimension(int dimension)
+	{
+		Iterator<Long> pendingChunks = pendingChanges.keySet().iterator();
+		while(pendingChunks.hasNext())
+		{
+			if((int) (pendingChunks.next() >> 32) == dimension)
+			{
+				pendingChunks.remove();
+			}
+		}
+
+		int removed = removeDimension(PipeType.ITEMS, dimension) + removeDimension(PipeType.FLUIDS, dimension) + removeDimension(PipeType.POWER, dimension);
+		if(removed > 0)
+		{
+			Log.debug(Category.TELEPORT, "[TeleportManager] Removed %d pipes in unloaded dimension %d", removed, dimension);
+		}
+	}
+
+	@SuppressWarnings("rawtypes")
+	private int removeDimension(PipeType type, int dimension)
+	{
+		List<PipeTeleport<?>> inDimension = new ArrayList<PipeTeleport<?>>();
+		for(TeleportChannel channel : getChannels(type).values())
+		{
+			for(Object pipe : channel)
+			{
+				if(((PipeTeleport<?>) pipe).getDimension() == dimension)
+				{
+					inDimension.add((PipeTeleport<?>) pipe);
+				}
+			}
+		}
+
+		for(PipeTeleport<?> pipe : inDimension)
+		{
+			unregister(pipe);
+			markChannelChanged(type, pipe.getFrequency());
+		}
+
+		return inDimension.size();
+	}
+
+	/**
+	 * Copy every registered pipe into a list, for TeleportRegistrySweep.
+	 * @param pipes
+	 */
+	synchronized void copyRegisteredPipes(List<PipeTeleport<?>> pipes)
+	{
+		pipes.addAll(getAllPipes(itemPipes));
+		pipes.addAll(getAllPipes(fluidPipes));
+		pipes.addAll(getAllPipes(powerPipes));
+	}
+
+	/**
+	 * Take out a pipe that TeleportRegistrySweep found was never removed.
+	 * @param pipe
+	 * @return whether the pipe was still registered
+	 */
+	synchronized boolean purge(PipeTeleport<?> pipe)
+	{
+		cancelPendingChange(pipe);
+		if(!unregister(pipe))
+		{
+			return false;
+		}
+
+		markChannelChanged(pipe.getType(), pipe.getFrequency());
+		trace(Event.PURGED, pipe);
+		return true;
+	}
+
+	/**
+	 * Record a pipe joining or leaving the registry in the trace.
+	 */
+	private void trace(Event event, PipeTeleport<?> pipe)
+	{
+		//pipes made for tests have no container
+		if(trace.isEnabled() && pipe.getContainer() != null)
+		{
+			trace.record(pipe.getWorld().getTotalWorldTime(), event, pipe.getType(), pipe.getFrequency(), pipe.getDimension(), pipe.getPosition(), null, 0);
+		}
+	}
+
+	@SubscribeEvent
+	public void onWorldUnload(WorldEvent.Unload event)
+	{
+		if(!event.world.isRemote)
+		{
+			removeDimension(event.world.provider.getDimensionId());
 		}
 	}
 
 	@Override
-	public void reset() {
-		itemPipes.clear();
-		fluidPipes.clear();
-		powerPipes.clear();
-		//logisticsPipes.clear();
+	public synchronized void reset() {
+		for(PipeType type : new PipeType[]{PipeType.ITEMS, PipeType.FLUIDS, PipeType.POWER})
+		{
+			for(TeleportChannel<?> channel : getChannels(type).values())
+			{
+				channel.clearPipes();
+			}
+			getChannels(type).clear();
+		}
 
+		pendingChanges.clear();
+		changedChannels.clear();
 		frequencyNames.clear();
-		Log.info("Reset teleport manager.");
+		channelGenerations.clear();
+		metrics.reset();
+		trace.clear();
+		sweep.reset();
+		owners.reset();
+		receiverData = null;
+		queueData = null;
+		Log.info(Category.TELEPORT, "Reset teleport manager.");
 	}
 
 	/**
@@ -160,27 +600,48 @@ public class TeleportManager extends TeleportManagerBase
 	 * @param includeReceive whether or not to return connected pipes that receive stuff.
 	 * @return
 	 */
-	@SuppressWarnings("unchecked")
 	public <T extends ITeleportPipe> ArrayList<T> getConnectedPipes(T pipe, boolean includeSend, boolean includeReceive) 
 	{
-		Collection<T> channel = getPipesInChannel(pipe.getFrequency(), pipe.getType());
-		
 		ArrayList<T> connected = new ArrayList<T>();
+		getConnectedPipes(pipe, includeSend, includeReceive, connected);
+		return connected;
+	}
+	
+	/**
+	 * Get pipes connected to the provided one into a list the caller keeps, so frequent lookups don't allocate.
+	 * @param pipe
+	 * @param includeSend whether or not to return connected pipes that send stuff.
+	 * @param includeReceive whether or not to return connected pipes that receive stuff.
+	 * @param connected cleared, then filled with the connected pipes
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized <T extends ITeleportPipe> void getConnectedPipes(T pipe, boolean includeSend, boolean includeReceive, List<? super T> connected) 
+	{
+		TeleportChannel<?> channel = getChannel(pipe.getType(), getRegistryKey(pipe, pipe.getFrequency()), false);
+		
+		connected.clear();
+		if(channel == null)
+		{
+			return;
+		}
+		
+		int ownerId = getOwnerId((PipeTeleport<?>) pipe);
 		
-		for(T other : channel)
+		for(int index = 0; index < channel.size(); ++index)
 		{
+			T other = (T) channel.get(index);
 			if(other.getContainer() != null && other.getContainer().isInvalid())
 			{
 				continue;
 			}
 			
 			// pipe is open or includeReceive &&
-			// both public or same owner
+			// both public, or same owner or team
 			if(pipe != other)
 			{
 				if((other.canReceive() && includeReceive) || (other.canSend() && includeSend))
 				{
-					if(pipe.isPublic() ? other.isPublic() : (other.getOwnerUUID() != null && other.getOwnerUUID().equals(pipe.getOwnerUUID())))
+					if(pipe.isPublic() ? other.isPublic() : owners.canShare(ownerId, owners.getId((PipeTeleport<?>) other)))
 					{
 						connected.add(other);
 					}	
@@ -188,22 +649,52 @@ public class TeleportManager extends TeleportManagerBase
 			}
 
 		}
-		return connected;
 	}
 	
-	public Collection<PipeTeleport<PipeTransportItems>> getAllItemPipesInNetwork() 
+	private int getOwnerId(PipeTeleport<?> pipe)
+	{
+		//pipes that aren't registered may have an id from before a reset
+		return pipe.registryChannel == null ? owners.intern(pipe.ownerUUID, pipe.ownerName) : owners.getId(pipe);
+	}
+	
+	/**
+	 * Same access check as getConnectedPipes(), for pipes that aren't loaded.
+	 * @param owner the owner of a private pipe
+	 * @param other the owner of the pipe it would connect to
+	 * @return
+	 */
+	public synchronized boolean canShare(UUID owner, UUID other)
 	{
-		return itemPipes.values();
+		return owners.canShare(owners.intern(owner, null), owners.intern(other, null));
 	}
 	
-	public Collection<PipeTeleport<PipeTransportFluids>> getAllFluidPipesInNetwork() 
+	public synchronized Collection<PipeTeleport<PipeTransportItems>> getAllItemPipesInNetwork() 
 	{
-		return fluidPipes.values();
+		return getAllPipes(itemPipes);
 	}
 	
-	public Collection<PipeTeleport<PipeTransportPower>> getAllPowerPipesInNetwork() 
+	public synchronized Collection<PipeTeleport<PipeTransportFluids>> getAllFluidPipesInNetwork() 
 	{
-		return powerPipes.values();
+		return getAllPipes(fluidPipes);
+	}
+	
+	public synchronized Collection<PipeTeleport<PipeTransportPower>> getAllPowerPipesInNetwork() 
+	{
+		return getAllPipes(powerPipes);
+	}
+
+	/**
+	 * @return a copy of the pipes in every channel of one type
+	 */
+	private static <T extends PipeTeleport<?>> Collection<T> getAllPipes(Map<Long, TeleportChannel<T>> channels)
+	{
+		List<T> pipes = new ArrayList<T>();
+		for(TeleportChannel<T> channel : channels.values())
+		{
+			pipes.addAll(channel);
+		}
+
+		return pipes;
 	}
 	
 //	public Collection<PipeTeleport<PipeTransportItemsLogistics>> getAllLogisticsPipesInNetwork() 
@@ -229,6 +720,171 @@ public class TeleportManager extends TeleportManagerBase
 		frequencyNames.put(frequency, name);
 	}
 
+	/**
+	 * Remember a pipe's settings so that senders can find it while its chunk is unloaded.
+	 * Call this whenever a pipe is loaded or its settings change.
+	 * @param pipe
+	 */
+	public void rememberReceiver(PipeTeleport<?> pipe)
+	{
+		TeleportReceiverData data = getReceiverData();
+		if(data != null)
+		{
+			data.update(pipe);
+		}
+	}
+
+	/**
+	 * Forget a pipe that was broken.
+	 * @param pipe
+	 */
+	public void forgetReceiver(PipeTeleport<?> pipe)
+	{
+		TeleportReceiverData data = getReceiverData();
+		if(data != null)
+		{
+			data.remove(pipe.getWorld().provider.getDimensionId(), pipe.getPosition());
+		}
+	}
+
+	/**
+	 * Lease the chunks of the receivers the sender could send to but which are not loaded.
+	 * Does nothing unless receiver chunk loading is turned on in the config.
+	 * @param sender
+	 */
+	public void loadDormantReceivers(PipeTeleport<?> sender)
+	{
+		if(!APConfiguration.teleportReceiverChunkLoading)
+		{
+			return;
+		}
+
+		TeleportReceiverData data = getReceiverData();
+		if(data == null)
+		{
+			return;
+		}
+
+		for(TeleportReceiverData.Receiver receiver : data.getReceivers(sender.getType(), sender.getFrequency()))
+		{
+			if(!receiver.canConnectTo(sender))
+			{
+				continue;
+			}
+
+			World world = DimensionManager.getWorld(receiver.dimension);
+			if(world == null)
+			{
+				continue;
+			}
+
+			int chunkX = receiver.pos.getX() >> 4, chunkZ = receiver.pos.getZ() >> 4;
+			if(!world.getChunkProvider().chunkExists(chunkX, chunkZ))
+			{
+				ChunkLoadingManager.forWorld(world).leaseChunk(new ChunkCoordIntPair(chunkX, chunkZ), APConfiguration.teleportReceiverIdleTicks);
+				Log.debug(Category.TELEPORT, "[TeleportManager] Loading receiver at %s in dimension %d for sender at %s", receiver.pos, receiver.dimension, sender.getPosition());
+			}
+		}
+	}
+
+	/**
+	 * Keep a receiver that was loaded by loadDormantReceivers() loaded for a while longer, since something was just sent to it.
+	 * @param receiver
+	 */
+	public void renewReceiverLease(PipeTeleport<?> receiver)
+	{
+		if(APConfiguration.teleportReceiverChunkLoading)
+		{
+			BlockPos pos = receiver.getPosition();
+			ChunkLoadingManager.forWorld(receiver.getWorld()).renewLease(new ChunkCoordIntPair(pos.getX() >> 4, pos.getZ() >> 4), APConfiguration.teleportReceiverIdleTicks);
+		}
+	}
+
+	/**
+	 * Whether a cross-dimension sender that found nowhere to send to should queue what it sends.
+	 * That is when one of the receivers it could reach is in a dimension that is not loaded.
+	 * @param sender
+	 * @return
+	 */
+	public boolean shouldQueueFor(PipeTeleport<?> sender)
+	{
+		if(!sender.isCrossDimension() || APConfiguration.teleportQueueSize <= 0)
+		{
+			return false;
+		}
+
+		TeleportReceiverData data = getReceiverData();
+		if(data == null)
+		{
+			return false;
+		}
+
+		for(TeleportReceiverData.Receiver receiver : data.getReceivers(sender.getType(), sender.getFrequency()))
+		{
+			if(receiver.canConnectTo(sender) && DimensionManager.getWorld(receiver.dimension) == null)
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Cheap enough for every receiver to call every tick.
+	 * @return whether anything is waiting in the cross-dimension queues
+	 */
+	public boolean hasQueuedTraffic()
+	{
+		TeleportQueueData data = getQueueData();
+		return data != null && !data.isEmpty();
+	}
+
+	/**
+	 * @return the cross-dimension queues, or null if no world is loaded
+	 */
+	public TeleportQueueData getQueueData()
+	{
+		if(queueData == null)
+		{
+			World overworld = DimensionManager.getWorld(0);
+			if(overworld == null)
+			{
+				return null;
+			}
+
+			queueData = (TeleportQueueData) overworld.loadItemData(TeleportQueueData.class, TeleportQueueData.NAME);
+			if(queueData == null)
+			{
+				queueData = new TeleportQueueData(TeleportQueueData.NAME);
+				overworld.setItemData(TeleportQueueData.NAME, queueData);
+			}
+		}
+
+		return queueData;
+	}
+
+	private TeleportReceiverData getReceiverData()
+	{
+		if(receiverData == null)
+		{
+			World overworld = DimensionManager.getWorld(0);
+			if(overworld == null)
+			{
+				return null;
+			}
+
+			receiverData = (TeleportReceiverData) overworld.loadItemData(TeleportReceiverData.class, TeleportReceiverData.NAME);
+			if(receiverData == null)
+			{
+				receiverData = new TeleportReceiverData(TeleportReceiverData.NAME);
+				overworld.setItemData(TeleportReceiverData.NAME, receiverData);
+			}
+		}
+
+		return receiverData;
+	}
+
 	public File getWorldSave(World world) 
 	{
 		return world.getSaveHandler().getMapFileFromName("foo").getParentFile().getParentFile();
@@ -0,0 +1,157 @@
+package buildcraft.additionalpipes.pipes;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import net.minecraft.scoreboard.ScorePlayerTeam;
+import net.minecraft.scoreboard.Scoreboard;
+import buildcraft.additionalpipes.utils.Log;
+import buildcraft.additionalpipes.utils.Log.Category;
+
+/**
+ * Gives each pipe owner a small number, and each scoreboard team a bit, so checking whether two private pipes
+ * may connect is an int compare or a bit test instead of comparing UUIDs.
+ *
+ * Owners are never forgotten, since there are only ever as many as players who placed teleport pipes.
+ * Only 64 teams get a bit; players on any further team only share with themselves.
+ * Only used while holding TeleportManager's lock.
+ */
+public class TeleportOwners
+{
+	/**
+	 * The id of pipes without an owner.  It never matches anything.
+	 */
+	public static final int NO_OWNER = 0;
+
+	private final Map<UUID, Integer> ids = new HashMap<UUID, Integer>();
+
+	// by id.  Index 0 is NO_OWNER.
+	private String[] names = new String[16];
+	private long[] teamMasks = new long[16];
+	private int count = 1;
+
+	private final Map<String, Integer> teamBits = new HashMap<String, Integer>();
+	private boolean warnedTooManyTeams;
+
+	/**
+	 * @param uuid
+	 * @param name the owner's last known name, used to look up their team
+	 * @return the owner's id, giving them one if they don't have one yet
+	 */
+	public int intern(UUID uuid, String name)
+	{
+		if(uuid == null)
+		{
+			return NO_OWNER;
+		}
+
+		Integer id = ids.get(uuid);
+		if(id == null)
+		{
+			if(count == names.length)
+			{
+				names = Arrays.copyOf(names, count * 2);
+				teamMasks = Arrays.copyOf(teamMasks, count * 2);
+			}
+
+			id = count++;
+			ids.put(uuid, id);
+		}
+
+		if(name != null && !name.isEmpty())
+		{
+			names[id] = name;
+		}
+		return id;
+	}
+
+	/**
+	 * Get a pipe's owner id, interning its owner again if it changed since it was registered.
+	 * @param pipe
+	 * @return
+	 */
+	public int getId(PipeTeleport<?> pipe)
+	{
+		//owners are usually set after the pipe is placed, by whoever first opens it
+		if(pipe.internedOwner != pipe.ownerUUID)
+		{
+			pipe.ownerId = intern(pipe.ownerUUID, pipe.ownerName);
+			pipe.internedOwner = pipe.ownerUUID;
+		}
+
+		return pipe.ownerId;
+	}
+
+	/**
+	 * Whether a private pipe of one owner may connect to a pipe of another: the same owner, or on a shared team.
+	 * @param owner
+	 * @param other
+	 * @return
+	 */
+	public boolean canShare(int owner, int other)
+	{
+		return owner != NO_OWNER && (owner == other || (teamMasks[owner] & teamMasks[other]) != 0);
+	}
+
+	/**
+	 * Put an owner in a team, for tests and for refreshTeams().
+	 * @param owner
+	 * @param teamName
+	 */
+	public void joinTeam(int owner, String teamName)
+	{
+		Integer bit = teamBits.get(teamName);
+		if(bit == null)
+		{
+			if(teamBits.size() == Long.SIZE)
+			{
+				if(!warnedTooManyTeams)
+				{
+					Log.warn(Category.TELEPORT, "More than " + Long.SIZE + " scoreboard teams own teleport pipes, so team " + teamName + " won't share its pipes");
+					warnedTooManyTeams = true;
+				}
+				return;
+			}
+
+			bit = teamBits.size();
+			teamBits.put(teamName, bit);
+		}
+
+		teamMasks[owner] |= 1L << bit;
+	}
+
+	/**
+	 * Look up the team of every owner again, for when players join or leave teams.
+	 * @param scoreboard
+	 * @return whether anyone's teams changed
+	 */
+	public boolean refreshTeams(Scoreboard scoreboard)
+	{
+		long[] oldMasks = Arrays.copyOf(teamMasks, count);
+		Arrays.fill(teamMasks, 0);
+		teamBits.clear();
+
+		for(int owner = 1; owner < count; ++owner)
+		{
+			ScorePlayerTeam team = names[owner] == null ? null : scoreboard.getPlayersTeam(names[owner]);
+			if(team != null)
+			{
+				joinTeam(owner, team.getRegisteredName());
+			}
+		}
+
+		return !Arrays.equals(oldMasks, Arrays.copyOf(teamMasks, count));
+	}
+
+	public void reset()
+	{
+		ids.clear();
+		Arrays.fill(names, null);
+		Arrays.fill(teamMasks, 0);
+		count = 1;
+		teamBits.clear();
+		warnedTooManyTeams = false;
+	}
+}
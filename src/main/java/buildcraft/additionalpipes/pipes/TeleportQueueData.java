@@ -0,0 +1,271 @@
+package buildcraft.additionalpipes.pipes;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.UUID;
+
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraft.world.WorldSavedData;
+import net.minecraftforge.fluids.FluidContainerRegistry;
+import net.minecraftforge.fluids.FluidStack;
+import buildcraft.additionalpipes.APConfiguration;
+import buildcraft.additionalpipes.api.PipeType;
+
+/**
+ * Holds what cross-dimension senders sent while every receiver they could reach was in an unloaded dimension.
+ *
+ * Each channel gets a queue of at most teleportQueueSize entries.  Once it is full, senders fall back to
+ * their usual behaviour instead of queueing.  Receivers take from the queue as they tick.
+ * It is saved with the overworld so nothing is lost over a restart.
+ */
+public class TeleportQueueData extends WorldSavedData
+{
+	public static final String NAME = "additionalpipes_queues";
+
+	/**
+	 * Something waiting in a queue, either items or fluid.
+	 */
+	public static class Entry
+	{
+		public final ItemStack stack;
+		public final FluidStack fluid;
+
+		// null if the sender was public
+		public final UUID ownerUUID;
+
+		Entry(ItemStack stack, FluidStack fluid, UUID ownerUUID)
+		{
+			this.stack = stack;
+			this.fluid = fluid;
+			this.ownerUUID = ownerUUID;
+		}
+
+		/**
+		 * Same check as TeleportManager.getConnectedPipes(), with the sender's settings.
+		 */
+		public boolean canDeliverTo(PipeTeleport<?> receiver)
+		{
+			return ownerUUID == null ? receiver.isPublic() : (!receiver.isPublic() && TeleportManager.instance.canShare(ownerUUID, receiver.getOwnerUUID()));
+		}
+	}
+
+	private final Map<Long, LinkedList<Entry>> queues;
+
+	// entries in all the queues, so receivers can check for nothing queued without a lookup
+	private int size;
+
+	public TeleportQueueData(String name)
+	{
+		super(name);
+		queues = new HashMap<Long, LinkedList<Entry>>();
+	}
+
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	/**
+	 * Queue a stack for the sender's channel.
+	 * @param sender
+	 * @param stack not copied, so the caller must not use it afterwards
+	 * @return whether the stack was queued.  False if the queue is full.
+	 */
+	public boolean offerItems(PipeTeleport<?> sender, ItemStack stack)
+	{
+		LinkedList<Entry> queue = getQueue(sender.getType(), sender.getFrequency());
+		if(queue.size() >= APConfiguration.teleportQueueSize)
+		{
+			return false;
+		}
+
+		queue.add(new Entry(stack, null, getOwner(sender)));
+		++size;
+		markDirty();
+		return true;
+	}
+
+	/**
+	 * Queue fluid for the sender's channel.  Fluid is merged into the last entry of the same kind, up to a bucket per entry.
+	 * @param sender
+	 * @param resource
+	 * @param doFill whether to actually queue it, or just work out how much would be queued
+	 * @return how much of the fluid was queued
+	 */
+	public int offerFluid(PipeTeleport<?> sender, FluidStack resource, boolean doFill)
+	{
+		LinkedList<Entry> queue = getQueue(sender.getType(), sender.getFrequency());
+		UUID owner = getOwner(sender);
+
+		Entry last = queue.peekLast();
+		if(last != null && last.fluid != null && last.fluid.isFluidEqual(resource)
+				&& (owner == null ? last.ownerUUID == null : owner.equals(last.ownerUUID)))
+		{
+			int merged = Math.min(resource.amount, FluidContainerRegistry.BUCKET_VOLUME - last.fluid.amount);
+			if(merged > 0)
+			{
+				if(doFill)
+				{
+					last.fluid.amount += merged;
+					markDirty();
+				}
+				return merged;
+			}
+		}
+
+		if(queue.size() >= APConfiguration.teleportQueueSize)
+		{
+			return 0;
+		}
+
+		int queued = Math.min(resource.amount, FluidContainerRegistry.BUCKET_VOLUME);
+		if(doFill)
+		{
+			FluidStack fluid = resource.copy();
+			fluid.amount = queued;
+			queue.add(new Entry(null, fluid, owner));
+			++size;
+			markDirty();
+		}
+		return queued;
+	}
+
+	/**
+	 * @param receiver
+	 * @return the oldest entry in the receiver's channel it is allowed to receive, or null if there is none
+	 */
+	public Entry peek(PipeTeleport<?> receiver)
+	{
+		LinkedList<Entry> queue = queues.get(TeleportManager.getChannelKey(receiver.getType(), receiver.getFrequency()));
+		if(queue == null)
+		{
+			return null;
+		}
+
+		for(Entry entry : queue)
+		{
+			if(entry.canDeliverTo(receiver))
+			{
+				return entry;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Take something that was delivered out of its entry, and remove the entry once it is empty.
+	 * @param receiver the pipe it was delivered to
+	 * @param entry
+	 * @param amount millibuckets delivered, ignored for items since stacks are delivered whole
+	 */
+	public void delivered(PipeTeleport<?> receiver, Entry entry, int amount)
+	{
+		markDirty();
+		if(entry.fluid != null)
+		{
+			entry.fluid.amount -= amount;
+			if(entry.fluid.amount > 0)
+			{
+				return;
+			}
+		}
+
+		long key = TeleportManager.getChannelKey(receiver.getType(), receiver.getFrequency());
+		LinkedList<Entry> queue = queues.get(key);
+		if(queue != null && queue.remove(entry))
+		{
+			--size;
+			if(queue.isEmpty())
+			{
+				queues.remove(key);
+			}
+		}
+	}
+
+	private LinkedList<Entry> getQueue(PipeType type, int frequency)
+	{
+		long key = TeleportManager.getChannelKey(type, frequency);
+		LinkedList<Entry> queue = queues.get(key);
+		if(queue == null)
+		{
+			queue = new LinkedList<Entry>();
+			queues.put(key, queue);
+		}
+
+		return queue;
+	}
+
+	private static UUID getOwner(PipeTeleport<?> sender)
+	{
+		return sender.isPublic() ? null : sender.getOwnerUUID();
+	}
+
+	@Override
+	public void readFromNBT(NBTTagCompound nbt)
+	{
+		queues.clear();
+		size = 0;
+
+		NBTTagList entryList = nbt.getTagList("entries", 10);
+		for(int index = 0; index < entryList.tagCount(); ++index)
+		{
+			NBTTagCompound entryTag = entryList.getCompoundTagAt(index);
+			PipeType[] types = PipeType.values();
+			int typeIndex = entryTag.getByte("type");
+			if(typeIndex < 0 || typeIndex >= types.length)
+			{
+				continue;
+			}
+
+			ItemStack stack = entryTag.hasKey("item") ? ItemStack.loadItemStackFromNBT(entryTag.getCompoundTag("item")) : null;
+			FluidStack fluid = entryTag.hasKey("fluid") ? FluidStack.loadFluidStackFromNBT(entryTag.getCompoundTag("fluid")) : null;
+			if(stack == null && fluid == null)
+			{
+				//the item or fluid was removed from the game
+				continue;
+			}
+
+			UUID ownerUUID = entryTag.hasKey("ownerUUID") ? UUID.fromString(entryTag.getString("ownerUUID")) : null;
+			getQueue(types[typeIndex], entryTag.getInteger("freq")).add(new Entry(stack, fluid, ownerUUID));
+			++size;
+		}
+	}
+
+	@Override
+	public void writeToNBT(NBTTagCompound nbt)
+	{
+		NBTTagList entryList = new NBTTagList();
+		for(Map.Entry<Long, LinkedList<Entry>> queue : queues.entrySet())
+		{
+			//undo TeleportManager.getChannelKey()
+			int typeIndex = (int) (queue.getKey() >>> 32);
+			int frequency = queue.getKey().intValue();
+
+			for(Entry entry : queue.getValue())
+			{
+				NBTTagCompound entryTag = new NBTTagCompound();
+				entryTag.setByte("type", (byte) typeIndex);
+				entryTag.setInteger("freq", frequency);
+				if(entry.stack != null)
+				{
+					entryTag.setTag("item", entry.stack.writeToNBT(new NBTTagCompound()));
+				}
+				if(entry.fluid != null)
+				{
+					entryTag.setTag("fluid", entry.fluid.writeToNBT(new NBTTagCompound()));
+				}
+				if(entry.ownerUUID != null)
+				{
+					entryTag.setString("ownerUUID", entry.ownerUUID.toString());
+				}
+				entryList.appendTag(entryTag);
+			}
+		}
+
+		nbt.setTag("entries", entryList);
+	}
+}
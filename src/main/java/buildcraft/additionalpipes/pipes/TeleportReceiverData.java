@@ -0,0 +1,185 @@
+package buildcraft.additionalpipes.pipes;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraft.util.BlockPos;
+import net.minecraft.world.WorldSavedData;
+import buildcraft.additionalpipes.api.PipeType;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+
+/**
+ * Remembers every teleport pipe that can receive, including the ones in chunks that are not loaded.
+ *
+ * TeleportManager only knows about loaded pipes, so this is what lets a sender find a receiver to load.
+ * It is saved with the overworld.
+ */
+public class TeleportReceiverData extends WorldSavedData
+{
+	public static final String NAME = "additionalpipes_receivers";
+
+	public static class Receiver
+	{
+		public final PipeType type;
+		public final int frequency;
+		public final int dimension;
+		public final BlockPos pos;
+		public final UUID ownerUUID;
+		public final boolean isPublic;
+		public final boolean crossDimension;
+
+		public Receiver(PipeType type, int frequency, int dimension, BlockPos pos, UUID ownerUUID, boolean isPublic, boolean crossDimension)
+		{
+			this.type = type;
+			this.frequency = frequency;
+			this.dimension = dimension;
+			this.pos = pos;
+			this.ownerUUID = ownerUUID;
+			this.isPublic = isPublic;
+			this.crossDimension = crossDimension;
+		}
+
+		/**
+		 * Same check as TeleportManager.getConnectedPipes(): same dimension or both cross-dimension, and both public or shared by owner or team.
+		 */
+		public boolean canConnectTo(PipeTeleport<?> sender)
+		{
+			if(crossDimension != sender.isCrossDimension() || (!crossDimension && dimension != sender.getDimension()))
+			{
+				return false;
+			}
+
+			return sender.isPublic() ? isPublic : TeleportManager.instance.canShare(sender.getOwnerUUID(), ownerUUID);
+		}
+
+		private boolean sameSettings(Receiver other)
+		{
+			return type == other.type && frequency == other.frequency && isPublic == other.isPublic && crossDimension == other.crossDimension
+					&& (ownerUUID == null ? other.ownerUUID == null : ownerUUID.equals(other.ownerUUID));
+		}
+	}
+
+	private final Map<Integer, Map<BlockPos, Receiver>> receiversByDimension;
+
+	private final Multimap<Long, Receiver> receiversByChannel;
+
+	public TeleportReceiverData(String name)
+	{
+		super(name);
+		receiversByDimension = new HashMap<Integer, Map<BlockPos, Receiver>>();
+		receiversByChannel = HashMultimap.create();
+	}
+
+	/**
+	 * Record the current settings of a pipe, or forget it if it no longer receives.
+	 * @param pipe
+	 */
+	public void update(PipeTeleport<?> pipe)
+	{
+		int dimension = pipe.getWorld().provider.getDimensionId();
+		if(!pipe.canReceive())
+		{
+			remove(dimension, pipe.getPosition());
+			return;
+		}
+
+		Receiver receiver = new Receiver(pipe.getType(), pipe.getFrequency(), dimension, pipe.getPosition(), pipe.getOwnerUUID(), pipe.isPublic(), pipe.isCrossDimension());
+		Receiver oldReceiver = getDimension(dimension).get(receiver.pos);
+
+		//pipes are updated every time their chunk loads, so don't resave if nothing changed
+		if(oldReceiver != null && oldReceiver.sameSettings(receiver))
+		{
+			return;
+		}
+
+		remove(dimension, receiver.pos);
+		put(receiver);
+		markDirty();
+	}
+
+	public void remove(int dimension, BlockPos pos)
+	{
+		Receiver receiver = getDimension(dimension).remove(pos);
+		if(receiver != null)
+		{
+			receiversByChannel.remove(TeleportManager.getChannelKey(receiver.type, receiver.frequency), receiver);
+			markDirty();
+		}
+	}
+
+	public Collection<Receiver> getReceivers(PipeType type, int frequency)
+	{
+		return receiversByChannel.get(TeleportManager.getChannelKey(type, frequency));
+	}
+
+	private void put(Receiver receiver)
+	{
+		getDimension(receiver.dimension).put(receiver.pos, receiver);
+		receiversByChannel.put(TeleportManager.getChannelKey(receiver.type, receiver.frequency), receiver);
+	}
+
+	private Map<BlockPos, Receiver> getDimension(int dimension)
+	{
+		Map<BlockPos, Receiver> receivers = receiversByDimension.get(dimension);
+		if(receivers == null)
+		{
+			receivers = new HashMap<BlockPos, Receiver>();
+			receiversByDimension.put(dimension, receivers);
+		}
+
+		return receivers;
+	}
+
+	@Override
+	public void readFromNBT(NBTTagCompound nbt)
+	{
+		receiversByDimension.clear();
+		receiversByChannel.clear();
+
+		NBTTagList receiverList = nbt.getTagList("receivers", 10);
+		for(int index = 0; index < receiverList.tagCount(); ++index)
+		{
+			NBTTagCompound receiverTag = receiverList.getCompoundTagAt(index);
+			PipeType[] types = PipeType.values();
+			int typeIndex = receiverTag.getByte("type");
+			if(typeIndex < 0 || typeIndex >= types.length)
+			{
+				continue;
+			}
+
+			UUID ownerUUID = receiverTag.hasKey("ownerUUID") ? UUID.fromString(receiverTag.getString("ownerUUID")) : null;
+			put(new Receiver(types[typeIndex], receiverTag.getInteger("freq"), receiverTag.getInteger("dim"),
+					BlockPos.fromLong(receiverTag.getLong("pos")), ownerUUID, receiverTag.getBoolean("isPublic"),
+					receiverTag.getBoolean("crossDim")));
+		}
+	}
+
+	@Override
+	public void writeToNBT(NBTTagCompound nbt)
+	{
+		NBTTagList receiverList = new NBTTagList();
+		for(Receiver receiver : receiversByChannel.values())
+		{
+			NBTTagCompound receiverTag = new NBTTagCompound();
+			receiverTag.setByte("type", (byte) receiver.type.ordinal());
+			receiverTag.setInteger("freq", receiver.frequency);
+			receiverTag.setInteger("dim", receiver.dimension);
+			receiverTag.setLong("pos", receiver.pos.toLong());
+			if(receiver.ownerUUID != null)
+			{
+				receiverTag.setString("ownerUUID", receiver.ownerUUID.toString());
+			}
+			receiverTag.setBoolean("isPublic", receiver.isPublic);
+			receiverTag.setBoolean("crossDim", receiver.crossDimension);
+			receiverList.appendTag(receiverTag);
+		}
+
+		nbt.setTag("receivers", receiverList);
+	}
+}
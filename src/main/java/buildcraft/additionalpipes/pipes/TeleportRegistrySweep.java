@@ -0,0 +1,203 @@
+package buildcraft.additionalpipes.pipes;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.world.World;
+import net.minecraftforge.common.DimensionManager;
+import buildcraft.additionalpipes.metrics.APProfiler.Section;
+import buildcraft.additionalpipes.metrics.TickBudget;
+import buildcraft.additionalpipes.utils.Log;
+import buildcraft.additionalpipes.utils.Log.Category;
+import buildcraft.transport.TileGenericPipe;
+
+/**
+ * Finds teleport pipes that are still registered after they went away without being removed, such as pipes
+ * deleted by world editors, and removes them from TeleportManager.
+ *
+ * It works through a copy of the registered pipes a few at a time, so each tick only costs a few checks,
+ * and those wait for a later tick when the tick budget is used up.
+ * What it finds is kept for the leak report in the command, since every leak points at a missed removal.
+ */
+public class TeleportRegistrySweep implements TickBudget.Deferrable
+{
+	/**
+	 * How many pipes are checked each tick.
+	 */
+	public static final int PIPES_PER_TICK = 64;
+
+	/**
+	 * How many of the latest leaks are remembered for the report.
+	 */
+	public static final int RECENT_LEAKS = 16;
+
+	public static enum Reason
+	{
+		INVALID("tile entity was invalidated"),
+		REPLACED("another tile entity or pipe took its place"),
+		UNLOADED("its chunk or dimension unloaded");
+
+		public final String description;
+
+		private Reason(String description)
+		{
+			this.description = description;
+		}
+	}
+
+	private final TeleportManager manager;
+
+	// the pipes being worked through, and how far through them the sweep is
+	private final List<PipeTeleport<?>> pipes = new ArrayList<PipeTeleport<?>>();
+	private int cursor;
+
+	private final long[] purged = new long[Reason.values().length];
+	private final LinkedList<String> recentLeaks = new LinkedList<String>();
+	private long sweeps;
+
+	TeleportRegistrySweep(TeleportManager manager)
+	{
+		this.manager = manager;
+	}
+
+	@Override
+	public void runDeferredWork()
+	{
+		step(manager);
+	}
+
+	@Override
+	public Section getBudgetSection()
+	{
+		return Section.REGISTRY_SWEEP;
+	}
+
+	@Override
+	public TileEntity getBudgetTile()
+	{
+		return null;
+	}
+
+	/**
+	 * Check the next few pipes, starting over with the pipes registered now once every pipe has been checked.
+	 * @param manager
+	 */
+	void step(TeleportManager manager)
+	{
+		if(cursor >= pipes.size())
+		{
+			pipes.clear();
+			cursor = 0;
+			manager.copyRegisteredPipes(pipes);
+			if(pipes.isEmpty())
+			{
+				return;
+			}
+			++sweeps;
+		}
+
+		int end = Math.min(pipes.size(), cursor + PIPES_PER_TICK);
+		for(; cursor < end; ++cursor)
+		{
+			PipeTeleport<?> pipe = pipes.get(cursor);
+			pipes.set(cursor, null);
+
+			Reason reason = findLeak(pipe);
+			if(reason != null && manager.purge(pipe))
+			{
+				recordLeak(pipe, reason);
+			}
+		}
+
+		if(cursor >= pipes.size())
+		{
+			//don't hold on to the pipes between sweeps
+			pipes.clear();
+		}
+	}
+
+	/**
+	 * @param pipe
+	 * @return why the pipe shouldn't be registered any more, or null if it is fine
+	 */
+	static Reason findLeak(PipeTeleport<?> pipe)
+	{
+		TileGenericPipe container = pipe.container;
+		if(container == null || pipe.registryChannel == null)
+		{
+			//made for tests, or removed properly since the sweep started
+			return null;
+		}
+
+		if(container.isInvalid())
+		{
+			return Reason.INVALID;
+		}
+
+		World world = container.getWorld();
+		if(world == null || DimensionManager.getWorld(world.provider.getDimensionId()) != world || !world.isBlockLoaded(container.getPos()))
+		{
+			return Reason.UNLOADED;
+		}
+
+		if(world.getTileEntity(container.getPos()) != container || container.pipe != pipe)
+		{
+			return Reason.REPLACED;
+		}
+
+		return null;
+	}
+
+	private void recordLeak(PipeTeleport<?> pipe, Reason reason)
+	{
+		++purged[reason.ordinal()];
+
+		String leak = String.format("%s %d at [%d, %d, %d] dim %d: %s", pipe.getType().toString().toLowerCase(), pipe.getFrequency(),
+				pipe.container.getPos().getX(), pipe.container.getPos().getY(), pipe.container.getPos().getZ(), pipe.getDimension(), reason.description);
+		recentLeaks.addFirst(leak);
+		if(recentLeaks.size() > RECENT_LEAKS)
+		{
+			recentLeaks.removeLast();
+		}
+
+		Log.warn(Category.TELEPORT, "Removed stale teleport pipe " + leak);
+	}
+
+	public long getPurged(Reason reason)
+	{
+		return purged[reason.ordinal()];
+	}
+
+	/**
+	 * @return the latest leaks, newest first
+	 */
+	public Iterator<String> getRecentLeaks()
+	{
+		return recentLeaks.iterator();
+	}
+
+	/**
+	 * @return how many times the sweep has started over
+	 */
+	public long getSweeps()
+	{
+		return sweeps;
+	}
+
+	/**
+	 * @return how many pipes are left to check before the sweep starts over
+	 */
+	public int getRemaining()
+	{
+		return pipes.size() - cursor;
+	}
+
+	void reset()
+	{
+		pipes.clear();
+		cursor = 0;
+	}
+}
@@ -0,0 +1,48 @@
+package buildcraft.additionalpipes.utils;
+
+import java.util.Random;
+
+import net.minecraft.util.EnumFacing;
+
+/**
+ * Helpers for sets of sides packed into the low 6 bits of an int, bit n being EnumFacing.VALUES[n].
+ */
+public class DirectionUtils
+{
+	public static final int ALL_SIDES = 0x3F;
+
+	public static int bit(EnumFacing side)
+	{
+		return 1 << side.ordinal();
+	}
+
+	public static boolean contains(int mask, EnumFacing side)
+	{
+		return (mask & bit(side)) != 0;
+	}
+
+	/**
+	 * @param mask
+	 * @param index
+	 * @return the index'th side in the mask, counting from the lowest bit
+	 */
+	public static EnumFacing nthSide(int mask, int index)
+	{
+		for(int skipped = 0; skipped < index; ++skipped)
+		{
+			mask &= mask - 1;
+		}
+
+		return EnumFacing.VALUES[Integer.numberOfTrailingZeros(mask)];
+	}
+
+	/**
+	 * @param mask must not be empty
+	 * @param random
+	 * @return one of the sides in the mask, chosen uniformly
+	 */
+	public static EnumFacing randomSide(int mask, Random random)
+	{
+		return nthSide(mask, random.nextInt(Integer.bitCount(mask)));
+	}
+}
@@ -5,11 +5,89 @@ import net.minecraftforge.fml.common.FMLLog;
 
 import org.apache.logging.log4j.Level;
 
-import buildcraft.additionalpipes.APConfiguration;
 import buildcraft.additionalpipes.AdditionalPipes;
 
 public class Log
 {
+    /**
+     * Parts of the mod whose logging can be turned up or down on its own, with the logLevels config option.
+     * Debug messages are logged at INFO, so they show up without changing the log4j config.
+     * Calls without a category are in GENERAL.
+     */
+    public static enum Category
+    {
+        GENERAL("general"),
+        TELEPORT("teleport"),
+        CHUNK_LOADING("chunkloading"),
+        NETWORK("network"),
+        GUI("gui"),
+        PIPES("pipes");
+
+        public final String configName;
+
+        // read on every guarded call, and only written while the config loads
+        volatile Level level = Level.INFO;
+
+        private Category(String configName)
+        {
+            this.configName = configName;
+        }
+    }
+
+    /**
+     * Set the level of every category from the config.
+     * @param debug whether categories that aren't listed log debug messages
+     * @param levels comma separated category=level pairs, like "teleport=debug,chunkloading=warn"
+     */
+    public static void configure(boolean debug, String levels)
+    {
+        for(Category category : Category.values())
+        {
+            category.level = debug ? Level.DEBUG : Level.INFO;
+        }
+
+        for(String pair : levels.split(","))
+        {
+            String[] parts = pair.trim().split("=");
+            if(parts.length != 2)
+            {
+                continue;
+            }
+
+            Category category = null;
+            for(Category candidate : Category.values())
+            {
+                if(candidate.configName.equalsIgnoreCase(parts[0].trim()))
+                {
+                    category = candidate;
+                }
+            }
+
+            if(category == null)
+            {
+                warn("Unknown log category " + parts[0].trim() + " in logLevels");
+                continue;
+            }
+            category.level = Level.toLevel(parts[1].trim(), category.level);
+        }
+    }
+
+    /**
+     * Check this before building an expensive message.
+     * @param category
+     * @param logLevel
+     * @return whether messages of a level are logged for a category
+     */
+    public static boolean isEnabled(Category category, Level logLevel)
+    {
+        return logLevel.intLevel() <= category.level.intLevel();
+    }
+
+    public static boolean isDebugEnabled(Category category)
+    {
+        return isEnabled(category, Level.DEBUG);
+    }
+
     public static void log(Level logLevel, Object object)
     {
         FMLLog.log(AdditionalPipes.NAME, logLevel, String.valueOf(object));
@@ -22,17 +100,59 @@ public class Log
 
     public static void debug(Object object)
     {
-    	if(APConfiguration.enableDebugLog)
-    	{
-    		log(Level.INFO, object);
-    	}
+        debug(Category.GENERAL, object);
+    }
+
+    public static void debug(Category category, Object object)
+    {
+        if(isDebugEnabled(category))
+        {
+            log(Level.INFO, object);
+        }
+    }
+
+    /**
+     * Log a debug message, only formatting it if the category logs debug messages.
+     * Arguments are still boxed, so guard calls on hot paths with isDebugEnabled() instead.
+     * @param category
+     * @param format as for String.format()
+     * @param args
+     */
+    public static void debug(Category category, String format, Object... args)
+    {
+        if(isDebugEnabled(category))
+        {
+            log(Level.INFO, String.format(format, args));
+        }
     }
 
     public static void error(Object object)
     {
-        log(Level.ERROR, object);
+        error(Category.GENERAL, object);
+    }
+
+    public static void error(Category category, Object object)
+    {
+        if(isEnabled(category, Level.ERROR))
+        {
+            log(Level.ERROR, object);
+        }
+    }
+
+    /**
+     * Log an error with the stack trace of what caused it.
+     * @param category
+     * @param object
+     * @param thrown
+     */
+    public static void error(Category category, Object object, Throwable thrown)
+    {
+        if(isEnabled(category, Level.ERROR))
+        {
+            FMLLog.log(AdditionalPipes.NAME, Level.ERROR, thrown, "%s", String.valueOf(object));
+        }
     }
-    
+
     public static void unexpected(Object object)
     {
         log(Level.ERROR, "...what? " + object);
@@ -45,7 +165,15 @@ public class Log
 
     public static void info(Object object)
     {
-        log(Level.INFO, object);
+        info(Category.GENERAL, object);
+    }
+
+    public static void info(Category category, Object object)
+    {
+        if(isEnabled(category, Level.INFO))
+        {
+            log(Level.INFO, object);
+        }
     }
 
     public static void off(Object object)
@@ -60,6 +188,14 @@ public class Log
 
     public static void warn(Object object)
     {
-        log(Level.WARN, object);
+        warn(Category.GENERAL, object);
+    }
+
+    public static void warn(Category category, Object object)
+    {
+        if(isEnabled(category, Level.WARN))
+        {
+            log(Level.WARN, object);
+        }
     }
 }
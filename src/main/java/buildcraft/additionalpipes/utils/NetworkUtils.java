@@ -1,6 +1,7 @@
 package buildcraft.additionalpipes.utils;
 
 import io.netty.buffer.ByteBuf;
+import buildcraft.additionalpipes.utils.Log.Category;
 
 public class NetworkUtils
 {
@@ -16,7 +17,7 @@ public class NetworkUtils
 		//transform to byte array
 		byte[] bytes = new byte[(booleans.length / 8) + 1];
 		
-		Log.debug("Fitting " + booleans.length + " booleans in " + bytes.length + " byte" + (bytes.length > 1 ? "s" : ""));
+		Log.debug(Category.NETWORK, "Fitting %d booleans in %d byte%s", booleans.length, bytes.length, bytes.length > 1 ? "s" : "");
 		
 		for(int index = 0; index < booleans.length; ++index)
 		{
@@ -44,4 +45,57 @@ public class NetworkUtils
 		}
 		return booleans;
 	}
+	
+	/**
+	 * Write a non-negative int to a ByteBuf using 7 bits per byte, so small values take a single byte.
+	 * 
+	 * Use readVarInt() to deserialize.
+	 * @param buf
+	 * @param value
+	 */
+	public static void writeVarInt(ByteBuf buf, int value)
+	{
+		while((value & ~0x7F) != 0)
+		{
+			buf.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		
+		buf.writeByte(value);
+	}
+	
+	public static int readVarInt(ByteBuf buf)
+	{
+		int value = 0;
+		int shift = 0;
+		byte current;
+		do
+		{
+			current = buf.readByte();
+			value |= (current & 0x7F) << shift;
+			shift += 7;
+		}
+		while((current & 0x80) != 0 && shift < 35);
+		
+		return value;
+	}
+	
+	/**
+	 * Write an int which is usually close to zero, positive or negative.  The value is zig-zag encoded
+	 * so that -1 takes as little space as 1.
+	 * 
+	 * Use readSignedVarInt() to deserialize.
+	 * @param buf
+	 * @param value
+	 */
+	public static void writeSignedVarInt(ByteBuf buf, int value)
+	{
+		writeVarInt(buf, (value << 1) ^ (value >> 31));
+	}
+	
+	public static int readSignedVarInt(ByteBuf buf)
+	{
+		int zigZag = readVarInt(buf);
+		return (zigZag >>> 1) ^ -(zigZag & 1);
+	}
 }
@@ -0,0 +1,264 @@
+package buildcraft.additionalpipes.utils;
+
+import java.util.ArrayList;
+
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent.Phase;
+import net.minecraftforge.fml.common.gameevent.TickEvent.ServerTickEvent;
+
+/**
+ * Wakes pipes up after a number of ticks, so pipes that only do something now and then don't have to count ticks.
+ *
+ * Timers are kept in four wheels of 64 slots.  The first wheel has a slot per tick, each further wheel a slot per
+ * whole turn of the one before, and a slot's timers move down a wheel when it comes round.  Scheduling, cancelling and
+ * each tick all take constant time however many timers there are, and a tick with nothing due does almost nothing.
+ * instance is advanced at the end of every server tick.  Other instances can be made for tests.
+ * Only the server thread uses it, so nothing here is synchronized.
+ */
+public class TimerWheel
+{
+	public static final TimerWheel instance = new TimerWheel();
+
+	private static final int SLOT_BITS = 6;
+	private static final int SLOTS = 1 << SLOT_BITS;
+	private static final int LEVELS = 4;
+
+	/**
+	 * Longer delays are cut down to this, about four days.  Short of a whole turn of the last wheel, so it never wraps.
+	 */
+	public static final long MAX_DELAY = (long) (SLOTS - 2) << (SLOT_BITS * (LEVELS - 1));
+
+	/**
+	 * What a timer does when it goes off.  Pipes implement this themselves.
+	 */
+	public static interface Task
+	{
+		void onTimer();
+	}
+
+	/**
+	 * A wake up for one task.  A timer is either scheduled once or not at all, so scheduling it again moves it.
+	 */
+	public static class Timer
+	{
+		final Task task;
+
+		long due;
+		boolean scheduled;
+
+		// the slot the timer is in, and its neighbours there
+		int level, slot;
+		Timer previous, next;
+
+		public Timer(Task task)
+		{
+			this.task = task;
+		}
+
+		public boolean isScheduled()
+		{
+			return scheduled;
+		}
+	}
+
+	// the first timer in each slot
+	private final Timer[][] slots = new Timer[LEVELS][SLOTS];
+
+	// the level of timers that are due this tick but haven't gone off yet
+	private static final int FIRING = -1;
+
+	// scratch list for advance()
+	private final ArrayList<Timer> firing = new ArrayList<Timer>();
+
+	private long now;
+	private int size;
+
+	/**
+	 * @return ticks advanced so far
+	 */
+	public long getTime()
+	{
+		return now;
+	}
+
+	/**
+	 * @return how many timers are scheduled
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Make a timer go off after some ticks, instead of whenever it was going to.
+	 * @param timer
+	 * @param delay ticks from now, at least 1
+	 */
+	public void schedule(Timer timer, long delay)
+	{
+		cancel(timer);
+		timer.due = now + Math.max(1, Math.min(delay, MAX_DELAY));
+		insert(timer);
+	}
+
+	/**
+	 * Make a timer go off after some ticks, unless it was already going to go off sooner.  For waking pipes early.
+	 * @param timer
+	 * @param delay
+	 */
+	public void scheduleNoLater(Timer timer, long delay)
+	{
+		if(!timer.scheduled || timer.due > now + Math.max(1, delay))
+		{
+			schedule(timer, delay);
+		}
+	}
+
+	public void cancel(Timer timer)
+	{
+		if(!timer.scheduled)
+		{
+			return;
+		}
+
+		if(timer.level == FIRING)
+		{
+			//cancelled by a task that went off earlier in the same tick
+			timer.scheduled = false;
+			--size;
+			return;
+		}
+
+		if(timer.previous == null)
+		{
+			slots[timer.level][timer.slot] = timer.next;
+		}
+		else
+		{
+			timer.previous.next = timer.next;
+		}
+		if(timer.next != null)
+		{
+			timer.next.previous = timer.previous;
+		}
+
+		timer.previous = timer.next = null;
+		timer.scheduled = false;
+		--size;
+	}
+
+	private void insert(Timer timer)
+	{
+		//the lowest wheel that comes round to the timer before it is due
+		int level = 0;
+		while(level < LEVELS - 1 && (timer.due >> (SLOT_BITS * level)) - (now >> (SLOT_BITS * level)) >= SLOTS)
+		{
+			++level;
+		}
+
+		int slot = (int) (timer.due >> (SLOT_BITS * level)) & (SLOTS - 1);
+		timer.level = level;
+		timer.slot = slot;
+		timer.previous = null;
+		timer.next = slots[level][slot];
+		if(timer.next != null)
+		{
+			timer.next.previous = timer;
+		}
+		slots[level][slot] = timer;
+		timer.scheduled = true;
+		++size;
+	}
+
+	/**
+	 * Move on a tick, and set off every timer that is due.
+	 */
+	public void advance()
+	{
+		++now;
+
+		//when a wheel comes round, move the timers in its next slot down to the wheels below
+		for(int level = LEVELS - 1; level > 0; --level)
+		{
+			if((now & ((1L << (SLOT_BITS * level)) - 1)) == 0)
+			{
+				cascade(level, (int) (now >> (SLOT_BITS * level)) & (SLOTS - 1));
+			}
+		}
+
+		//take the timers out first, since tasks may cancel or move the others
+		Timer timer = takeSlot(0, (int) now & (SLOTS - 1));
+		while(timer != null)
+		{
+			Timer next = timer.next;
+			timer.previous = timer.next = null;
+			timer.level = FIRING;
+			firing.add(timer);
+			timer = next;
+		}
+
+		for(int index = 0; index < firing.size(); ++index)
+		{
+			timer = firing.get(index);
+			if(timer.scheduled && timer.level == FIRING)
+			{
+				timer.scheduled = false;
+				--size;
+				timer.task.onTimer();
+			}
+		}
+		firing.clear();
+	}
+
+	private void cascade(int level, int slot)
+	{
+		Timer timer = takeSlot(level, slot);
+		while(timer != null)
+		{
+			Timer next = timer.next;
+			timer.previous = timer.next = null;
+			timer.scheduled = false;
+			--size;
+			insert(timer);
+			timer = next;
+		}
+	}
+
+	private Timer takeSlot(int level, int slot)
+	{
+		Timer first = slots[level][slot];
+		slots[level][slot] = null;
+		return first;
+	}
+
+	@SubscribeEvent
+	public void onServerTick(ServerTickEvent event)
+	{
+		if(event.phase == Phase.END)
+		{
+			advance();
+		}
+	}
+
+	/**
+	 * Forget every timer, for when the server stops.
+	 */
+	public void clear()
+	{
+		for(int level = 0; level < LEVELS; ++level)
+		{
+			for(int slot = 0; slot < SLOTS; ++slot)
+			{
+				Timer timer = takeSlot(level, slot);
+				while(timer != null)
+				{
+					Timer next = timer.next;
+					timer.previous = timer.next = null;
+					timer.scheduled = false;
+					timer = next;
+				}
+			}
+		}
+		size = 0;
+	}
+}
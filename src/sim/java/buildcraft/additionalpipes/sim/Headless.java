@@ -0,0 +1,21 @@
+package buildcraft.additionalpipes.sim;
+
+import net.minecraft.init.Bootstrap;
+
+/**
+ * Gets enough of Minecraft running without a client or a server, for the benchmarks and the simulation harness.
+ */
+public class Headless
+{
+	private static boolean done = false;
+
+	public static synchronized void init()
+	{
+		if(!done)
+		{
+			//registers the vanilla blocks and items, so ItemStacks can be made
+			Bootstrap.register();
+			done = true;
+		}
+	}
+}
@@ -0,0 +1,252 @@
+package buildcraft.additionalpipes.sim;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import net.minecraft.init.Items;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.BlockPos;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.Vec3;
+import net.minecraftforge.fluids.FluidRegistry;
+import net.minecraftforge.fluids.FluidStack;
+import buildcraft.additionalpipes.api.PipeType;
+import buildcraft.additionalpipes.pipes.PipeItemsDistributor;
+import buildcraft.additionalpipes.pipes.PipeItemsPriorityInsertion;
+import buildcraft.additionalpipes.pipes.PipeItemsTeleport;
+import buildcraft.additionalpipes.pipes.PipeLiquidsTeleport;
+import buildcraft.additionalpipes.pipes.PipePowerTeleport;
+import buildcraft.additionalpipes.pipes.PipeTeleport;
+import buildcraft.additionalpipes.pipes.TeleportManager;
+import buildcraft.transport.Pipe;
+import buildcraft.transport.TravelingItem;
+import buildcraft.transport.pipes.PipePowerDiamond;
+import buildcraft.transport.pipes.events.PipeEventItem;
+
+/**
+ * A made-up network of teleport pipes registered with TeleportManager, with stub containers in a world with nothing loaded.
+ *
+ * Every frequency of every type gets the same number of pipes.  A quarter of them only send, the rest receive, and
+ * one receiver in five has nothing connected so senders have to skip it.  Every tenth pipe is private.
+ * Item receivers feed a Distribution or Priority Insertion pipe, so item sends also run the routing logic.
+ * Fluid receivers feed a tank and power receivers a power pipe, both of which take everything.
+ *
+ * Sends go through the pipes' own teleport code in a stub server world, so they are counted in
+ * TeleportManager.metrics the same way as in game.
+ */
+public class SimulatedNetwork
+{
+	private static final UUID OWNER = UUID.fromString("00000000-0000-0000-0000-00000000a9e5");
+
+	private final Random random;
+
+	private final StubWorld world = new StubWorld();
+
+	private final Map<Long, List<PipeTeleport<?>>> senders = new HashMap<Long, List<PipeTeleport<?>>>();
+
+	private final List<EnumFacing> destinations = new ArrayList<EnumFacing>(6);
+
+	private int pipeCount = 0;
+
+	public SimulatedNetwork(int frequencies, int pipesPerFrequency, long seed)
+	{
+		random = new Random(seed);
+		TeleportManager.instance.reset();
+
+		for(PipeType type : new PipeType[] { PipeType.ITEMS, PipeType.FLUIDS, PipeType.POWER })
+		{
+			for(int frequency = 0; frequency < frequencies; ++frequency)
+			{
+				for(int index = 0; index < pipesPerFrequency; ++index)
+				{
+					addPipe(type, frequency, index);
+				}
+			}
+		}
+	}
+
+	private void addPipe(PipeType type, int frequency, int index)
+	{
+		PipeTeleport<?> pipe = createPipe(type);
+		StubPipeTile tile = new StubPipeTile(pipe);
+		tile.setWorldObj(world);
+		tile.setPos(new BlockPos(pipeCount % 1024, type.ordinal(), pipeCount / 1024));
+		++pipeCount;
+
+		pipe.setFrequency(frequency);
+		pipe.state = (byte) (index % 4 == 0 ? 0x1 : (index % 4 == 1 ? 0x3 : 0x2));
+		pipe.isPublic = index % 10 != 9;
+		pipe.ownerUUID = OWNER;
+
+		if(pipe.canReceive() && index % 5 != 4)
+		{
+			switch(type)
+			{
+			case ITEMS:
+				Pipe<?> router = createRouter(index);
+				tile.setNeighbour(EnumFacing.UP, router.container);
+				((SimulatedItemsTeleport) pipe).router = router;
+				break;
+			case FLUIDS:
+				tile.setNeighbour(EnumFacing.UP, new StubTank());
+				break;
+			default:
+				tile.setNeighbour(EnumFacing.UP, createPowerPipe(tile));
+				break;
+			}
+		}
+
+		if(pipe.canSend() && pipe.isPublic)
+		{
+			long key = TeleportManager.getChannelKey(type, frequency);
+			List<PipeTeleport<?>> channelSenders = senders.get(key);
+			if(channelSenders == null)
+			{
+				channelSenders = new ArrayList<PipeTeleport<?>>();
+				senders.put(key, channelSenders);
+			}
+			channelSenders.add(pipe);
+		}
+
+		TeleportManager.instance.add(pipe, frequency);
+	}
+
+	private PipeTeleport<?> createPipe(PipeType type)
+	{
+		switch(type)
+		{
+		case FLUIDS:
+			return new PipeLiquidsTeleport(null);
+		case POWER:
+			return new PipePowerTeleport(null);
+		default:
+			return new SimulatedItemsTeleport();
+		}
+	}
+
+	// a power pipe above the receiver that always wants power, since the world's time never moves on to clear its request
+	private StubPipeTile createPowerPipe(StubPipeTile receiver)
+	{
+		PipePowerDiamond powerPipe = new PipePowerDiamond(null);
+		StubPipeTile tile = new StubPipeTile(powerPipe);
+		tile.setWorldObj(world);
+		tile.setPos(receiver.getPos().up());
+		tile.setNeighbour(EnumFacing.DOWN, receiver);
+		powerPipe.transport.requestEnergy(EnumFacing.UP, Integer.MAX_VALUE / 2);
+		return tile;
+	}
+
+	private Pipe<?> createRouter(int index)
+	{
+		Pipe<?> router;
+		if(index % 2 == 0)
+		{
+			PipeItemsDistributor distributor = new PipeItemsDistributor(null);
+			distributor.distData = new int[] { 0, 1, 2, 3, 4, 5 };
+			router = distributor;
+		}
+		else
+		{
+			PipeItemsPriorityInsertion priorityInsertion = new PipeItemsPriorityInsertion(null);
+			priorityInsertion.sidePriorities = new int[] { 1, 1, 2, 3, 4, 5 };
+			router = priorityInsertion;
+		}
+
+		StubPipeTile tile = new StubPipeTile(router);
+		tile.setWorldObj(world);
+		for(EnumFacing side : EnumFacing.VALUES)
+		{
+			//the teleport pipe is below
+			if(side != EnumFacing.DOWN)
+			{
+				tile.setNeighbour(side, new StubInventory(27));
+			}
+		}
+
+		return router;
+	}
+
+	public int getPipeCount()
+	{
+		return pipeCount;
+	}
+
+	/**
+	 * Send something from a random public sender of a channel, through that pipe's own teleport code.
+	 * @param send
+	 * @return false if there was no sender or nowhere to send to
+	 */
+	public boolean replay(TrafficTrace.Send send)
+	{
+		List<PipeTeleport<?>> channelSenders = senders.get(TeleportManager.getChannelKey(send.type, send.frequency));
+		if(channelSenders == null)
+		{
+			return false;
+		}
+
+		PipeTeleport<?> sender = channelSenders.get(random.nextInt(channelSenders.size()));
+		switch(send.type)
+		{
+		case ITEMS:
+			TravelingItem item = TravelingItem.make(new Vec3(0.5, 0.5, 0.5), new ItemStack(Items.iron_ingot, send.amount));
+			PipeEventItem.Entered event = new PipeEventItem.Entered(sender, item);
+			((PipeItemsTeleport) sender).eventHandler(event);
+			return event.cancelled;
+		case FLUIDS:
+			return ((PipeLiquidsTeleport) sender).fill(EnumFacing.DOWN, new FluidStack(FluidRegistry.WATER, send.amount), true) > 0;
+		default:
+			return ((PipePowerTeleport) sender).receiveEnergy(EnumFacing.DOWN, send.amount) > 0;
+		}
+	}
+
+	// runs the routing logic of the pipe an item was teleported into
+	private void route(Pipe<?> router, ItemStack stack)
+	{
+		destinations.clear();
+		for(EnumFacing side : EnumFacing.VALUES)
+		{
+			if(side != EnumFacing.DOWN)
+			{
+				destinations.add(side);
+			}
+		}
+
+		TravelingItem item = TravelingItem.make(new Vec3(0.5, 0.5, 0.5), stack);
+		PipeEventItem.FindDest event = new PipeEventItem.FindDest(router, item, destinations);
+		if(router instanceof PipeItemsDistributor)
+		{
+			((PipeItemsDistributor) router).eventHandler(event);
+		}
+		else
+		{
+			((PipeItemsPriorityInsertion) router).eventHandler(event);
+		}
+	}
+
+	/**
+	 * Item teleport pipe that hands what it receives straight to the pipe it feeds, instead of to its transport,
+	 * which needs a server to send items to clients.
+	 */
+	private class SimulatedItemsTeleport extends PipeItemsTeleport
+	{
+		private Pipe<?> router;
+
+		public SimulatedItemsTeleport()
+		{
+			super(null);
+		}
+
+		@Override
+		protected void injectItemAtCenter(ItemStack toInject, EnumFacing fromSide)
+		{
+			if(router != null)
+			{
+				route(router, toInject);
+			}
+		}
+	}
+}
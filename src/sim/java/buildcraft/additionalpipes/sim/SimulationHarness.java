@@ -0,0 +1,193 @@
+package buildcraft.additionalpipes.sim;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
+import buildcraft.additionalpipes.metrics.TeleportMetrics.ChannelCounters;
+import buildcraft.additionalpipes.metrics.TeleportMetrics.Counter;
+import buildcraft.additionalpipes.pipes.TeleportManager;
+
+/**
+ * Replays a traffic trace through a simulated network and reports how many ticks per second the teleport and routing
+ * logic could keep up with, and how much it allocates.
+ *
+ * Run it with "gradlew simulate -Psim.args='...'".  Options:
+ * <pre>
+ * --frequencies N       frequencies per pipe type (default 100)
+ * --pipes N             pipes per frequency (default 50)
+ * --trace FILE          replay a trace file
+ * --ticks N             length of the generated trace if no file is given (default 1200)
+ * --sends-per-tick N    sends per tick in the generated trace (default 500)
+ * --write-trace FILE    save the generated trace
+ * --seed N              seed for the network and the generated trace (default 0)
+ * </pre>
+ */
+public class SimulationHarness
+{
+	private static final double TICK_BUDGET_MILLIS = 50;
+
+	public static void main(String[] args) throws IOException
+	{
+		int frequencies = 100;
+		int pipesPerFrequency = 50;
+		File traceFile = null;
+		File writeTraceFile = null;
+		int ticks = 1200;
+		int sendsPerTick = 500;
+		long seed = 0;
+
+		for(int index = 0; index < args.length; ++index)
+		{
+			String option = args[index];
+			if(index + 1 >= args.length)
+			{
+				usage("Missing value for " + option);
+			}
+			String value = args[++index];
+
+			if(option.equals("--frequencies"))
+			{
+				frequencies = Integer.parseInt(value);
+			}
+			else if(option.equals("--pipes"))
+			{
+				pipesPerFrequency = Integer.parseInt(value);
+			}
+			else if(option.equals("--trace"))
+			{
+				traceFile = new File(value);
+			}
+			else if(option.equals("--ticks"))
+			{
+				ticks = Integer.parseInt(value);
+			}
+			else if(option.equals("--sends-per-tick"))
+			{
+				sendsPerTick = Integer.parseInt(value);
+			}
+			else if(option.equals("--write-trace"))
+			{
+				writeTraceFile = new File(value);
+			}
+			else if(option.equals("--seed"))
+			{
+				seed = Long.parseLong(value);
+			}
+			else
+			{
+				usage("Unknown option " + option);
+			}
+		}
+
+		Headless.init();
+
+		TrafficTrace trace = traceFile != null ? TrafficTrace.read(traceFile) : TrafficTrace.generate(ticks, frequencies, sendsPerTick, seed);
+		if(writeTraceFile != null)
+		{
+			trace.write(writeTraceFile);
+		}
+
+		long buildStart = System.nanoTime();
+		SimulatedNetwork network = new SimulatedNetwork(frequencies, pipesPerFrequency, seed);
+		System.out.printf("Built %d pipes in %.1f ms%n", network.getPipeCount(), (System.nanoTime() - buildStart) / 1e6);
+
+		run(network, trace);
+	}
+
+	private static void run(SimulatedNetwork network, TrafficTrace trace)
+	{
+		List<TrafficTrace.Send> sends = trace.getSends();
+		long[] tickNanos = new long[trace.getLength()];
+		long failed = 0;
+
+		long startBytes = getAllocatedBytes();
+		long start = System.nanoTime();
+
+		int next = 0;
+		for(int tick = 0; tick < tickNanos.length; ++tick)
+		{
+			long tickStart = System.nanoTime();
+			while(next < sends.size() && sends.get(next).tick == tick)
+			{
+				if(!network.replay(sends.get(next)))
+				{
+					++failed;
+				}
+				++next;
+			}
+			tickNanos[tick] = System.nanoTime() - tickStart;
+		}
+
+		double seconds = (System.nanoTime() - start) / 1e9;
+		long allocatedBytes = getAllocatedBytes() - startBytes;
+
+		report(tickNanos, sends.size(), failed, seconds, startBytes < 0 ? -1 : allocatedBytes);
+	}
+
+	private static void report(long[] tickNanos, int sends, long failed, double seconds, long allocatedBytes)
+	{
+		if(tickNanos.length == 0)
+		{
+			System.out.println("The trace is empty");
+			return;
+		}
+
+		long[] sorted = tickNanos.clone();
+		Arrays.sort(sorted);
+		double meanMillis = seconds * 1000 / tickNanos.length;
+
+		System.out.printf("Replayed %d sends over %d ticks in %.2f s, %d found nowhere to go%n", sends, tickNanos.length, seconds, failed);
+		System.out.printf("Tick time: mean %.3f ms, p50 %.3f ms, p99 %.3f ms, max %.3f ms%n", meanMillis,
+				sorted[sorted.length / 2] / 1e6, sorted[Math.min(sorted.length - 1, (int) (sorted.length * 0.99))] / 1e6, sorted[sorted.length - 1] / 1e6);
+		System.out.printf("Ticks per second: %.0f if AP had the whole tick, %.1f%% of the 20 TPS budget used%n",
+				tickNanos.length / seconds, 100 * meanMillis / TICK_BUDGET_MILLIS);
+
+		if(allocatedBytes >= 0)
+		{
+			System.out.printf("Allocated %.1f MB: %.1f KB per tick, %.1f MB/s%n", allocatedBytes / 1e6, allocatedBytes / 1e3 / tickNanos.length, allocatedBytes / 1e6 / seconds);
+		}
+		else
+		{
+			System.out.println("This JVM can't measure allocations");
+		}
+
+		long moved = 0;
+		for(ChannelCounters channel : TeleportManager.instance.metrics.getChannels())
+		{
+			moved += channel.getTotal(Counter.ITEMS);
+		}
+		System.out.printf("Items teleported: %d%n", moved);
+	}
+
+	/**
+	 * @return bytes allocated by this thread so far, or -1 if the JVM doesn't count them
+	 */
+	private static long getAllocatedBytes()
+	{
+		java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if(threads instanceof com.sun.management.ThreadMXBean)
+		{
+			com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+			if(sunThreads.isThreadAllocatedMemorySupported())
+			{
+				if(!sunThreads.isThreadAllocatedMemoryEnabled())
+				{
+					sunThreads.setThreadAllocatedMemoryEnabled(true);
+				}
+				return sunThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+
+		return -1;
+	}
+
+	private static void usage(String error)
+	{
+		System.err.println(error);
+		System.err.println("Options: --frequencies N --pipes N --trace FILE --ticks N --sends-per-tick N --write-trace FILE --seed N");
+		System.exit(1);
+	}
+}
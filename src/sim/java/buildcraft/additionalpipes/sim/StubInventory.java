@@ -0,0 +1,119 @@
+package buildcraft.additionalpipes.sim;
+
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.inventory.IInventory;
+import net.minecraft.item.ItemStack;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.ChatComponentText;
+import net.minecraft.util.IChatComponent;
+
+/**
+ * Inventory that doesn't need a world, and throws away everything put into it so it never fills up
+ * however many times it is inserted into it.
+ */
+public class StubInventory extends TileEntity implements IInventory
+{
+	private final int size;
+
+	public StubInventory(int size)
+	{
+		this.size = size;
+	}
+
+	@Override
+	public int getSizeInventory()
+	{
+		return size;
+	}
+
+	@Override
+	public ItemStack getStackInSlot(int index)
+	{
+		return null;
+	}
+
+	@Override
+	public ItemStack decrStackSize(int index, int count)
+	{
+		return null;
+	}
+
+	@Override
+	public ItemStack removeStackFromSlot(int index)
+	{
+		return null;
+	}
+
+	@Override
+	public void setInventorySlotContents(int index, ItemStack stack)
+	{
+	}
+
+	@Override
+	public int getInventoryStackLimit()
+	{
+		return 64;
+	}
+
+	@Override
+	public boolean isUseableByPlayer(EntityPlayer player)
+	{
+		return true;
+	}
+
+	@Override
+	public void openInventory(EntityPlayer player)
+	{
+	}
+
+	@Override
+	public void closeInventory(EntityPlayer player)
+	{
+	}
+
+	@Override
+	public boolean isItemValidForSlot(int index, ItemStack stack)
+	{
+		return true;
+	}
+
+	@Override
+	public int getField(int id)
+	{
+		return 0;
+	}
+
+	@Override
+	public void setField(int id, int value)
+	{
+	}
+
+	@Override
+	public int getFieldCount()
+	{
+		return 0;
+	}
+
+	@Override
+	public void clear()
+	{
+	}
+
+	@Override
+	public String getName()
+	{
+		return "stub";
+	}
+
+	@Override
+	public boolean hasCustomName()
+	{
+		return false;
+	}
+
+	@Override
+	public IChatComponent getDisplayName()
+	{
+		return new ChatComponentText(getName());
+	}
+}
@@ -0,0 +1,39 @@
+package buildcraft.additionalpipes.sim;
+
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.EnumFacing;
+import buildcraft.transport.Pipe;
+import buildcraft.transport.TileGenericPipe;
+
+/**
+ * Pipe container with fixed neighbours and connections, so pipe logic can run without a world.
+ */
+public class StubPipeTile extends TileGenericPipe
+{
+	private final TileEntity[] neighbours = new TileEntity[6];
+	private final boolean[] connected = new boolean[6];
+
+	public StubPipeTile(Pipe<?> pipe)
+	{
+		this.pipe = pipe;
+		pipe.setTile(this);
+	}
+
+	public void setNeighbour(EnumFacing side, TileEntity tile)
+	{
+		neighbours[side.ordinal()] = tile;
+		connected[side.ordinal()] = tile != null;
+	}
+
+	@Override
+	public TileEntity getTile(EnumFacing to, boolean forceUpdate)
+	{
+		return neighbours[to.ordinal()];
+	}
+
+	@Override
+	public boolean isPipeConnected(EnumFacing with)
+	{
+		return connected[with.ordinal()];
+	}
+}
@@ -0,0 +1,50 @@
+package buildcraft.additionalpipes.sim;
+
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.EnumFacing;
+import net.minecraftforge.fluids.Fluid;
+import net.minecraftforge.fluids.FluidStack;
+import net.minecraftforge.fluids.FluidTankInfo;
+import net.minecraftforge.fluids.IFluidHandler;
+
+/**
+ * Fluid handler that doesn't need a world, and throws away everything put into it so it never fills up.
+ */
+public class StubTank extends TileEntity implements IFluidHandler
+{
+	@Override
+	public int fill(EnumFacing from, FluidStack resource, boolean doFill)
+	{
+		return resource == null ? 0 : resource.amount;
+	}
+
+	@Override
+	public FluidStack drain(EnumFacing from, FluidStack resource, boolean doDrain)
+	{
+		return null;
+	}
+
+	@Override
+	public FluidStack drain(EnumFacing from, int maxDrain, boolean doDrain)
+	{
+		return null;
+	}
+
+	@Override
+	public boolean canFill(EnumFacing from, Fluid fluid)
+	{
+		return true;
+	}
+
+	@Override
+	public boolean canDrain(EnumFacing from, Fluid fluid)
+	{
+		return false;
+	}
+
+	@Override
+	public FluidTankInfo[] getTankInfo(EnumFacing from)
+	{
+		return new FluidTankInfo[0];
+	}
+}
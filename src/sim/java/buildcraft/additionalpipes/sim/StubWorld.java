@@ -0,0 +1,48 @@
+package buildcraft.additionalpipes.sim;
+
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.profiler.Profiler;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldProvider;
+import net.minecraft.world.chunk.IChunkProvider;
+import net.minecraft.world.storage.SaveHandlerMP;
+import net.minecraft.world.storage.WorldInfo;
+
+/**
+ * Server world with no chunks, so the pipes' own code runs server side without a server.
+ * Time never moves on, and nothing in it is loaded, so only use it for code that doesn't look blocks up.
+ */
+public class StubWorld extends World
+{
+	private static class StubWorldProvider extends WorldProvider
+	{
+		@Override
+		public String getDimensionName()
+		{
+			return "stub";
+		}
+
+		@Override
+		public String getInternalNameSuffix()
+		{
+			return "_stub";
+		}
+	}
+
+	public StubWorld()
+	{
+		super(new SaveHandlerMP(), new WorldInfo(new NBTTagCompound()), new StubWorldProvider(), new Profiler(), false);
+	}
+
+	@Override
+	protected IChunkProvider createChunkProvider()
+	{
+		return null;
+	}
+
+	@Override
+	protected int getRenderDistanceChunks()
+	{
+		return 0;
+	}
+}
@@ -0,0 +1,183 @@
+package buildcraft.additionalpipes.sim;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import buildcraft.additionalpipes.api.PipeType;
+
+/**
+ * A list of sends to replay through a simulated network.
+ *
+ * Traces are text files with one send per line: the tick, the type (items, fluids or power), the frequency and the amount,
+ * separated by spaces.  Blank lines and lines starting with # are ignored.
+ */
+public class TrafficTrace
+{
+	public static class Send
+	{
+		public final int tick;
+		public final PipeType type;
+		public final int frequency;
+		public final int amount;
+
+		public Send(int tick, PipeType type, int frequency, int amount)
+		{
+			this.tick = tick;
+			this.type = type;
+			this.frequency = frequency;
+			this.amount = amount;
+		}
+	}
+
+	private final List<Send> sends;
+
+	public TrafficTrace(List<Send> sends)
+	{
+		this.sends = new ArrayList<Send>(sends);
+		Collections.sort(this.sends, new Comparator<Send>()
+		{
+			@Override
+			public int compare(Send first, Send second)
+			{
+				return first.tick < second.tick ? -1 : (first.tick == second.tick ? 0 : 1);
+			}
+		});
+	}
+
+	/**
+	 * @return the sends, in tick order
+	 */
+	public List<Send> getSends()
+	{
+		return sends;
+	}
+
+	/**
+	 * @return how many ticks the trace covers
+	 */
+	public int getLength()
+	{
+		return sends.isEmpty() ? 0 : sends.get(sends.size() - 1).tick + 1;
+	}
+
+	public static TrafficTrace read(File file) throws IOException
+	{
+		List<Send> sends = new ArrayList<Send>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+		try
+		{
+			String line;
+			int lineNumber = 0;
+			while((line = reader.readLine()) != null)
+			{
+				++lineNumber;
+				line = line.trim();
+				if(line.isEmpty() || line.startsWith("#"))
+				{
+					continue;
+				}
+
+				String[] fields = line.split("\\s+");
+				if(fields.length != 4)
+				{
+					throw new IOException(file + ":" + lineNumber + ": expected \"tick type frequency amount\"");
+				}
+
+				try
+				{
+					sends.add(new Send(Integer.parseInt(fields[0]), parseType(fields[1]), Integer.parseInt(fields[2]), Integer.parseInt(fields[3])));
+				}
+				catch(IllegalArgumentException e)
+				{
+					throw new IOException(file + ":" + lineNumber + ": " + e.getMessage());
+				}
+			}
+		}
+		finally
+		{
+			reader.close();
+		}
+
+		return new TrafficTrace(sends);
+	}
+
+	public void write(File file) throws IOException
+	{
+		PrintWriter writer = new PrintWriter(file, "UTF-8");
+		try
+		{
+			writer.println("# tick type frequency amount");
+			for(Send send : sends)
+			{
+				writer.println(send.tick + " " + send.type.toString().toLowerCase() + " " + send.frequency + " " + send.amount);
+			}
+		}
+		finally
+		{
+			writer.close();
+		}
+	}
+
+	/**
+	 * Make up a trace with roughly the mix of a busy server: mostly item stacks, some fluid and a steady power draw.
+	 * @param ticks
+	 * @param frequencies sends are spread over frequencies 0 to frequencies - 1
+	 * @param sendsPerTick
+	 * @param seed
+	 * @return
+	 */
+	public static TrafficTrace generate(int ticks, int frequencies, int sendsPerTick, long seed)
+	{
+		Random random = new Random(seed);
+		List<Send> sends = new ArrayList<Send>(ticks * sendsPerTick);
+		for(int tick = 0; tick < ticks; ++tick)
+		{
+			for(int index = 0; index < sendsPerTick; ++index)
+			{
+				int frequency = random.nextInt(frequencies);
+				int roll = random.nextInt(10);
+				if(roll < 6)
+				{
+					sends.add(new Send(tick, PipeType.ITEMS, frequency, 1 + random.nextInt(64)));
+				}
+				else if(roll < 8)
+				{
+					sends.add(new Send(tick, PipeType.FLUIDS, frequency, 100 * (1 + random.nextInt(10))));
+				}
+				else
+				{
+					sends.add(new Send(tick, PipeType.POWER, frequency, 10 * (1 + random.nextInt(100))));
+				}
+			}
+		}
+
+		return new TrafficTrace(sends);
+	}
+
+	private static PipeType parseType(String name)
+	{
+		if(name.equals("items"))
+		{
+			return PipeType.ITEMS;
+		}
+		else if(name.equals("fluids"))
+		{
+			return PipeType.FLUIDS;
+		}
+		else if(name.equals("power"))
+		{
+			return PipeType.POWER;
+		}
+
+		throw new IllegalArgumentException("unknown pipe type " + name);
+	}
+}
@@ -0,0 +1,466 @@
+package buildcraft.additionalpipes.pipes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import buildcraft.additionalpipes.api.PipeType;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+
+/**
+ * Tests for TeleportManager, using pipes without an item or a container.
+ */
+public class TeleportManagerTest
+{
+	private TeleportManager manager;
+
+	@Before
+	public void setUp()
+	{
+		manager = new TeleportManager();
+	}
+
+	@After
+	public void tearDown()
+	{
+		manager = null;
+	}
+
+	private static PipeItemsTeleport makePipe(int frequency, int state, boolean isPublic)
+	{
+		PipeItemsTeleport pipe = new PipeItemsTeleport(null);
+		pipe.setFrequency(frequency);
+		pipe.state = (byte) state;
+		pipe.isPublic = isPublic;
+		return pipe;
+	}
+
+	@Test
+	public void testBasicAddRemove()
+	{
+		PipeItemsTeleport pipe = makePipe(3, 0x3, true);
+		PipeItemsTeleport other = makePipe(3, 0x3, true);
+
+		manager.add(pipe, 3);
+		manager.add(other, 3);
+		assertEquals(1, manager.getConnectedPipes(other, true, true).size());
+
+		manager.remove(pipe, 3);
+		assertTrue(manager.getConnectedPipes(other, true, true).isEmpty());
+	}
+
+	@Test
+	public void testGetConnectedPipesBasic()
+	{
+		PipeItemsTeleport pipe1 = makePipe(3, 0x3, true);
+		PipeItemsTeleport pipe2 = makePipe(3, 0x3, true);
+		PipeItemsTeleport pipe3 = makePipe(3, 0x3, true);
+
+		manager.add(pipe1, 3);
+		manager.add(pipe2, 3);
+		manager.add(pipe3, 3);
+
+		ArrayList<PipeItemsTeleport> pipesList = manager.getConnectedPipes(pipe1, true, true);
+		assertEquals(2, pipesList.size());
+		assertTrue(pipesList.contains(pipe2));
+		assertTrue(pipesList.contains(pipe3));
+	}
+
+	@Test
+	public void testGetConnectedPipesSendReceive()
+	{
+		PipeItemsTeleport pipe1 = makePipe(3, 0x3, true);
+		PipeItemsTeleport pipe2 = makePipe(3, 0x1, true);
+		PipeItemsTeleport pipe3 = makePipe(3, 0x2, true);
+
+		manager.add(pipe1, 3);
+		manager.add(pipe2, 3);
+		manager.add(pipe3, 3);
+
+		//pipes which can send to pipe1
+		ArrayList<PipeItemsTeleport> sendablePipes = manager.getConnectedPipes(pipe1, true, false);
+		assertEquals(1, sendablePipes.size());
+		assertTrue(sendablePipes.contains(pipe2));
+
+		//pipes which pipe1 can send to
+		ArrayList<PipeItemsTeleport> receivingPipes = manager.getConnectedPipes(pipe1, false, true);
+		assertEquals(1, receivingPipes.size());
+		assertTrue(receivingPipes.contains(pipe3));
+	}
+
+	@Test
+	public void testGetConnectedPipesRealUseCase()
+	{
+		PipeItemsTeleport pipe1 = makePipe(3, 0x1, true);  //send only
+		PipeItemsTeleport pipe2 = makePipe(3, 0x3, true);  //send and receive
+		PipeItemsTeleport pipe3 = makePipe(3, 0x2, true);  //receive only
+		PipeItemsTeleport pipe4 = makePipe(3, 0x1, true);  //send only
+		PipeItemsTeleport pipe5 = makePipe(7, 0x3, true);  //other frequency
+
+		manager.add(pipe1, 3);
+		manager.add(pipe2, 3);
+		manager.add(pipe3, 3);
+		manager.add(pipe4, 3);
+		manager.add(pipe5, 7);
+
+		ArrayList<PipeItemsTeleport> pipesList = manager.getConnectedPipes(pipe1, false, true);
+		assertEquals(2, pipesList.size());
+		assertTrue(pipesList.contains(pipe2));
+		assertTrue(pipesList.contains(pipe3));
+		assertFalse(pipesList.contains(pipe4));
+	}
+
+	@Test
+	public void testPrivatePipesOnlyConnectToTheirOwner()
+	{
+		UUID owner = UUID.randomUUID();
+		PipeItemsTeleport sender = makePipe(3, 0x1, false);
+		sender.ownerUUID = owner;
+		PipeItemsTeleport ownReceiver = makePipe(3, 0x2, false);
+		ownReceiver.ownerUUID = owner;
+		PipeItemsTeleport otherReceiver = makePipe(3, 0x2, false);
+		otherReceiver.ownerUUID = UUID.randomUUID();
+		PipeItemsTeleport publicReceiver = makePipe(3, 0x2, true);
+
+		manager.add(sender, 3);
+		manager.add(ownReceiver, 3);
+		manager.add(otherReceiver, 3);
+		manager.add(publicReceiver, 3);
+
+		ArrayList<PipeItemsTeleport> pipesList = manager.getConnectedPipes(sender, false, true);
+		assertEquals(1, pipesList.size());
+		assertTrue(pipesList.contains(ownReceiver));
+	}
+
+	@Test
+	public void testPrivatePipesConnectWithinTeams()
+	{
+		UUID owner = UUID.randomUUID(), teammate = UUID.randomUUID(), stranger = UUID.randomUUID();
+		PipeItemsTeleport sender = makePipe(3, 0x1, false);
+		sender.ownerUUID = owner;
+		PipeItemsTeleport teammateReceiver = makePipe(3, 0x2, false);
+		teammateReceiver.ownerUUID = teammate;
+		PipeItemsTeleport strangerReceiver = makePipe(3, 0x2, false);
+		strangerReceiver.ownerUUID = stranger;
+
+		manager.add(sender, 3);
+		manager.add(teammateReceiver, 3);
+		manager.add(strangerReceiver, 3);
+		assertTrue(manager.getConnectedPipes(sender, false, true).isEmpty());
+
+		manager.owners.joinTeam(manager.owners.intern(owner, "owner"), "red");
+		manager.owners.joinTeam(manager.owners.intern(teammate, "teammate"), "red");
+		manager.owners.joinTeam(manager.owners.intern(stranger, "stranger"), "blue");
+
+		ArrayList<PipeItemsTeleport> pipesList = manager.getConnectedPipes(sender, false, true);
+		assertEquals(1, pipesList.size());
+		assertTrue(pipesList.contains(teammateReceiver));
+		assertTrue(manager.canShare(teammate, owner));
+		assertFalse(manager.canShare(stranger, owner));
+	}
+
+	@Test
+	public void testCrossDimensionPipesOnlyConnectToEachOther()
+	{
+		PipeItemsTeleport sender = makePipe(3, 0x1, true);
+		PipeItemsTeleport receiver = makePipe(3, 0x2, true);
+		PipeItemsTeleport crossSender = makePipe(3, 0x1, true);
+		crossSender.crossDimension = true;
+		PipeItemsTeleport crossReceiver = makePipe(3, 0x2, true);
+		crossReceiver.crossDimension = true;
+
+		manager.add(sender, 3);
+		manager.add(receiver, 3);
+		manager.add(crossSender, 3);
+		manager.add(crossReceiver, 3);
+
+		ArrayList<PipeItemsTeleport> pipesList = manager.getConnectedPipes(sender, false, true);
+		assertEquals(1, pipesList.size());
+		assertTrue(pipesList.contains(receiver));
+
+		pipesList = manager.getConnectedPipes(crossSender, false, true);
+		assertEquals(1, pipesList.size());
+		assertTrue(pipesList.contains(crossReceiver));
+
+		//removing finds the pipe even if its setting changed since it was added
+		crossReceiver.crossDimension = false;
+		manager.remove(crossReceiver, 3);
+		assertTrue(manager.getConnectedPipes(crossSender, false, true).isEmpty());
+		assertEquals(1, manager.getConnectedPipes(sender, false, true).size());
+	}
+
+	@Test
+	public void testMove()
+	{
+		PipeItemsTeleport pipe = makePipe(3, 0x3, true);
+		PipeItemsTeleport oldChannel = makePipe(3, 0x3, true);
+		PipeItemsTeleport newChannel = makePipe(4, 0x3, true);
+
+		manager.add(pipe, 3);
+		manager.add(oldChannel, 3);
+		manager.add(newChannel, 4);
+
+		pipe.setFrequency(4);
+		manager.move(pipe, 3, 4);
+		assertTrue(manager.getConnectedPipes(oldChannel, true, true).isEmpty());
+		assertEquals(1, manager.getConnectedPipes(newChannel, true, true).size());
+
+		//moving again, or adding twice, doesn't register the pipe twice
+		manager.move(pipe, 4, 4);
+		manager.add(pipe, 4);
+		assertEquals(1, manager.getConnectedPipes(newChannel, true, true).size());
+
+		manager.remove(pipe, 4);
+		assertTrue(manager.getConnectedPipes(newChannel, true, true).isEmpty());
+
+		//pipes that aren't added aren't moved
+		manager.move(pipe, 4, 3);
+		assertTrue(manager.getConnectedPipes(oldChannel, true, true).isEmpty());
+	}
+
+	@Test
+	public void testPurge()
+	{
+		PipeItemsTeleport pipe = makePipe(5, 0x3, true);
+		PipeItemsTeleport other = makePipe(5, 0x3, true);
+		manager.add(pipe, 5);
+		manager.add(other, 5);
+
+		//test pipes have no tile entity, so the sweep never thinks they leaked
+		assertEquals(null, TeleportRegistrySweep.findLeak(pipe));
+		manager.sweep.step(manager);
+		assertEquals(2, manager.getAllItemPipesInNetwork().size());
+
+		int generation = manager.getChannelGeneration(PipeType.ITEMS, 5);
+		assertTrue(manager.purge(pipe));
+		assertTrue(manager.getConnectedPipes(other, true, true).isEmpty());
+		assertTrue(manager.getChannelGeneration(PipeType.ITEMS, 5) != generation);
+
+		//a pipe that is gone already isn't purged again
+		assertFalse(manager.purge(pipe));
+	}
+
+	@Test
+	public void testPendingChangesApplyTogether()
+	{
+		PipeItemsTeleport sender = makePipe(3, 0x1, true);
+		PipeItemsTeleport receiver = makePipe(3, 0x2, true);
+		PipeItemsTeleport unloaded = makePipe(3, 0x2, true);
+		manager.add(sender, 3);
+		manager.add(unloaded, 3);
+
+		int generation = manager.getChannelGeneration(PipeType.ITEMS, 3);
+		manager.addLater(receiver);
+		manager.removeUnloaded(unloaded);
+
+		//the unloaded pipe goes straight away, but the loaded one only joins at the end of the tick
+		assertTrue(manager.getConnectedPipes(sender, false, true).isEmpty());
+		assertEquals(generation, manager.getChannelGeneration(PipeType.ITEMS, 3));
+
+		manager.applyPendingChanges();
+		ArrayList<PipeItemsTeleport> pipesList = manager.getConnectedPipes(sender, false, true);
+		assertEquals(1, pipesList.size());
+		assertTrue(pipesList.contains(receiver));
+		assertEquals(generation + 1, manager.getChannelGeneration(PipeType.ITEMS, 3));
+
+		//removing a pipe, whether it unloaded or was broken, cancels its queued add
+		manager.addLater(unloaded);
+		manager.removeUnloaded(unloaded);
+		manager.addLater(receiver);
+		manager.remove(receiver, 3);
+		manager.applyPendingChanges();
+		assertTrue(manager.getConnectedPipes(sender, false, true).isEmpty());
+	}
+
+	@Test
+	public void testChannelGenerationChangesOnAddAndRemove()
+	{
+		PipeItemsTeleport pipe = makePipe(3, 0x3, true);
+
+		int before = manager.getChannelGeneration(PipeType.ITEMS, 3);
+		manager.add(pipe, 3);
+		int afterAdd = manager.getChannelGeneration(PipeType.ITEMS, 3);
+		manager.remove(pipe, 3);
+
+		assertTrue(afterAdd != before);
+		assertTrue(manager.getChannelGeneration(PipeType.ITEMS, 3) != afterAdd);
+		assertEquals(0, manager.getChannelGeneration(PipeType.ITEMS, 4));
+	}
+
+	/**
+	 * Adds and removes pipes at random on a few frequencies, and checks every frequency against a simple model as it goes.
+	 */
+	@Test
+	public void testAddRemoveChurn()
+	{
+		final int frequencies = 8;
+		Random random = new Random(1234);
+		Multimap<Integer, PipeItemsTeleport> expected = HashMultimap.create();
+		List<PipeItemsTeleport> added = new ArrayList<PipeItemsTeleport>();
+
+		for(int step = 0; step < 20000; ++step)
+		{
+			if(added.isEmpty() || random.nextInt(3) != 0)
+			{
+				PipeItemsTeleport pipe = makePipe(random.nextInt(frequencies), 0x3, true);
+				manager.add(pipe, pipe.getFrequency());
+				expected.put(pipe.getFrequency(), pipe);
+				added.add(pipe);
+			}
+			else
+			{
+				PipeItemsTeleport pipe = added.remove(random.nextInt(added.size()));
+				manager.remove(pipe, pipe.getFrequency());
+				expected.remove(pipe.getFrequency(), pipe);
+			}
+
+			if(step % 1000 == 0)
+			{
+				assertMatches(expected, frequencies);
+			}
+		}
+
+		assertMatches(expected, frequencies);
+
+		for(PipeItemsTeleport pipe : added)
+		{
+			manager.remove(pipe, pipe.getFrequency());
+		}
+		assertTrue(manager.itemPipes.isEmpty());
+	}
+
+	private void assertMatches(Multimap<Integer, PipeItemsTeleport> expected, int frequencies)
+	{
+		for(int frequency = 0; frequency < frequencies; ++frequency)
+		{
+			//a probe pipe that isn't added sees every pipe on the frequency
+			PipeItemsTeleport probe = makePipe(frequency, 0x3, true);
+			assertEquals(expected.get(frequency), new HashSet<PipeItemsTeleport>(manager.getConnectedPipes(probe, true, true)));
+		}
+	}
+
+	/**
+	 * Several threads add and remove their own pipes on shared frequencies while others look pipes up.
+	 * Nothing should throw, and every pipe that is still added at the end should be found exactly once.
+	 */
+	@Test
+	public void testConcurrentChurn() throws Exception
+	{
+		final int writers = 4;
+		final int readers = 2;
+		final int frequencies = 4;
+		final int stepsPerWriter = 5000;
+
+		ExecutorService executor = Executors.newFixedThreadPool(writers + readers);
+		final CountDownLatch start = new CountDownLatch(1);
+		final AtomicBoolean writing = new AtomicBoolean(true);
+
+		try
+		{
+			List<Future<Set<PipeItemsTeleport>>> writerResults = new ArrayList<Future<Set<PipeItemsTeleport>>>();
+			for(int writer = 0; writer < writers; ++writer)
+			{
+				final long seed = writer;
+				writerResults.add(executor.submit(new Callable<Set<PipeItemsTeleport>>()
+				{
+					@Override
+					public Set<PipeItemsTeleport> call() throws Exception
+					{
+						start.await();
+						Random random = new Random(seed);
+						List<PipeItemsTeleport> added = new ArrayList<PipeItemsTeleport>();
+						for(int step = 0; step < stepsPerWriter; ++step)
+						{
+							if(added.isEmpty() || random.nextBoolean())
+							{
+								PipeItemsTeleport pipe = makePipe(random.nextInt(frequencies), 0x3, true);
+								manager.add(pipe, pipe.getFrequency());
+								added.add(pipe);
+							}
+							else
+							{
+								PipeItemsTeleport pipe = added.remove(random.nextInt(added.size()));
+								manager.remove(pipe, pipe.getFrequency());
+							}
+						}
+
+						return new HashSet<PipeItemsTeleport>(added);
+					}
+				}));
+			}
+
+			List<Future<Integer>> readerResults = new ArrayList<Future<Integer>>();
+			for(int reader = 0; reader < readers; ++reader)
+			{
+				final int frequency = reader % frequencies;
+				readerResults.add(executor.submit(new Callable<Integer>()
+				{
+					@Override
+					public Integer call() throws Exception
+					{
+						start.await();
+						PipeItemsTeleport probe = makePipe(frequency, 0x3, true);
+						int lookups = 0;
+						do
+						{
+							manager.getConnectedPipes(probe, true, true);
+							manager.getChannelGeneration(PipeType.ITEMS, frequency);
+							++lookups;
+						}
+						while(writing.get());
+
+						return lookups;
+					}
+				}));
+			}
+
+			start.countDown();
+
+			Set<PipeItemsTeleport> remaining = new HashSet<PipeItemsTeleport>();
+			for(Future<Set<PipeItemsTeleport>> result : writerResults)
+			{
+				remaining.addAll(result.get(60, TimeUnit.SECONDS));
+			}
+
+			writing.set(false);
+			for(Future<Integer> result : readerResults)
+			{
+				assertTrue(result.get(60, TimeUnit.SECONDS) > 0);
+			}
+
+			Multimap<Integer, PipeItemsTeleport> expected = HashMultimap.create();
+			for(PipeItemsTeleport pipe : remaining)
+			{
+				expected.put(pipe.getFrequency(), pipe);
+			}
+
+			assertMatches(expected, frequencies);
+			assertEquals(remaining.size(), manager.getAllItemPipesInNetwork().size());
+		}
+		finally
+		{
+			writing.set(false);
+			executor.shutdownNow();
+		}
+	}
+}
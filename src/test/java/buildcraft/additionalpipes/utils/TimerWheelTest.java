@@ -0,0 +1,142 @@
+package buildcraft.additionalpipes.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for TimerWheel, using its own instance.
+ */
+public class TimerWheelTest
+{
+	private TimerWheel wheel;
+
+	/**
+	 * Remembers the ticks it went off at.
+	 */
+	private class Recorder implements TimerWheel.Task
+	{
+		TimerWheel.Timer timer = new TimerWheel.Timer(this);
+		final List<Long> fired = new ArrayList<Long>();
+
+		@Override
+		public void onTimer()
+		{
+			fired.add(wheel.getTime());
+		}
+	}
+
+	@Before
+	public void setUp()
+	{
+		wheel = new TimerWheel();
+	}
+
+	private void advance(long ticks)
+	{
+		for(long tick = 0; tick < ticks; ++tick)
+		{
+			wheel.advance();
+		}
+	}
+
+	@Test
+	public void testFiresWhenDue()
+	{
+		Random random = new Random(4);
+		List<Recorder> recorders = new ArrayList<Recorder>();
+		List<Long> dues = new ArrayList<Long>();
+
+		//start part way round so timers cross wheel boundaries
+		advance(1000);
+		for(int index = 0; index < 500; ++index)
+		{
+			Recorder recorder = new Recorder();
+			long delay = 1 + random.nextInt(index % 2 == 0 ? 100 : 300000);
+			wheel.schedule(recorder.timer, delay);
+			recorders.add(recorder);
+			dues.add(wheel.getTime() + delay);
+		}
+		assertEquals(500, wheel.size());
+
+		advance(300001);
+
+		for(int index = 0; index < recorders.size(); ++index)
+		{
+			assertEquals(1, recorders.get(index).fired.size());
+			assertEquals(dues.get(index), recorders.get(index).fired.get(0));
+		}
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	public void testCancelAndReschedule()
+	{
+		Recorder cancelled = new Recorder();
+		Recorder moved = new Recorder();
+		Recorder earlier = new Recorder();
+
+		wheel.schedule(cancelled.timer, 10);
+		wheel.schedule(moved.timer, 10);
+		wheel.schedule(earlier.timer, 10);
+
+		wheel.cancel(cancelled.timer);
+		assertFalse(cancelled.timer.isScheduled());
+		wheel.schedule(moved.timer, 5000);
+
+		//only moves the timer sooner
+		wheel.scheduleNoLater(earlier.timer, 20);
+		wheel.scheduleNoLater(earlier.timer, 3);
+
+		advance(5000);
+
+		assertTrue(cancelled.fired.isEmpty());
+		assertEquals(1, moved.fired.size());
+		assertEquals(Long.valueOf(5000), moved.fired.get(0));
+		assertEquals(1, earlier.fired.size());
+		assertEquals(Long.valueOf(3), earlier.fired.get(0));
+	}
+
+	@Test
+	public void testCancelFromAnotherTimer()
+	{
+		final Recorder first = new Recorder();
+		final Recorder second = new Recorder();
+
+		//each cancels the other, and both are due in the same tick, so only one may go off
+		TimerWheel.Task cancelSecond = new TimerWheel.Task()
+		{
+			@Override
+			public void onTimer()
+			{
+				first.onTimer();
+				wheel.cancel(second.timer);
+			}
+		};
+		TimerWheel.Task cancelFirst = new TimerWheel.Task()
+		{
+			@Override
+			public void onTimer()
+			{
+				second.onTimer();
+				wheel.cancel(first.timer);
+			}
+		};
+		first.timer = new TimerWheel.Timer(cancelSecond);
+		second.timer = new TimerWheel.Timer(cancelFirst);
+
+		wheel.schedule(first.timer, 7);
+		wheel.schedule(second.timer, 7);
+		advance(7);
+
+		assertEquals(1, first.fired.size() + second.fired.size());
+		assertEquals(0, wheel.size());
+	}
+}